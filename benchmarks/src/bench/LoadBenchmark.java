@@ -0,0 +1,50 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import mvc.Controller;
+import mvc.WorkingController;
+
+/**
+ * Measures the {@link WorkingController} constructor, reading the csv and building the network.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LoadBenchmark {
+
+	@Param({"bundled", "10000", "100000", "1000000"})
+	public String network;
+
+	private String csv;
+
+	@Setup
+	public void setUp() throws IOException {
+		csv = Networks.csv(network);
+		Networks.silenceConsole();
+	}
+
+	@Benchmark
+	public Controller load() {
+		return new WorkingController(csv);
+	}
+}
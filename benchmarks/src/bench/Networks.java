@@ -0,0 +1,62 @@
+package bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import tools.NetworkGenerator;
+
+/**
+ * Resolves the network parameter shared by the benchmarks to a csv file.
+ * {@code "bundled"} is the csv shipped in resources, a number is a {@link NetworkGenerator} network
+ * of that many line slots, written once to the temporary directory and reused by later forks.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+final class Networks {
+
+	//the csv shipped with the application, relative to the repository root
+	static final String BUNDLED = "resources/MTRsystem_partial.csv";
+	//stations on each synthetic line
+	private static final int LINE_LENGTH = 100;
+	//share of line slots that are interchanges with an earlier line
+	private static final double INTERCHANGE_DENSITY = 0.05;
+	//seed of every synthetic network, so all runs measure the same files
+	private static final long SEED = 42L;
+
+	private Networks() {
+	}
+
+	/**
+	 * Method to find or create the csv of a network
+	 * @param network {@code "bundled"} or a number of stations
+	 * @return path of the csv
+	 * @throws IOException if the synthetic csv cannot be written
+	 */
+	static String csv(String network) throws IOException {
+		if ("bundled".equals(network)) {
+			return BUNDLED;
+		}
+		int stations = Integer.parseInt(network);
+		int lines = Math.max(1, stations / LINE_LENGTH);
+		Path file = Paths.get(System.getProperty("java.io.tmpdir"), "mtr-synthetic-" + stations + "-" + SEED + ".csv");
+		if (!Files.exists(file)) {
+			Path partial = Files.createTempFile(file.getParent(), "mtr-synthetic", ".tmp");
+			new NetworkGenerator(lines, LINE_LENGTH, INTERCHANGE_DENSITY, lines / 10, SEED).write(partial);
+			Files.move(partial, file);
+		}
+		return file.toString();
+	}
+
+	/**
+	 * The controller prints its load time, and any file it could not read, each time it loads a network,
+	 * which would flood the log of a benchmark that loads one on every call
+	 */
+	static void silenceConsole() {
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+}
@@ -0,0 +1,54 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import metro.CsvNetworkLoader;
+import metro.MetroSystem;
+import metro.ParallelNetworkLoader;
+
+/**
+ * Measures how loading a csv scales with threads, comparing {@link ParallelNetworkLoader} at each
+ * thread count with the single pass of {@link CsvNetworkLoader}, which is run for {@code threads=0}.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParallelLoadBenchmark {
+
+	@Param({"100000", "1000000"})
+	public String network;
+
+	@Param({"0", "1", "2", "4", "8"})
+	public int threads;
+
+	private String csv;
+
+	@Setup
+	public void setUp() throws IOException {
+		csv = Networks.csv(network);
+	}
+
+	@Benchmark
+	public MetroSystem load() throws IOException {
+		return threads == 0 ? new CsvNetworkLoader(csv).load() : new ParallelNetworkLoader(csv, threads).load();
+	}
+}
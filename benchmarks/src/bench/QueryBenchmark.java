@@ -0,0 +1,131 @@
+package bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import metro.MetroGraph;
+import mvc.PathResult;
+import mvc.ReachResult;
+import mvc.WorkingController;
+
+/**
+ * Measures the {@link mvc.Controller} queries on a loaded network.
+ * Path queries cycle through a fixed, seeded set of station pairs and line queries through every line,
+ * with the route cache turned off and on.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QueryBenchmark {
+
+	//number of station pairs cycled through by the path queries
+	private static final int PAIRS = 1024;
+
+	@Param({"bundled", "10000", "100000", "1000000"})
+	public String network;
+
+	@Param({"0", "32768"})
+	public int routeCacheSize;
+
+	private WorkingController controller;
+	private String[] from;
+	private String[] to;
+	private String[] lines;
+	private int next;
+
+	@Setup
+	public void setUp() throws IOException {
+		String csv = Networks.csv(network);
+		controller = new WorkingController(csv, routeCacheSize);
+
+		MetroGraph graph = controller.getGraph();
+		Random random = new Random(42);
+		from = new String[PAIRS];
+		to = new String[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			from[i] = graph.stationName(random.nextInt(graph.stationCount()));
+			to[i] = graph.stationName(random.nextInt(graph.stationCount()));
+		}
+		lines = new String[graph.lineCount()];
+		for (int l = 0; l < lines.length; l++) {
+			lines[l] = graph.lineName(l);
+		}
+	}
+
+	@Benchmark
+	public String showPathBetween() {
+		int i = next++ & (PAIRS - 1);
+		return controller.showPathBetween(from[i], to[i]);
+	}
+
+	@Benchmark
+	public String showShortestPathBetween() {
+		int i = next++ & (PAIRS - 1);
+		return controller.showShortestPathBetween(from[i], to[i]);
+	}
+
+	@Benchmark
+	public String showFastestPathBetween() {
+		int i = next++ & (PAIRS - 1);
+		return controller.showFastestPathBetween(from[i], to[i]);
+	}
+
+	@Benchmark
+	public String showFewestTransfersBetween() {
+		int i = next++ & (PAIRS - 1);
+		return controller.showFewestTransfersBetween(from[i], to[i]);
+	}
+
+	@Benchmark
+	public PathResult getShortestPathBetween() {
+		int i = next++ & (PAIRS - 1);
+		return controller.getShortestPathBetween(from[i], to[i]);
+	}
+
+	@Benchmark
+	public String showAlternativePathsBetween() {
+		int i = next++ & (PAIRS - 1);
+		return controller.showAlternativePathsBetween(from[i], to[i], 10, PathResult.Kind.FASTEST);
+	}
+
+	@Benchmark
+	public ReachResult getStationsWithinMinutes() {
+		int i = next++ & (PAIRS - 1);
+		return controller.getStationsWithinMinutes(List.of(from[i]), 20);
+	}
+
+	@Benchmark
+	public String listAllTermini() {
+		return controller.listAllTermini();
+	}
+
+	@Benchmark
+	public String listStationsInLine() {
+		return controller.listStationsInLine(lines[(next++ & Integer.MAX_VALUE) % lines.length]);
+	}
+
+	@Benchmark
+	public String listAllDirectlyConnectedLines() {
+		return controller.listAllDirectlyConnectedLines(lines[(next++ & Integer.MAX_VALUE) % lines.length]);
+	}
+}
@@ -0,0 +1,138 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets, in the manner of an HDR histogram.
+ * Values below 64 have a bucket each, and above that every power of two is split into 32 buckets,
+ * so any recorded value is reported to within about 3% with a fixed 10KB of counters.
+ * <p>
+ * Recording is a few atomic increments and never blocks, so any number of threads can record at once.
+ * Reading walks the buckets without stopping writers, which may make a read a few values stale.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class LatencyHistogram {
+
+	//buckets per power of two, as a number of bits
+	private static final int SUB_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	//values below this have a bucket of their own
+	private static final int LINEAR = SUB_BUCKETS << 1;
+	//largest power of two recorded exactly, larger values fall in the last bucket (about 73 minutes in nanoseconds)
+	private static final int MAX_EXPONENT = 42;
+	private static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records one value
+	 * @param value a non-negative value, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+		counts.incrementAndGet(index(value));
+		count.increment();
+		sum.add(value);
+		// Only contended while the maximum is still rising
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * @return number of values recorded
+	 */
+	public long count() {
+		return count.sum();
+	}
+
+	/**
+	 * @return mean of the values recorded, 0 if there are none
+	 */
+	public double mean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * @return largest value recorded, 0 if there are none
+	 */
+	public long max() {
+		return max.get();
+	}
+
+	/**
+	 * Finds the value below which the specified share of the recorded values lie
+	 * @param percentile between 0 and 100
+	 * @return the upper bound of the bucket holding that value, never above the maximum, 0 if nothing was recorded
+	 */
+	public long percentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			total += counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Forgets every value, values recorded during a reset may be partly kept
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.set(0);
+	}
+
+	/*
+	 * Finds the bucket of a value, the top bits of the value picking the sub-bucket of its power of two.
+	 */
+	private static int index(long value) {
+		if (value < LINEAR) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKETS - 1;
+		}
+		int shift = exponent - SUB_BITS;
+		int sub = (int) (value >>> shift) - SUB_BUCKETS;
+		return LINEAR + (exponent - SUB_BITS - 1) * SUB_BUCKETS + sub;
+	}
+
+	/*
+	 * @return the largest value falling in the bucket
+	 */
+	private static long upperBound(int index) {
+		if (index < LINEAR) {
+			return index;
+		}
+		int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+		int sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+		int shift = exponent - SUB_BITS;
+		return ((long) (sub + 1) << shift) - 1;
+	}
+}
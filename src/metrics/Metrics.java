@@ -0,0 +1,303 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The metrics of the query engine, kept for the whole JVM: a {@link LatencyHistogram} for each
+ * {@link Operation}, the nodes the searches expanded for each, and how long each phase of loading a
+ * network took. Everything is in nanoseconds taken from {@link System#nanoTime()}.
+ * <p>
+ * Recording is on unless the system property {@code mtr.metrics} is {@code false}, and can be turned
+ * on or off at any time, over JMX too. When off, callers skip even reading the clock, so a query
+ * pays for one volatile read. The metrics are read with {@link #dump()}, or over JMX as
+ * {@code mtr:type=Metrics} once {@link #registerMBean()} has been called.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class Metrics {
+
+	/**
+	 * The operations timed, one for each kind of {@code Controller} query
+	 */
+	public enum Operation {
+		TERMINI("listAllTermini"),
+		STATIONS_IN_LINE("listStationsInLine"),
+		CONNECTED_LINES("listAllDirectlyConnectedLines"),
+		PATH("showPathBetween"),
+		SHORTEST_PATH("showShortestPathBetween"),
+		FASTEST_PATH("showFastestPathBetween"),
+		FEWEST_TRANSFERS("showFewestTransfersBetween"),
+		ALTERNATIVE_PATHS("showAlternativePathsBetween"),
+		STATIONS_WITHIN_STOPS("showStationsWithinStops"),
+		STATIONS_WITHIN_MINUTES("showStationsWithinMinutes"),
+		BATCH_PATHS("findPaths");
+
+		private final String label;
+
+		Operation(String label) {
+			this.label = label;
+		}
+
+		/**
+		 * @return the name of the controller method the operation is reported under
+		 */
+		public String label() {
+			return label;
+		}
+	}
+
+	//name the metrics are registered under over JMX
+	public static final String OBJECT_NAME = "mtr:type=Metrics";
+
+	private static volatile boolean enabled = !"false".equalsIgnoreCase(System.getProperty("mtr.metrics"));
+
+	private static final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+	//nodes expanded by the searches of each operation, and the searches run, cache hits not included
+	private static final Map<Operation, LongAdder> expanded = new EnumMap<>(Operation.class);
+	private static final Map<Operation, LongAdder> searches = new EnumMap<>(Operation.class);
+	//nanoseconds taken by each phase of the last load, in the order they ran
+	private static final Map<String, Long> phases = Collections.synchronizedMap(new LinkedHashMap<>());
+
+	static {
+		for (Operation operation : Operation.values()) {
+			latencies.put(operation, new LatencyHistogram());
+			expanded.put(operation, new LongAdder());
+			searches.put(operation, new LongAdder());
+		}
+	}
+
+	private Metrics() {
+	}
+
+	/**
+	 * @return true if metrics are being recorded
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turns recording on or off, what was recorded so far is kept
+	 * @param on true to record
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/**
+	 * Reads the clock if metrics are being recorded
+	 * @return the current {@link System#nanoTime()}, or 0 when metrics are off
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the latency of an operation started with {@link #start()}
+	 * @param operation the operation
+	 * @param startNanos what {@link #start()} returned
+	 */
+	public static void stop(Operation operation, long startNanos) {
+		if (enabled && startNanos != 0) {
+			latencies.get(operation).record(System.nanoTime() - startNanos);
+		}
+	}
+
+	/**
+	 * Records the nodes one search expanded
+	 * @param operation the operation the search ran for
+	 * @param nodes stations, memberships or lines taken off the search's frontier
+	 */
+	public static void expanded(Operation operation, long nodes) {
+		if (enabled) {
+			expanded.get(operation).add(nodes);
+			searches.get(operation).increment();
+		}
+	}
+
+	/**
+	 * Records how long a phase of loading a network took, whether or not metrics are on
+	 * @param phase name of the phase
+	 * @param nanos its duration
+	 */
+	public static void phase(String phase, long nanos) {
+		phases.put(phase, nanos);
+	}
+
+	/**
+	 * @param operation an operation
+	 * @return the latencies recorded for it
+	 */
+	public static LatencyHistogram latency(Operation operation) {
+		return latencies.get(operation);
+	}
+
+	/**
+	 * @param operation an operation
+	 * @return nodes expanded by its searches
+	 */
+	public static long expanded(Operation operation) {
+		return expanded.get(operation).sum();
+	}
+
+	/**
+	 * @param operation an operation
+	 * @return searches run for it
+	 */
+	public static long searches(Operation operation) {
+		return searches.get(operation).sum();
+	}
+
+	/**
+	 * @return nanoseconds taken by each phase of the last load, in the order they ran
+	 */
+	public static Map<String, Long> phases() {
+		synchronized (phases) {
+			return new LinkedHashMap<>(phases);
+		}
+	}
+
+	/**
+	 * Forgets every latency and count, the load phases are kept
+	 */
+	public static void reset() {
+		for (Operation operation : Operation.values()) {
+			latencies.get(operation).reset();
+			expanded.get(operation).reset();
+			searches.get(operation).reset();
+		}
+	}
+
+	/**
+	 * Writes every metric as text, one line per operation and phase
+	 * @return the metrics
+	 */
+	public static String dump() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Metrics ").append(enabled ? "(recording)" : "(off)").append("\n");
+		sb.append(String.format("%-30s %10s %10s %10s %10s %10s %12s%n",
+				"Operation", "Count", "Mean us", "p50 us", "p99 us", "Max us", "Nodes/search"));
+		for (Operation operation : Operation.values()) {
+			LatencyHistogram h = latencies.get(operation);
+			long n = searches(operation);
+			sb.append(String.format("%-30s %10d %10.1f %10.1f %10.1f %10.1f %12s%n", operation.label(), h.count(),
+					h.mean() / 1000, h.percentile(50) / 1000.0, h.percentile(99) / 1000.0, h.max() / 1000.0,
+					n == 0 ? "-" : String.format("%.1f", (double) expanded(operation) / n)));
+		}
+		Map<String, Long> load = phases();
+		if (!load.isEmpty()) {
+			sb.append("Load phases:\n");
+			for (Map.Entry<String, Long> phase : load.entrySet()) {
+				sb.append(String.format("  %-28s %10.1f ms%n", phase.getKey(), phase.getValue() / 1e6));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server, once however often it is called
+	 * @return true if the metrics are registered
+	 */
+	public static synchronized boolean registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new Bean(), name);
+			}
+			return true;
+		} catch (JMException | SecurityException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * The metrics as seen over JMX
+	 */
+	private static final class Bean implements MetricsMXBean {
+
+		@Override
+		public boolean isEnabled() {
+			return Metrics.isEnabled();
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			Metrics.setEnabled(enabled);
+		}
+
+		@Override
+		public Map<String, Long> getCounts() {
+			Map<String, Long> counts = new LinkedHashMap<>();
+			for (Operation operation : Operation.values()) {
+				counts.put(operation.label(), latencies.get(operation).count());
+			}
+			return counts;
+		}
+
+		@Override
+		public Map<String, Double> getMedianMicros() {
+			return percentiles(50);
+		}
+
+		@Override
+		public Map<String, Double> getP99Micros() {
+			return percentiles(99);
+		}
+
+		@Override
+		public Map<String, Double> getMaxMicros() {
+			Map<String, Double> max = new LinkedHashMap<>();
+			for (Operation operation : Operation.values()) {
+				max.put(operation.label(), latencies.get(operation).max() / 1000.0);
+			}
+			return max;
+		}
+
+		@Override
+		public Map<String, Long> getNodesExpanded() {
+			Map<String, Long> nodes = new LinkedHashMap<>();
+			for (Operation operation : Operation.values()) {
+				nodes.put(operation.label(), expanded(operation));
+			}
+			return nodes;
+		}
+
+		@Override
+		public Map<String, Double> getLoadPhaseMillis() {
+			Map<String, Double> millis = new LinkedHashMap<>();
+			for (Map.Entry<String, Long> phase : phases().entrySet()) {
+				millis.put(phase.getKey(), phase.getValue() / 1e6);
+			}
+			return millis;
+		}
+
+		@Override
+		public String dump() {
+			return Metrics.dump();
+		}
+
+		@Override
+		public void reset() {
+			Metrics.reset();
+		}
+
+		private static Map<String, Double> percentiles(double percentile) {
+			Map<String, Double> values = new LinkedHashMap<>();
+			for (Operation operation : Operation.values()) {
+				values.put(operation.label(), latencies.get(operation).percentile(percentile) / 1000.0);
+			}
+			return values;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link Metrics}, maps are keyed by controller method or load phase.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public interface MetricsMXBean {
+
+	/**
+	 * @return true if metrics are being recorded
+	 */
+	boolean isEnabled();
+
+	/**
+	 * @param enabled true to record metrics
+	 */
+	void setEnabled(boolean enabled);
+
+	/**
+	 * @return queries timed for each operation
+	 */
+	Map<String, Long> getCounts();
+
+	/**
+	 * @return median latency of each operation in microseconds
+	 */
+	Map<String, Double> getMedianMicros();
+
+	/**
+	 * @return 99th percentile latency of each operation in microseconds
+	 */
+	Map<String, Double> getP99Micros();
+
+	/**
+	 * @return largest latency of each operation in microseconds
+	 */
+	Map<String, Double> getMaxMicros();
+
+	/**
+	 * @return nodes expanded by the searches of each operation
+	 */
+	Map<String, Long> getNodesExpanded();
+
+	/**
+	 * @return milliseconds taken by each phase of the last load
+	 */
+	Map<String, Double> getLoadPhaseMillis();
+
+	/**
+	 * @return every metric as text
+	 */
+	String dump();
+
+	/**
+	 * Forgets every latency and count
+	 */
+	void reset();
+}
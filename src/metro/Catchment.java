@@ -0,0 +1,137 @@
+package metro;
+
+import java.util.Arrays;
+
+/**
+ * The stations reachable from one or more seed stations within a bound, each with its distance from
+ * the nearest seed, as filled by {@link PathSearch#reachWithin(int[], int, Catchment)} in stops or by
+ * {@link FastestRouteSearch#reachWithin(int[], int, Catchment)} in seconds.
+ * <p>
+ * Stations are held in primitive arrays in the order they were reached, which is by increasing distance.
+ * A catchment is meant to be reused query after query by one thread: filling it again only bumps an
+ * epoch, so nothing is cleared between queries.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class Catchment {
+
+	//epoch stamp of each station, equal to the current epoch once reached
+	int[] reached;
+	//distance of each reached station from the nearest seed
+	int[] distance;
+	//stations in the order they were reached
+	int[] order;
+	//number of stations reached
+	int size;
+	//stamp of the catchment being filled
+	int epoch;
+	//nodes taken off the queue or heap filling the catchment
+	int expanded;
+
+	/**
+	 * Constructs an empty catchment for a graph of the specified size
+	 * @param stations number of stations in the graph
+	 */
+	public Catchment(int stations) {
+		reached = new int[stations];
+		distance = new int[stations];
+		order = new int[stations];
+	}
+
+	/**
+	 * Prepares the catchment to be filled again
+	 * @param stations number of stations in the graph
+	 * @return the epoch marking stations reached this time
+	 */
+	int begin(int stations) {
+		if (reached.length < stations) {
+			reached = Arrays.copyOf(reached, stations);
+			distance = new int[stations];
+			order = new int[stations];
+		}
+		// Wrapping around would make stale stamps look current, so start again from clean arrays
+		if (++epoch == 0) {
+			Arrays.fill(reached, 0);
+			epoch = 1;
+		}
+		size = 0;
+		expanded = 0;
+		return epoch;
+	}
+
+	/**
+	 * Adds a station the first time it is reached
+	 * @param station id of the station
+	 * @param d its distance from the nearest seed
+	 */
+	void add(int station, int d) {
+		reached[station] = epoch;
+		distance[station] = d;
+		order[size++] = station;
+	}
+
+	/**
+	 * @return number of stations reached, the seeds included
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i position in the order the stations were reached, below {@link #size()}
+	 * @return id of the i-th station reached
+	 */
+	public int station(int i) {
+		return order[i];
+	}
+
+	/**
+	 * @param i position in the order the stations were reached, below {@link #size()}
+	 * @return distance of the i-th station reached from the nearest seed
+	 */
+	public int distance(int i) {
+		return distance[order[i]];
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return true if the station is within the bound
+	 */
+	public boolean reaches(int station) {
+		return epoch != 0 && reached[station] == epoch;
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return distance of the station from the nearest seed, or -1 if it is not within the bound
+	 */
+	public int distanceTo(int station) {
+		return reaches(station) ? distance[station] : -1;
+	}
+
+	/**
+	 * @return ids of the stations reached, in the order they were reached, as a new array
+	 */
+	public int[] stations() {
+		return Arrays.copyOf(order, size);
+	}
+
+	/**
+	 * @return distances of the stations reached, aligned with {@link #stations()}, as a new array
+	 */
+	public int[] distances() {
+		int[] distances = new int[size];
+		for (int i = 0; i < size; i++) {
+			distances[i] = distance[order[i]];
+		}
+		return distances;
+	}
+
+	/**
+	 * @return number of nodes taken off the queue or heap filling the catchment
+	 */
+	public int expanded() {
+		return expanded;
+	}
+}
@@ -0,0 +1,229 @@
+package metro;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Loads a {@link MetroSystem} from a csv file where each row is {@code line,station,station,...}.
+ * <p>
+ * The file is read through a large reusable buffer and split by a hand written scanner, so no row
+ * strings or split arrays are created. Station names are interned straight from the raw bytes:
+ * a cell naming a known station costs one probe of a byte keyed table and allocates nothing, and
+ * a {@link String} is only created the first time a station is seen. Empty cells, such as the
+ * trailing {@code ,,,,} runs of the bundled file, are skipped.
+ * <p>
+ * A row naming a line read before adds a branch to that line, starting at the station the branch leaves
+ * the line from, and a row ending at the station it started from is a loop. See {@link MetroLine}. A
+ * branch starting at a station not yet on its line would not be joined to it, and fails the load.
+ * <p>
+ * A loader reads one file once and is not thread-safe.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class CsvNetworkLoader {
+
+	//size of the read buffer, it grows if a single cell is longer
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	//file to read
+	private final String path;
+	//system being built
+	private final MetroSystem system;
+	//stations seen so far, keyed by the bytes of their name
+	private final StationTable table;
+	//line of the row being read, null before its name or for a row without one
+	private MetroLine line;
+	//true while the row being read is a branch none of whose stations has been read
+	private boolean branchRow;
+	//true until the first cell of a row has been read
+	private boolean newRow;
+
+	/**
+	 * Constructs a new {@link CsvNetworkLoader} for the specified file
+	 * @param path of the csv file
+	 */
+	public CsvNetworkLoader(String path) {
+		this.path = path;
+		this.system = new MetroSystem();
+		this.table = new StationTable(system);
+		this.newRow = true;
+	}
+
+	/**
+	 * Reads the file and builds the system, including the adjacent stations and connections of every line
+	 * @return the loaded {@link MetroSystem}
+	 * @throws IOException if the file cannot be read, or a branch does not start on its line
+	 */
+	public MetroSystem load() throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			byte[] buf = new byte[BUFFER_SIZE];
+			int limit = 0;
+			int cellStart = 0;
+			int pos = 0;
+
+			while (true) {
+				if (pos == limit) {
+					// Moves the unfinished cell to the front and refills the rest of the buffer
+					int carry = limit - cellStart;
+					if (carry == buf.length) {
+						buf = Arrays.copyOf(buf, buf.length * 2);
+					}
+					System.arraycopy(buf, cellStart, buf, 0, carry);
+					cellStart = 0;
+					pos = carry;
+					int read = channel.read(ByteBuffer.wrap(buf, carry, buf.length - carry));
+					if (read == -1) {
+						//a last row without a line break
+						if (carry > 0 || !newRow) {
+							cell(buf, 0, carry);
+							endRow();
+						}
+						break;
+					}
+					limit = carry + read;
+				}
+
+				byte b = buf[pos];
+				if (b == ',' || b == '\n' || b == '\r') {
+					// A \r\n pair ends one row, the \n then only ends an empty one
+					if (b != '\n' || pos > cellStart || !newRow) {
+						cell(buf, cellStart, pos);
+					}
+					if (b != ',') {
+						endRow();
+					}
+					cellStart = pos + 1;
+				}
+				pos++;
+			}
+		}
+
+		//Adds the adjacent stations to each station
+		for (MetroLine metroLine : system.getLines().values()) {
+			metroLine.addConnectingStations();
+			for (MetroStation station : metroLine.getAllStations().values()) {
+				metroLine.addConnections(station.getLines());
+			}
+		}
+		return system;
+	}
+
+	/*
+	 * Handles one cell of the current row.
+	 */
+	private void cell(byte[] buf, int from, int to) throws IOException {
+		if (newRow) {
+			newRow = false;
+			line = from == to ? null : lineOrBranch(new String(buf, from, to - from, StandardCharsets.UTF_8));
+		} else if (line != null && from < to) {
+			MetroStation station = table.intern(buf, from, to);
+			if (branchRow && line.indexOf(station) == -1) {
+				throw new IOException("Branch of " + line + " does not start on the line: " + station);
+			}
+			branchRow = false;
+			station.addLine(line);
+			line.addStation(station);
+		}
+	}
+
+	/*
+	 * Finds the line a row adds stations to, a new line or a new branch of a line read before.
+	 */
+	private MetroLine lineOrBranch(String name) {
+		MetroLine known = system.getOneLine(name);
+		branchRow = known != null;
+		if (known == null) {
+			return new MetroLine(name);
+		}
+		known.addBranch();
+		return known;
+	}
+
+	/*
+	 * Finishes the current row, adding its line to the system.
+	 */
+	private void endRow() {
+		if (line != null) {
+			system.addLine(line);
+		}
+		line = null;
+		newRow = true;
+	}
+
+	/**
+	 * An open addressing table from the UTF-8 bytes of a station name to its station
+	 */
+	private static final class StationTable {
+
+		private final MetroSystem system;
+		private byte[][] keys = new byte[1024][];
+		private int[] hashes = new int[1024];
+		private MetroStation[] values = new MetroStation[1024];
+		private int size;
+
+		private StationTable(MetroSystem system) {
+			this.system = system;
+		}
+
+		/**
+		 * Finds the station named by a range of bytes, adding it to the system the first time it is seen
+		 * @return the station with that name
+		 */
+		private MetroStation intern(byte[] buf, int from, int to) {
+			int hash = 0;
+			for (int i = from; i < to; i++) {
+				hash = 31 * hash + buf[i];
+			}
+			hash ^= hash >>> 16;
+
+			int mask = keys.length - 1;
+			int slot = hash & mask;
+			while (keys[slot] != null) {
+				if (hashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, buf, from, to)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			MetroStation station = new MetroStation(new String(buf, from, to - from, StandardCharsets.UTF_8));
+			system.addStation(station);
+			keys[slot] = Arrays.copyOfRange(buf, from, to);
+			hashes[slot] = hash;
+			values[slot] = station;
+			if (++size * 2 > keys.length) {
+				resize();
+			}
+			return station;
+		}
+
+		/*
+		 * Doubles the table, keeping it at most half full.
+		 */
+		private void resize() {
+			byte[][] oldKeys = keys;
+			int[] oldHashes = hashes;
+			MetroStation[] oldValues = values;
+			keys = new byte[oldKeys.length * 2][];
+			hashes = new int[keys.length];
+			values = new MetroStation[keys.length];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int slot = oldHashes[i] & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					hashes[slot] = oldHashes[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,350 @@
+package metro;
+
+import java.util.Arrays;
+
+/**
+ * A fastest route engine over a {@link MetroGraph} weighted by {@link TravelTimes}, using a bidirectional
+ * Dijkstra search on two {@link IntMinHeap}s.
+ * <p>
+ * The search runs over line memberships rather than stations: one node for every place a station
+ * appears on a line. Riding along a line moves between neighbouring memberships at the segment
+ * time, and changing line moves between memberships of the same station at the interchange
+ * penalty, so a route is charged for each change it makes. A walkable link is a line like any
+ * other, so walking is charged a change and its own time. Neighbouring memberships either side of
+ * where a branch starts are not linked, and moving between two memberships of a station on the same
+ * line, at a junction or where a loop closes, is not a change.
+ * <p>
+ * The segment times are resolved to arrays once, when the engine is built. Like {@link PathSearch},
+ * all search state is kept in a per-thread workspace stamped with the query's epoch, so one engine
+ * can be shared by any number of threads.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class FastestRouteSearch {
+
+	private final MetroGraph graph;
+	private final int interchangeSeconds;
+	//line of each membership, a membership being an index into the graph's line stations
+	private final int[] lineOf;
+	//seconds from each membership to the next one along its line
+	private final int[] segmentSeconds;
+	//true where a membership is linked to the next one along its line
+	private final boolean[] segments;
+	//memberships of each station
+	private final int[] memberOffsets;
+	private final int[] members;
+	//scratch state of each querying thread
+	private final ThreadLocal<Workspace> workspaces;
+
+	/**
+	 * Constructs a new {@link FastestRouteSearch}
+	 * @param graph the network to search
+	 * @param times the travel times of the network
+	 */
+	public FastestRouteSearch(MetroGraph graph, TravelTimes times) {
+		this.graph = graph;
+		this.interchangeSeconds = times.interchangeSeconds();
+		int[] lineOffsets = graph.lineOffsets();
+		int[] lineStations = graph.lineStations();
+		int memberships = lineStations.length;
+		segments = graph.segments();
+
+		lineOf = new int[memberships];
+		segmentSeconds = new int[memberships];
+		for (int line = 0; line < graph.lineCount(); line++) {
+			String name = graph.lineName(line);
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+				lineOf[m] = line;
+				if (segments[m]) {
+					segmentSeconds[m] = times.segmentSeconds(name,
+							graph.stationName(lineStations[m]), graph.stationName(lineStations[m + 1]));
+				}
+			}
+		}
+
+		int stations = graph.stationCount();
+		memberOffsets = new int[stations + 1];
+		for (int m = 0; m < memberships; m++) {
+			memberOffsets[lineStations[m] + 1]++;
+		}
+		for (int s = 0; s < stations; s++) {
+			memberOffsets[s + 1] += memberOffsets[s];
+		}
+		members = new int[memberships];
+		int[] fill = Arrays.copyOf(memberOffsets, stations);
+		for (int m = 0; m < memberships; m++) {
+			members[fill[lineStations[m]]++] = m;
+		}
+
+		workspaces = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	/**
+	 * Method to get the graph being searched
+	 * @return the {@link MetroGraph}
+	 */
+	public MetroGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return number of memberships the calling thread's last query settled
+	 */
+	public int lastExpanded() {
+		return workspaces.get().expanded;
+	}
+
+	/**
+	 * Finds the route with the least travel time between two stations. Times are the same either way, so
+	 * a backward search runs from the end over the same memberships, and both stop once their two
+	 * smallest tentative times add up to no less than the best meeting found
+	 * @param start id of the station to start from
+	 * @param end id of the station to reach
+	 * @return the fastest route, or null if the end cannot be reached
+	 */
+	public TimedRoute findFastestRoute(int start, int end) {
+		Workspace ws = workspaces.get();
+		int epoch = ws.begin(lineOf.length);
+		Side forward = ws.forward;
+		Side backward = ws.backward;
+		ws.expanded = 0;
+
+		// Boarding any line at the start, or leaving any line at the end, is free
+		ws.best = Integer.MAX_VALUE;
+		ws.meet = -1;
+		for (int i = memberOffsets[start]; i < memberOffsets[start + 1]; i++) {
+			forward.reach(epoch, members[i], -1, 0);
+		}
+		for (int i = memberOffsets[end]; i < memberOffsets[end + 1]; i++) {
+			backward.reach(epoch, members[i], -1, 0);
+			if (ws.meet == -1 && forward.reached[members[i]] == epoch) {
+				ws.best = 0;
+				ws.meet = members[i];
+			}
+		}
+
+		int[] lineOffsets = graph.lineOffsets();
+		int[] lineStations = graph.lineStations();
+		while (!forward.heap.isEmpty() && !backward.heap.isEmpty()
+				&& (long) forward.heap.peekKey() + backward.heap.peekKey() < ws.best) {
+			// Settles from whichever side is nearer, the other side only being read
+			boolean ahead = forward.heap.peekKey() <= backward.heap.peekKey();
+			Side side = ahead ? forward : backward;
+			Side other = ahead ? backward : forward;
+			int current = side.heap.poll();
+			ws.expanded++;
+			int line = lineOf[current];
+			int base = side.time[current];
+
+			// Along the line in both directions
+			if (current > lineOffsets[line] && segments[current - 1]) {
+				relax(ws, side, other, epoch, current, current - 1, base + segmentSeconds[current - 1]);
+			}
+			if (segments[current]) {
+				relax(ws, side, other, epoch, current, current + 1, base + segmentSeconds[current]);
+			}
+			// Onto the other lines of the station
+			int station = lineStations[current];
+			for (int i = memberOffsets[station]; i < memberOffsets[station + 1]; i++) {
+				if (members[i] != current) {
+					relax(ws, side, other, epoch, current, members[i], base + change(line, members[i]));
+				}
+			}
+		}
+		forward.heap.clear();
+		backward.heap.clear();
+
+		int meet = ws.meet;
+		if (meet == -1) {
+			return null;
+		}
+
+		// Memberships from the start to the meeting point, then on to the end
+		int[] chain = ws.chain;
+		int length = 0;
+		for (int m = meet; m != -1; m = forward.previous[m]) {
+			chain[length++] = m;
+		}
+		for (int i = 0, j = length - 1; i < j; i++, j--) {
+			int swap = chain[i];
+			chain[i] = chain[j];
+			chain[j] = swap;
+		}
+		for (int m = backward.previous[meet]; m != -1; m = backward.previous[m]) {
+			chain[length++] = m;
+		}
+		return toRoute(chain, length, ws.best);
+	}
+
+	/**
+	 * Finds every station within a travel time of the nearest of some seed stations, with a Dijkstra search
+	 * over line memberships that stops once the next membership to settle is beyond the bound. Boarding any
+	 * line at a seed is free and every change of line is charged, as for {@link #findFastestRoute(int, int)}
+	 * @param seeds ids of the stations to start from, repeats allowed
+	 * @param maxSeconds most seconds from a seed
+	 * @param catchment receives the stations and their seconds from the nearest seed, whatever it held before is replaced
+	 */
+	public void reachWithin(int[] seeds, int maxSeconds, Catchment catchment) {
+		Workspace ws = workspaces.get();
+		int epoch = ws.begin(lineOf.length);
+		int stationEpoch = catchment.begin(graph.stationCount());
+		Side side = ws.forward;
+		int[] reachedStation = catchment.reached;
+		ws.expanded = 0;
+
+		for (int seed : seeds) {
+			if (reachedStation[seed] != stationEpoch) {
+				catchment.add(seed, 0);
+			}
+			for (int i = memberOffsets[seed]; i < memberOffsets[seed + 1]; i++) {
+				side.reach(epoch, members[i], -1, 0);
+			}
+		}
+
+		int[] lineOffsets = graph.lineOffsets();
+		int[] lineStations = graph.lineStations();
+		// O(n log n)
+		// A station is reached at the time its first membership is settled
+		while (!side.heap.isEmpty() && side.heap.peekKey() <= maxSeconds) {
+			int current = side.heap.poll();
+			ws.expanded++;
+			int base = side.time[current];
+			int station = lineStations[current];
+			if (reachedStation[station] != stationEpoch) {
+				catchment.add(station, base);
+			}
+
+			int line = lineOf[current];
+			if (current > lineOffsets[line] && segments[current - 1]) {
+				side.reach(epoch, current - 1, current, base + segmentSeconds[current - 1]);
+			}
+			if (segments[current]) {
+				side.reach(epoch, current + 1, current, base + segmentSeconds[current]);
+			}
+			for (int i = memberOffsets[station]; i < memberOffsets[station + 1]; i++) {
+				if (members[i] != current) {
+					side.reach(epoch, members[i], current, base + change(line, members[i]));
+				}
+			}
+		}
+		side.heap.clear();
+		catchment.expanded = ws.expanded;
+	}
+
+	/*
+	 * @return seconds to move from a line onto another membership of the same station, nothing on the same line
+	 */
+	private int change(int line, int membership) {
+		return lineOf[membership] == line ? 0 : interchangeSeconds;
+	}
+
+	/*
+	 * Lowers the time of a membership for one side, keeping the meeting if the other side has reached it faster.
+	 */
+	private static void relax(Workspace ws, Side side, Side other, int epoch, int from, int to, int arrival) {
+		if (side.reach(epoch, to, from, arrival) && other.reached[to] == epoch
+				&& (long) arrival + other.time[to] < ws.best) {
+			ws.best = arrival + other.time[to];
+			ws.meet = to;
+		}
+	}
+
+	/*
+	 * Turns a chain of memberships into a route, a change of line being two memberships of one station.
+	 */
+	private TimedRoute toRoute(int[] chain, int length, int seconds) {
+		int[] lineStations = graph.lineStations();
+		int size = 0;
+		for (int i = 0; i < length; i++) {
+			if (i == 0 || lineStations[chain[i]] != lineStations[chain[i - 1]]) {
+				size++;
+			}
+		}
+		int[] stations = new int[size];
+		int[] lines = new int[size];
+		int interchanges = 0;
+		int k = -1;
+		for (int i = 0; i < length; i++) {
+			if (k >= 0 && lineStations[chain[i]] == stations[k]) {
+				if (lineOf[chain[i]] != lineOf[chain[i - 1]]) {
+					interchanges++;
+				}
+			} else {
+				//a station is entered on the line of its first membership along the chain
+				stations[++k] = lineStations[chain[i]];
+				lines[k] = lineOf[chain[i]];
+			}
+		}
+		return new TimedRoute(stations, lines, seconds, interchanges);
+	}
+
+	/**
+	 * Tentative times of one direction of the search
+	 */
+	private static final class Side {
+
+		//epoch stamp of each membership, equal to the current epoch once reached
+		private int[] reached = new int[0];
+		//best known seconds to or from each membership
+		private int[] time = new int[0];
+		//membership each membership was reached from
+		private int[] previous = new int[0];
+		//memberships waiting to be settled
+		private final IntMinHeap heap = new IntMinHeap(0);
+
+		private void ensureCapacity(int memberships) {
+			reached = Arrays.copyOf(reached, memberships);
+			time = new int[memberships];
+			previous = new int[memberships];
+			heap.ensureCapacity(memberships);
+		}
+
+		/**
+		 * Lowers the time of a membership if the specified arrival is faster
+		 * @return true if the time was lowered
+		 */
+		private boolean reach(int epoch, int membership, int from, int arrival) {
+			if (reached[membership] == epoch && time[membership] <= arrival) {
+				return false;
+			}
+			reached[membership] = epoch;
+			time[membership] = arrival;
+			previous[membership] = from;
+			heap.offer(membership, arrival);
+			return true;
+		}
+	}
+
+	/**
+	 * Scratch state of one thread, reused by every query the thread runs
+	 */
+	private static final class Workspace {
+
+		private final Side forward = new Side();
+		private final Side backward = new Side();
+		//memberships settled by the last query
+		private int expanded;
+		//fastest meeting of the two sides so far, and the membership it is at
+		private int best;
+		private int meet;
+		//memberships of the route being rebuilt
+		private int[] chain = new int[0];
+		//stamp of the query in progress
+		private int epoch;
+
+		private int begin(int memberships) {
+			if (chain.length < memberships) {
+				forward.ensureCapacity(memberships);
+				backward.ensureCapacity(memberships);
+				chain = new int[memberships];
+			}
+			if (++epoch == 0) {
+				Arrays.fill(forward.reached, 0);
+				Arrays.fill(backward.reached, 0);
+				epoch = 1;
+			}
+			return epoch;
+		}
+	}
+}
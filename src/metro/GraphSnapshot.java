@@ -0,0 +1,244 @@
+package metro;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes a versioned binary snapshot of a {@link MetroGraph}, so a prebuilt network can be
+ * memory-mapped at startup instead of parsing the csv and rebuilding the adjacency again.
+ * <p>
+ * The file is a fixed header followed by the payload, all big-endian:
+ * <pre>
+ * header:  magic "MTRG", version, size and last-modified time of the source csv, CRC32 of the payload
+ * payload: station count, line count,
+ *          station string table, line string table (name offsets then UTF-8 bytes),
+ *          station slots, adjacency offsets and targets,
+ *          line slots, line station offsets and ids, station line offsets and ids,
+ *          line connection offsets and ids, line branch offsets and starts
+ *          (each int array prefixed by its length)
+ * </pre>
+ * A snapshot is only used when its magic, version and checksum are right and the recorded source
+ * csv details match the csv on disk, otherwise {@link #read(Path, Path)} returns null and the caller
+ * falls back to the csv. A payload must be smaller than 2 GiB to be mapped.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class GraphSnapshot {
+
+	//"MTRG" in ascii
+	private static final int MAGIC = 0x4D545247;
+	//bumped whenever the layout changes
+	static final int VERSION = 2;
+	//magic, version, source size, source modified time, checksum
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8;
+
+	private GraphSnapshot() {
+	}
+
+	/**
+	 * Method to get where the snapshot of a csv is kept, next to the csv itself
+	 * @param csv path of the csv file
+	 * @return path of its snapshot
+	 */
+	public static Path snapshotFor(String csv) {
+		return Paths.get(csv + ".snapshot");
+	}
+
+	/**
+	 * Writes a snapshot of a graph, replacing any previous snapshot only once the new one is complete
+	 * @param graph the graph to write
+	 * @param source the csv the graph was loaded from, recorded so a later change to it is noticed
+	 * @param file where to write the snapshot
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public static void write(MetroGraph graph, Path source, Path file) throws IOException {
+		Path partial = Files.createTempFile(file.toAbsolutePath().getParent(), "snapshot", ".tmp");
+		try {
+			CRC32 crc = new CRC32();
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+				channel.position(HEADER_SIZE);
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+						new ChecksumStream(Channels.newOutputStream(channel), crc), 1 << 16))) {
+					out.writeInt(graph.stationCount());
+					out.writeInt(graph.lineCount());
+					writeStrings(out, graph.stationNames());
+					writeStrings(out, graph.lineNames());
+					writeInts(out, graph.stationSlots());
+					writeInts(out, graph.offsets());
+					writeInts(out, graph.targets());
+					writeInts(out, graph.lineSlots());
+					writeInts(out, graph.lineOffsets());
+					writeInts(out, graph.lineStations());
+					writeInts(out, graph.stationLineOffsets());
+					writeInts(out, graph.stationLines());
+					writeInts(out, graph.connectionOffsets());
+					writeInts(out, graph.connections());
+					writeInts(out, graph.branchOffsets());
+					writeInts(out, graph.branchStarts());
+				}
+			}
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(VERSION);
+				header.putLong(Files.size(source)).putLong(Files.getLastModifiedTime(source).toMillis());
+				header.putLong(crc.getValue());
+				header.flip();
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+			}
+			Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(partial);
+		}
+	}
+
+	/**
+	 * Maps a snapshot and rebuilds the graph it holds
+	 * @param file the snapshot
+	 * @param source the csv the snapshot should have been made from, or null to skip the staleness check
+	 * @return the graph, or null if the snapshot is missing, damaged, of another version or older than the csv
+	 * @throws IOException if the snapshot exists but cannot be read
+	 */
+	public static MetroGraph read(Path file, Path source) throws IOException {
+		return read(file, source, null);
+	}
+
+	/**
+	 * Maps a snapshot and rebuilds the graph it holds, taking its names from a pool
+	 * @param file the snapshot
+	 * @param source the csv the snapshot should have been made from, or null to skip the staleness check
+	 * @param names the pool shared with the other networks loaded, or null to keep the names as read
+	 * @return the graph, or null if the snapshot is missing, damaged, of another version or older than the csv
+	 * @throws IOException if the snapshot exists but cannot be read
+	 */
+	public static MetroGraph read(Path file, Path source, NamePool names) throws IOException {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				return null;
+			}
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			map.order(ByteOrder.BIG_ENDIAN);
+			if (map.getInt() != MAGIC || map.getInt() != VERSION) {
+				return null;
+			}
+			long sourceSize = map.getLong();
+			long sourceModified = map.getLong();
+			long checksum = map.getLong();
+			if (source != null && (!Files.isRegularFile(source) || Files.size(source) != sourceSize
+					|| Files.getLastModifiedTime(source).toMillis() != sourceModified)) {
+				return null;
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(map.duplicate());
+			if (crc.getValue() != checksum) {
+				return null;
+			}
+
+			map.getInt();
+			map.getInt();
+			String[] stationNames = readStrings(map);
+			String[] lineNames = readStrings(map);
+			if (names != null) {
+				names.intern(stationNames);
+				names.intern(lineNames);
+			}
+			return new MetroGraph(stationNames, readInts(map), readInts(map), readInts(map),
+					lineNames, readInts(map), readInts(map), readInts(map),
+					readInts(map), readInts(map), readInts(map), readInts(map),
+					readInts(map), readInts(map));
+		}
+	}
+
+	/*
+	 * Writes names as their offsets into one UTF-8 block, then the block.
+	 */
+	private static void writeStrings(DataOutputStream out, String[] names) throws IOException {
+		byte[][] encoded = new byte[names.length][];
+		int[] offsets = new int[names.length + 1];
+		for (int i = 0; i < names.length; i++) {
+			encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+			offsets[i + 1] = offsets[i] + encoded[i].length;
+		}
+		writeInts(out, offsets);
+		for (byte[] name : encoded) {
+			out.write(name);
+		}
+	}
+
+	static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	private static String[] readStrings(ByteBuffer in) {
+		int[] offsets = readInts(in);
+		String[] names = new String[offsets.length - 1];
+		byte[] block = new byte[offsets[names.length]];
+		in.get(block);
+		for (int i = 0; i < names.length; i++) {
+			names[i] = new String(block, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+		}
+		return names;
+	}
+
+	static int[] readInts(ByteBuffer in) {
+		int[] values = new int[in.getInt()];
+		in.asIntBuffer().get(values);
+		in.position(in.position() + values.length * 4);
+		return values;
+	}
+
+	/**
+	 * Passes bytes through while adding them to a checksum
+	 */
+	static final class ChecksumStream extends OutputStream {
+
+		private final OutputStream out;
+		private final CRC32 crc;
+
+		ChecksumStream(OutputStream out, CRC32 crc) {
+			this.out = out;
+			this.crc = crc;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			crc.update(b);
+			out.write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			crc.update(b, off, len);
+			out.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,426 @@
+package metro;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A distance index over a {@link MetroGraph} for fewest-stops queries, built offline by pruned
+ * landmark labelling.
+ * <p>
+ * Stations are ranked as hubs, busiest first. Every station keeps a label: a few hubs with its
+ * number of stops to each, so that for any two stations some hub on a fewest-stops path between
+ * them is in both labels. A query is then a merge of two short sorted labels instead of a search,
+ * and touches no other station. Each label entry also keeps the next station towards its hub, so
+ * the path itself is unpacked on demand by walking from both ends to the meeting hub. Adjacent
+ * stations are linked both ways, so one label per station serves journeys in either direction.
+ * <p>
+ * The labels are built by one breadth first search per hub in rank order, each pruned wherever
+ * the labels made so far already give the distance. An index is immutable, so any number of
+ * threads can query it, and it can be written next to the network csv with {@link #write(Path)}.
+ * It only answers for the graph it was built over, which {@link #read(Path, MetroGraph)} checks
+ * by a fingerprint of the stations and their adjacency.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class HubLabels {
+
+	//"MTRH" in ascii
+	private static final int MAGIC = 0x4D545248;
+	//bumped whenever the layout changes
+	static final int VERSION = 1;
+	//magic, version, graph fingerprint, checksum
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+	//distance of a station not reached yet while building
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	//the graph the labels were built over
+	private final MetroGraph graph;
+	//station at each hub rank, busiest first
+	private final int[] hubs;
+	//start of each station's label in the arrays below
+	private final int[] labelOffsets;
+	//hub rank of each entry, ascending within a label
+	private final int[] labelHubs;
+	//stops from the station to the hub of each entry
+	private final int[] labelStops;
+	//next station from the station towards the hub of each entry, the hub itself for its own entry
+	private final int[] labelNext;
+
+	private HubLabels(MetroGraph graph, int[] hubs, int[] labelOffsets, int[] labelHubs, int[] labelStops, int[] labelNext) {
+		this.graph = graph;
+		this.hubs = hubs;
+		this.labelOffsets = labelOffsets;
+		this.labelHubs = labelHubs;
+		this.labelStops = labelStops;
+		this.labelNext = labelNext;
+	}
+
+	/**
+	 * Method to get where the labels of a csv are kept, next to the csv itself
+	 * @param csv path of the csv file
+	 * @return path of its labels
+	 */
+	public static Path labelsFor(String csv) {
+		return Paths.get(csv + ".labels");
+	}
+
+	/**
+	 * Builds the labels of a graph
+	 * @param graph the network to index
+	 * @return the labels
+	 * @throws IllegalStateException if the labels outgrow an array
+	 */
+	public static HubLabels build(MetroGraph graph) {
+		int n = graph.stationCount();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+
+		// O(n log n)
+		// Stations with more neighbours lie on more paths, so they are taken as hubs first
+		long[] keys = new long[n];
+		for (int s = 0; s < n; s++) {
+			keys[s] = (long) (Integer.MAX_VALUE - graph.degree(s)) << 32 | s;
+		}
+		Arrays.sort(keys);
+		int[] hubs = new int[n];
+		for (int r = 0; r < n; r++) {
+			hubs[r] = (int) keys[r];
+		}
+
+		Label[] labels = new Label[n];
+		for (int s = 0; s < n; s++) {
+			labels[s] = new Label();
+		}
+		//stops from the current hub to each hub of its label, by rank
+		int[] hubStops = new int[n];
+		Arrays.fill(hubStops, UNREACHED);
+		int[] stops = new int[n];
+		Arrays.fill(stops, UNREACHED);
+		int[] parent = new int[n];
+		int[] queue = new int[n];
+		long entries = 0;
+
+		// O(n * label size * degree) in practice, each search stops early where labels already cover it
+		for (int rank = 0; rank < n; rank++) {
+			int hub = hubs[rank];
+			Label hubLabel = labels[hub];
+			for (int i = 0; i < hubLabel.size; i++) {
+				hubStops[hubLabel.hubs[i]] = hubLabel.stops[i];
+			}
+
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = hub;
+			stops[hub] = 0;
+			parent[hub] = hub;
+			while (head < tail) {
+				int current = queue[head++];
+				int d = stops[current];
+
+				// A hub ranked earlier already accounts for this distance, and so for every station beyond
+				Label label = labels[current];
+				boolean covered = false;
+				for (int i = 0; i < label.size; i++) {
+					int through = hubStops[label.hubs[i]];
+					if (through != UNREACHED && through + label.stops[i] <= d) {
+						covered = true;
+						break;
+					}
+				}
+				if (covered) {
+					continue;
+				}
+
+				label.add(rank, d, parent[current]);
+				entries++;
+				for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+					int next = targets[e];
+					if (stops[next] == UNREACHED) {
+						stops[next] = d + 1;
+						parent[next] = current;
+						queue[tail++] = next;
+					}
+				}
+			}
+
+			for (int i = 0; i < tail; i++) {
+				stops[queue[i]] = UNREACHED;
+			}
+			for (int i = 0; i < hubLabel.size; i++) {
+				hubStops[hubLabel.hubs[i]] = UNREACHED;
+			}
+		}
+
+		// O(n * label size)
+		// The labels are packed into flat arrays once all are known
+		if (entries > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Labels of " + entries + " entries do not fit an array");
+		}
+		int[] labelOffsets = new int[n + 1];
+		int[] labelHubs = new int[(int) entries];
+		int[] labelStops = new int[(int) entries];
+		int[] labelNext = new int[(int) entries];
+		int at = 0;
+		for (int s = 0; s < n; s++) {
+			labelOffsets[s] = at;
+			Label label = labels[s];
+			System.arraycopy(label.hubs, 0, labelHubs, at, label.size);
+			System.arraycopy(label.stops, 0, labelStops, at, label.size);
+			System.arraycopy(label.next, 0, labelNext, at, label.size);
+			at += label.size;
+			labels[s] = null;
+		}
+		labelOffsets[n] = at;
+		return new HubLabels(graph, hubs, labelOffsets, labelHubs, labelStops, labelNext);
+	}
+
+	/**
+	 * Method to get the graph the labels answer for
+	 * @return the {@link MetroGraph}
+	 */
+	public MetroGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return number of label entries over all stations
+	 */
+	public int entries() {
+		return labelHubs.length;
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return number of hubs in the label of the station
+	 */
+	public int labelSize(int station) {
+		return labelOffsets[station + 1] - labelOffsets[station];
+	}
+
+	/**
+	 * Finds the fewest stops between two stations
+	 * @param start id of a station
+	 * @param end id of another station
+	 * @return number of stops between them, or -1 if the end cannot be reached
+	 */
+	public int stops(int start, int end) {
+		long meet = meet(start, end);
+		return meet == -1 ? -1 : (int) (meet >>> 32);
+	}
+
+	/**
+	 * Finds a path with the fewest stops between two stations, unpacking it through the hub both labels meet at
+	 * @param start id of the station to start from
+	 * @param end id of the station to reach
+	 * @param path buffer receiving the station ids along the path, including both ends
+	 * @return number of stations on the path, or -1 if the end cannot be reached.
+	 * 		If this is larger than the buffer nothing is written and the query can be repeated with a larger buffer
+	 */
+	public int findShortestPath(int start, int end, int[] path) {
+		long meet = meet(start, end);
+		if (meet == -1) {
+			return -1;
+		}
+		int rank = (int) meet;
+		int hub = hubs[rank];
+		int length = (int) (meet >>> 32) + 1;
+		if (length > path.length) {
+			return length;
+		}
+
+		// O(path length * log label size)
+		// Each station's entry for the hub names the next station towards it, from both ends
+		int i = 0;
+		for (int s = start; s != hub; s = labelNext[entry(s, rank)]) {
+			path[i++] = s;
+		}
+		path[i] = hub;
+		i = length - 1;
+		for (int s = end; s != hub; s = labelNext[entry(s, rank)]) {
+			path[i--] = s;
+		}
+		return length;
+	}
+
+	/*
+	 * Merges the labels of two stations, both sorted by hub rank.
+	 * @return the fewest stops in the high half and the rank of the hub they go through in the low half,
+	 * 		or -1 if the labels share no hub
+	 */
+	private long meet(int start, int end) {
+		int i = labelOffsets[start];
+		int iEnd = labelOffsets[start + 1];
+		int j = labelOffsets[end];
+		int jEnd = labelOffsets[end + 1];
+		int best = UNREACHED;
+		int rank = -1;
+
+		// O(label size)
+		while (i < iEnd && j < jEnd) {
+			int a = labelHubs[i];
+			int b = labelHubs[j];
+			if (a == b) {
+				int d = labelStops[i++] + labelStops[j++];
+				if (d < best) {
+					best = d;
+					rank = a;
+				}
+			} else if (a < b) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return rank == -1 ? -1 : (long) best << 32 | rank;
+	}
+
+	/*
+	 * Finds the entry of a hub in the label of a station, which must hold it.
+	 */
+	private int entry(int station, int rank) {
+		return Arrays.binarySearch(labelHubs, labelOffsets[station], labelOffsets[station + 1], rank);
+	}
+
+	/**
+	 * Writes the labels, replacing any previous file only once the new one is complete
+	 * @param file where to write the labels
+	 * @throws IOException if the labels cannot be written
+	 */
+	public void write(Path file) throws IOException {
+		Path partial = Files.createTempFile(file.toAbsolutePath().getParent(), "labels", ".tmp");
+		try {
+			CRC32 crc = new CRC32();
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+				channel.position(HEADER_SIZE);
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+						new GraphSnapshot.ChecksumStream(Channels.newOutputStream(channel), crc), 1 << 16))) {
+					out.writeInt(graph.stationCount());
+					GraphSnapshot.writeInts(out, hubs);
+					GraphSnapshot.writeInts(out, labelOffsets);
+					GraphSnapshot.writeInts(out, labelHubs);
+					GraphSnapshot.writeInts(out, labelStops);
+					GraphSnapshot.writeInts(out, labelNext);
+				}
+			}
+			try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(VERSION).putLong(fingerprint(graph)).putLong(crc.getValue());
+				header.flip();
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+			}
+			Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(partial);
+		}
+	}
+
+	/**
+	 * Maps a labels file and rebuilds the labels it holds
+	 * @param file the labels
+	 * @param graph the graph the labels should have been built over
+	 * @return the labels, or null if the file is missing, damaged, of another version or built over another graph
+	 * @throws IOException if the file exists but cannot be read
+	 */
+	public static HubLabels read(Path file, MetroGraph graph) throws IOException {
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				return null;
+			}
+			MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			map.order(ByteOrder.BIG_ENDIAN);
+			if (map.getInt() != MAGIC || map.getInt() != VERSION || map.getLong() != fingerprint(graph)) {
+				return null;
+			}
+			long checksum = map.getLong();
+			CRC32 crc = new CRC32();
+			crc.update(map.duplicate());
+			if (crc.getValue() != checksum || map.getInt() != graph.stationCount()) {
+				return null;
+			}
+			return new HubLabels(graph, GraphSnapshot.readInts(map), GraphSnapshot.readInts(map),
+					GraphSnapshot.readInts(map), GraphSnapshot.readInts(map), GraphSnapshot.readInts(map));
+		}
+	}
+
+	/*
+	 * Sums up the stations and adjacency of a graph, the only parts the labels depend on.
+	 */
+	static long fingerprint(MetroGraph graph) {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 12);
+		putInt(crc, buffer, graph.stationCount());
+		for (int s = 0; s < graph.stationCount(); s++) {
+			byte[] name = graph.stationName(s).getBytes(StandardCharsets.UTF_8);
+			putInt(crc, buffer, name.length);
+			buffer.flip();
+			crc.update(buffer);
+			buffer.clear();
+			crc.update(name);
+		}
+		for (int value : graph.offsets()) {
+			putInt(crc, buffer, value);
+		}
+		for (int value : graph.targets()) {
+			putInt(crc, buffer, value);
+		}
+		buffer.flip();
+		crc.update(buffer);
+		return crc.getValue();
+	}
+
+	/*
+	 * Adds an int to a checksum through a buffer, which is emptied into the checksum whenever it fills.
+	 */
+	private static void putInt(CRC32 crc, ByteBuffer buffer, int value) {
+		if (buffer.remaining() < 4) {
+			buffer.flip();
+			crc.update(buffer);
+			buffer.clear();
+		}
+		buffer.putInt(value);
+	}
+
+	/**
+	 * A label while it is being built
+	 */
+	private static final class Label {
+
+		private int[] hubs = new int[4];
+		private int[] stops = new int[4];
+		private int[] next = new int[4];
+		private int size;
+
+		private void add(int hub, int d, int towards) {
+			if (size == hubs.length) {
+				hubs = Arrays.copyOf(hubs, size * 2);
+				stops = Arrays.copyOf(stops, size * 2);
+				next = Arrays.copyOf(next, size * 2);
+			}
+			hubs[size] = hub;
+			stops[size] = d;
+			next[size] = towards;
+			size++;
+		}
+	}
+}
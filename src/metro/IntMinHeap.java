@@ -0,0 +1,141 @@
+package metro;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary min-heap of int nodes with int keys, for the weighted searches of this package.
+ * Each node is in the heap at most once, offering a node again only lowers its key, and nothing is
+ * boxed or allocated once the heap is sized.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+final class IntMinHeap {
+
+	//nodes in heap order
+	private int[] heap;
+	//key of each node in the heap
+	private int[] keys;
+	//position of each node in the heap, -1 when it is not in it
+	private int[] position;
+	//number of nodes in the heap
+	private int size;
+
+	/**
+	 * Constructs an empty heap for nodes below the specified capacity
+	 * @param capacity number of distinct nodes
+	 */
+	IntMinHeap(int capacity) {
+		heap = new int[capacity];
+		keys = new int[capacity];
+		position = new int[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * Makes room for nodes below the specified capacity
+	 * @param capacity number of distinct nodes
+	 */
+	void ensureCapacity(int capacity) {
+		if (position.length < capacity) {
+			int old = position.length;
+			heap = Arrays.copyOf(heap, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+			position = Arrays.copyOf(position, capacity);
+			Arrays.fill(position, old, capacity, -1);
+		}
+	}
+
+	/**
+	 * @return true if no node is in the heap
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Adds a node, or lowers its key if it is already in the heap with a larger one
+	 * @param node the node
+	 * @param key its key
+	 */
+	void offer(int node, int key) {
+		int i = position[node];
+		if (i == -1) {
+			i = size++;
+			heap[i] = node;
+			position[node] = i;
+		} else if (keys[node] <= key) {
+			return;
+		}
+		keys[node] = key;
+		siftUp(i);
+	}
+
+	/**
+	 * @return the key of the node with the smallest key, the heap must not be empty
+	 */
+	int peekKey() {
+		return keys[heap[0]];
+	}
+
+	/**
+	 * Removes the node with the smallest key, the heap must not be empty
+	 * @return the node
+	 */
+	int poll() {
+		int top = heap[0];
+		position[top] = -1;
+		if (--size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Removes every node, leaving the heap ready for the next search
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int i) {
+		int node = heap[i];
+		int key = keys[node];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (keys[heap[parent]] <= key) {
+				break;
+			}
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+
+	private void siftDown(int i) {
+		int node = heap[i];
+		int key = keys[node];
+		int half = size >>> 1;
+		while (i < half) {
+			int child = 2 * i + 1;
+			if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+				child++;
+			}
+			if (key <= keys[heap[child]]) {
+				break;
+			}
+			heap[i] = heap[child];
+			position[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = node;
+		position[node] = i;
+	}
+}
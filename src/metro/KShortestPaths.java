@@ -0,0 +1,449 @@
+package metro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A k shortest loopless paths engine over a {@link MetroGraph}, using Yen's algorithm, for offering
+ * several distinct alternatives between two stations. Paths are ranked either by their number of stops
+ * or by their riding time, the time of each segment being the quickest line running along it.
+ * Changes of line are not charged, so two paths calling at the same stations are one alternative.
+ * <p>
+ * Every spur search is pointed at the end by the exact distance to the end in the unrestricted graph,
+ * found once per query by a Dijkstra search from the end. A spur search stops at the first station
+ * whose tree path to the end avoids every station and segment banned for that spur, which is usually
+ * one of the first few it settles. Each accepted path only spurs from the station it branched off its
+ * parent at, the earlier spurs being shared with the parent (Lawler's refinement). Only as many
+ * candidates as paths are still wanted are kept, and once that many are known a spur search gives
+ * up as soon as it cannot beat the worst of them, so a spur cut off from the end by its root does
+ * not search the rest of the network.
+ * <p>
+ * Like {@link PathSearch} all search state is kept in a per-thread workspace stamped with epochs,
+ * so one engine can be shared by any number of threads.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class KShortestPaths {
+
+	//cheapest first, then fewest stations
+	private static final Comparator<RankedPath> ORDER = Comparator.comparingInt(RankedPath::cost)
+			.thenComparingInt(RankedPath::size);
+
+	private final MetroGraph graph;
+	//cost of each adjacency entry, aligned with the graph's targets, at least 1
+	private final int[] weights;
+	//scratch state of each querying thread
+	private final ThreadLocal<Workspace> workspaces;
+
+	/**
+	 * Constructs a new {@link KShortestPaths} ranking paths by their number of stops
+	 * @param graph the network to search
+	 */
+	public KShortestPaths(MetroGraph graph) {
+		this.graph = graph;
+		this.weights = new int[graph.targets().length];
+		Arrays.fill(weights, 1);
+		this.workspaces = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	/**
+	 * Constructs a new {@link KShortestPaths} ranking paths by their riding time
+	 * @param graph the network to search
+	 * @param times the travel times of the network, a segment run by several lines takes the quickest
+	 */
+	public KShortestPaths(MetroGraph graph, TravelTimes times) {
+		this.graph = graph;
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] lineOffsets = graph.lineOffsets();
+		int[] lineStations = graph.lineStations();
+		boolean[] segments = graph.segments();
+		weights = new int[targets.length];
+		Arrays.fill(weights, Integer.MAX_VALUE);
+
+		// O(n)
+		// Every adjacency comes from a segment of some line
+		for (int line = 0; line < graph.lineCount(); line++) {
+			String name = graph.lineName(line);
+			for (int m = lineOffsets[line]; m + 1 < lineOffsets[line + 1]; m++) {
+				if (!segments[m]) {
+					continue;
+				}
+				int a = lineStations[m];
+				int b = lineStations[m + 1];
+				// A segment taking no time would let a path loop back on itself at no cost
+				int seconds = Math.max(1, times.segmentSeconds(name, graph.stationName(a), graph.stationName(b)));
+				for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+					if (targets[e] == b) {
+						weights[e] = Math.min(weights[e], seconds);
+					}
+				}
+				for (int e = offsets[b]; e < offsets[b + 1]; e++) {
+					if (targets[e] == a) {
+						weights[e] = Math.min(weights[e], seconds);
+					}
+				}
+			}
+		}
+		this.workspaces = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	/**
+	 * Method to get the graph being searched
+	 * @return the {@link MetroGraph}
+	 */
+	public MetroGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return number of stations the calling thread's last query settled, in its tree and spur searches
+	 */
+	public int lastExpanded() {
+		return workspaces.get().expanded;
+	}
+
+	/**
+	 * Finds up to k loopless paths between two stations, cheapest first. No station appears twice on a path
+	 * and no two paths call at the same stations in the same order
+	 * @param start id of the station to start from
+	 * @param end id of the station to reach
+	 * @param k most paths wanted
+	 * @return the paths, fewer than k when there are no more, empty if the end cannot be reached
+	 */
+	public List<RankedPath> findPaths(int start, int end, int k) {
+		List<RankedPath> found = new ArrayList<>(Math.max(0, Math.min(k, 16)));
+		if (k <= 0) {
+			return found;
+		}
+		Workspace ws = workspaces.get();
+		ws.begin(graph.stationCount());
+		ws.expanded = 0;
+		growTree(ws, end);
+		if (ws.treeReached[start] != ws.query) {
+			return found;
+		}
+
+		found.add(treePath(ws, start));
+		//best candidates in order, never more than the paths still wanted
+		List<RankedPath> candidates = new ArrayList<>();
+		Set<RankedPath> known = new HashSet<>();
+		known.add(found.get(0));
+
+		// O(k * n)
+		// Each accepted path spurs once from every station past where it branched off
+		while (found.size() < k) {
+			RankedPath previous = found.get(found.size() - 1);
+			int wanted = k - found.size();
+			for (int i = previous.deviation; i < previous.size() - 1; i++) {
+				// A candidate costing as much as the worst kept one could never be taken before it
+				int limit = candidates.size() == wanted ? candidates.get(wanted - 1).cost() : Integer.MAX_VALUE;
+				RankedPath spurred = spur(ws, found, previous, i, end, limit);
+				if (spurred != null && known.add(spurred)) {
+					int at = Collections.binarySearch(candidates, spurred, ORDER);
+					candidates.add(at < 0 ? -at - 1 : at, spurred);
+					if (candidates.size() > wanted) {
+						candidates.remove(wanted);
+					}
+				}
+			}
+			if (candidates.isEmpty()) {
+				break;
+			}
+			found.add(candidates.remove(0));
+		}
+		return found;
+	}
+
+	/*
+	 * Finds the distance to the end, and the next station towards it, of every station with a Dijkstra
+	 * search from the end. Segments take the same time either way.
+	 */
+	private void growTree(Workspace ws, int end) {
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] reached = ws.treeReached;
+		int[] toEnd = ws.toEnd;
+		int[] next = ws.next;
+		int query = ws.query;
+		IntMinHeap heap = ws.heap;
+
+		heap.clear();
+		reached[end] = query;
+		toEnd[end] = 0;
+		next[end] = -1;
+		heap.offer(end, 0);
+		while (!heap.isEmpty()) {
+			int current = heap.poll();
+			ws.expanded++;
+			for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+				int other = targets[e];
+				int distance = toEnd[current] + weights[e];
+				if (reached[other] != query || distance < toEnd[other]) {
+					reached[other] = query;
+					toEnd[other] = distance;
+					next[other] = current;
+					heap.offer(other, distance);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Follows the tree from a station to the end, the shortest path when nothing is banned.
+	 */
+	private RankedPath treePath(Workspace ws, int start) {
+		int length = 1;
+		for (int s = start; ws.next[s] != -1; s = ws.next[s]) {
+			length++;
+		}
+		int[] stations = new int[length];
+		int[] costs = new int[length];
+		int i = 0;
+		for (int s = start; s != -1; s = ws.next[s]) {
+			stations[i] = s;
+			costs[i++] = ws.toEnd[start] - ws.toEnd[s];
+		}
+		return new RankedPath(stations, costs, 0);
+	}
+
+	/*
+	 * Finds the cheapest path that follows the previous path to its i-th station, then leaves it by a
+	 * segment no accepted path with the same root took, without calling at any station of the root again.
+	 * An A* search from the spur station, guided by the tree, stops at the first station it settles whose
+	 * tree path is open: that station's estimate is exact and no smaller one is left.
+	 * @param limit	cost the whole path must stay below
+	 * @return the path, or null if every way on is banned or too costly
+	 */
+	private RankedPath spur(Workspace ws, List<RankedPath> found, RankedPath previous, int i, int end, int limit) {
+		int meet = search(ws, found, previous, i, end, limit);
+		if (meet == -1) {
+			return null;
+		}
+
+		// The root, then the search's path to the meeting station, then the tree on to the end
+		int[] parent = ws.parent;
+		int[] cost = ws.cost;
+		int[] toEnd = ws.toEnd;
+		int searched = 0;
+		for (int s = meet; s != -1; s = parent[s]) {
+			searched++;
+		}
+		int tree = 0;
+		for (int s = ws.next[meet]; s != -1; s = ws.next[s]) {
+			tree++;
+		}
+		int length = i + searched + tree;
+		int[] stations = Arrays.copyOf(previous.stations, length);
+		int[] costs = Arrays.copyOf(previous.costs, length);
+		int base = previous.costs[i];
+		int k = i + searched - 1;
+		for (int s = meet; s != -1; s = parent[s]) {
+			stations[k] = s;
+			costs[k--] = base + cost[s];
+		}
+		k = i + searched;
+		for (int s = ws.next[meet]; s != -1; s = ws.next[s]) {
+			stations[k] = s;
+			costs[k++] = base + cost[meet] + toEnd[meet] - toEnd[s];
+		}
+		return new RankedPath(stations, costs, i);
+	}
+
+	/*
+	 * Runs the A* search of one spur.
+	 * @return the station the search meets an open tree path at, -1 if there is none within the limit
+	 */
+	private int search(Workspace ws, List<RankedPath> found, RankedPath previous, int i, int end, int limit) {
+		int stamp = ws.nextSearch();
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] blocked = ws.blocked;
+		int[] banned = ws.banned;
+		int[] seen = ws.seen;
+		int[] cost = ws.cost;
+		int[] parent = ws.parent;
+		int[] toEnd = ws.toEnd;
+		int[] treeReached = ws.treeReached;
+		int query = ws.query;
+		IntMinHeap heap = ws.heap;
+
+		int spur = previous.stations[i];
+		for (int j = 0; j < i; j++) {
+			blocked[previous.stations[j]] = stamp;
+		}
+		for (RankedPath path : found) {
+			if (path.size() > i + 1 && sharesRoot(path, previous, i)) {
+				banned[path.stations[i + 1]] = stamp;
+			}
+		}
+
+		heap.clear();
+		seen[spur] = stamp;
+		cost[spur] = 0;
+		parent[spur] = -1;
+		heap.offer(spur, toEnd[spur]);
+		int budget = limit - previous.costs[i];
+		while (!heap.isEmpty() && heap.peekKey() < budget) {
+			int current = heap.poll();
+			ws.expanded++;
+			if (treeOpen(ws, current, spur, end, stamp)) {
+				return current;
+			}
+			for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+				int other = targets[e];
+				if (treeReached[other] != query || blocked[other] == stamp
+						|| (current == spur && banned[other] == stamp)) {
+					continue;
+				}
+				int c = cost[current] + weights[e];
+				if (seen[other] != stamp || c < cost[other]) {
+					seen[other] = stamp;
+					cost[other] = c;
+					parent[other] = current;
+					heap.offer(other, c + toEnd[other]);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Tells whether two paths call at the same stations up to and including the i-th.
+	 */
+	private static boolean sharesRoot(RankedPath path, RankedPath previous, int i) {
+		for (int j = i; j >= 0; j--) {
+			if (path.stations[j] != previous.stations[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Tells whether the tree path from a station to the end is open for the current spur search: it
+	 * calls at no blocked station nor at the spur station again, and the spur station's own tree path
+	 * does not leave by a banned segment. Answers are remembered for the rest of the search, so each
+	 * station's tree path is walked once.
+	 */
+	private boolean treeOpen(Workspace ws, int station, int spur, int end, int stamp) {
+		int[] next = ws.next;
+		if (station == spur) {
+			if (spur == end) {
+				return true;
+			}
+			if (ws.banned[next[spur]] == stamp) {
+				return false;
+			}
+			station = next[spur];
+		}
+		int[] checked = ws.checked;
+		int[] open = ws.open;
+		int[] walk = ws.walk;
+		int walked = 0;
+		boolean result;
+		int s = station;
+		while (true) {
+			if (checked[s] == stamp) {
+				result = open[s] == stamp;
+				break;
+			}
+			walk[walked++] = s;
+			if (ws.blocked[s] == stamp || s == spur) {
+				result = false;
+				break;
+			}
+			if (s == end) {
+				result = true;
+				break;
+			}
+			s = next[s];
+		}
+		for (int j = 0; j < walked; j++) {
+			checked[walk[j]] = stamp;
+			if (result) {
+				open[walk[j]] = stamp;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Scratch state of one thread, reused by every query the thread runs
+	 */
+	private static final class Workspace {
+
+		//epoch stamp of each station reached by the tree of the query in progress
+		private int[] treeReached = new int[0];
+		//distance of each station to the end, and the next station towards it
+		private int[] toEnd = new int[0];
+		private int[] next = new int[0];
+		//epoch stamps of the spur search in progress: stations it may not call at,
+		//stations the spur station may not go on to, stations it has reached
+		private int[] blocked = new int[0];
+		private int[] banned = new int[0];
+		private int[] seen = new int[0];
+		//cost from the spur station of each reached station, and the station it was reached from
+		private int[] cost = new int[0];
+		private int[] parent = new int[0];
+		//epoch stamps of the stations whose tree path has been walked, and of those found open
+		private int[] checked = new int[0];
+		private int[] open = new int[0];
+		//stations of the tree path being walked
+		private int[] walk = new int[0];
+		private IntMinHeap heap = new IntMinHeap(0);
+		//stations settled by the last query
+		private int expanded;
+		//stamps of the query and of the spur search in progress
+		private int query;
+		private int searchStamp;
+
+		/**
+		 * Prepares the workspace for a new query
+		 * @param stations number of stations in the graph
+		 */
+		private void begin(int stations) {
+			if (treeReached.length < stations) {
+				treeReached = Arrays.copyOf(treeReached, stations);
+				blocked = Arrays.copyOf(blocked, stations);
+				banned = Arrays.copyOf(banned, stations);
+				seen = Arrays.copyOf(seen, stations);
+				checked = Arrays.copyOf(checked, stations);
+				open = Arrays.copyOf(open, stations);
+				toEnd = new int[stations];
+				next = new int[stations];
+				cost = new int[stations];
+				parent = new int[stations];
+				walk = new int[stations];
+				heap.ensureCapacity(stations);
+			}
+			// Wrapping around would make stale stamps look current, so start again from clean arrays
+			if (++query == 0) {
+				Arrays.fill(treeReached, 0);
+				query = 1;
+			}
+		}
+
+		/**
+		 * Prepares the workspace for a new spur search
+		 * @return the stamp marking stations of this search
+		 */
+		private int nextSearch() {
+			if (++searchStamp == 0) {
+				Arrays.fill(blocked, 0);
+				Arrays.fill(banned, 0);
+				Arrays.fill(seen, 0);
+				Arrays.fill(checked, 0);
+				Arrays.fill(open, 0);
+				searchStamp = 1;
+			}
+			return searchStamp;
+		}
+	}
+}
@@ -0,0 +1,397 @@
+package metro;
+
+import java.util.Arrays;
+
+/**
+ * The network seen line by line: one node for every line, and an edge between two lines for every
+ * pair that shares at least one station, labelled with the interchange stations they share.
+ * <p>
+ * The graph is built once from a {@link MetroGraph} into flat arrays. Each line's neighbours keep the
+ * order of {@link MetroGraph#connection(int, int)}, and the interchanges of each edge are kept in the
+ * order they appear along the line, so looking up which lines connect costs nothing beyond reading.
+ * <p>
+ * It answers fewest-transfers queries by a breadth first search over the lines, which is far smaller
+ * than the station graph, and only then expands the stations along the lines it chose. Like
+ * {@link PathSearch}, search state is kept in a per-thread workspace stamped with the query's epoch.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class LineGraph {
+
+	private final MetroGraph graph;
+	//neighbouring lines of each line
+	private final int[] offsets;
+	private final int[] targets;
+	//interchange stations of each edge, indexed like targets
+	private final int[] interchangeOffsets;
+	private final int[] interchanges;
+	//scratch state of each querying thread
+	private final ThreadLocal<Workspace> workspaces;
+
+	/**
+	 * Constructs the {@link LineGraph} of a network
+	 * @param graph the network
+	 */
+	public LineGraph(MetroGraph graph) {
+		this.graph = graph;
+		int lines = graph.lineCount();
+		int[] lineOffsets = graph.lineOffsets();
+		int[] lineStations = graph.lineStations();
+		int[] stationLineOffsets = graph.stationLineOffsets();
+		int[] stationLines = graph.stationLines();
+
+		// First pass counts the edges of each line and the interchanges of each edge
+		int[] edgeOf = new int[lines];
+		int[] stamp = new int[lines];
+		int[] order = new int[lines];
+		int[] counts = new int[lines];
+		offsets = new int[lines + 1];
+		int totalInterchanges = 0;
+		for (int line = 0; line < lines; line++) {
+			int degree = neighbours(line, line + 1, edgeOf, stamp, order, counts);
+			offsets[line + 1] = offsets[line] + degree;
+			for (int k = 0; k < degree; k++) {
+				totalInterchanges += counts[k];
+			}
+		}
+
+		// Second pass fills them in
+		targets = new int[offsets[lines]];
+		interchangeOffsets = new int[offsets[lines] + 1];
+		interchanges = new int[totalInterchanges];
+		for (int line = 0; line < lines; line++) {
+			int degree = neighbours(line, lines + line + 1, edgeOf, stamp, order, counts);
+			int base = offsets[line];
+			for (int k = 0; k < degree; k++) {
+				targets[base + k] = order[k];
+				interchangeOffsets[base + k + 1] = interchangeOffsets[base + k] + counts[k];
+			}
+			int[] fill = new int[degree];
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+				int station = lineStations[m];
+				if (!firstOnLine(station, line, m - lineOffsets[line])) {
+					continue;
+				}
+				for (int j = stationLineOffsets[station]; j < stationLineOffsets[station + 1]; j++) {
+					int other = stationLines[j];
+					if (other != line) {
+						int k = edgeOf[other];
+						interchanges[interchangeOffsets[base + k] + fill[k]++] = station;
+					}
+				}
+			}
+		}
+
+		workspaces = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	/*
+	 * Finds the neighbouring lines of a line, in the order of the graph's connections followed by any
+	 * line sharing a station that the connections missed, and counts the interchanges with each.
+	 * @param mark	stamp of this call, different from every earlier call's
+	 * @return number of neighbouring lines
+	 */
+	private int neighbours(int line, int mark, int[] edgeOf, int[] stamp, int[] order, int[] counts) {
+		int[] lineOffsets = graph.lineOffsets();
+		int[] lineStations = graph.lineStations();
+		int[] stationLineOffsets = graph.stationLineOffsets();
+		int[] stationLines = graph.stationLines();
+		int degree = 0;
+		for (int k = 0; k < graph.connectionCount(line); k++) {
+			int other = graph.connection(line, k);
+			if (other != line && stamp[other] != mark) {
+				stamp[other] = mark;
+				edgeOf[other] = degree;
+				order[degree] = other;
+				counts[degree++] = 0;
+			}
+		}
+		for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+			int station = lineStations[m];
+			if (!firstOnLine(station, line, m - lineOffsets[line])) {
+				continue;
+			}
+			for (int j = stationLineOffsets[station]; j < stationLineOffsets[station + 1]; j++) {
+				int other = stationLines[j];
+				if (other == line) {
+					continue;
+				}
+				if (stamp[other] != mark) {
+					stamp[other] = mark;
+					edgeOf[other] = degree;
+					order[degree] = other;
+					counts[degree++] = 0;
+				}
+				counts[edgeOf[other]]++;
+			}
+		}
+		// Connections sharing no station are dropped by moving the shared ones to the front
+		int kept = 0;
+		for (int k = 0; k < degree; k++) {
+			if (counts[k] > 0) {
+				order[kept] = order[k];
+				counts[kept] = counts[k];
+				edgeOf[order[kept]] = kept;
+				kept++;
+			}
+		}
+		return kept;
+	}
+
+	/*
+	 * @return true if the specified position is where the station first appears on the line
+	 */
+	private boolean firstOnLine(int station, int line, int position) {
+		return graph.linePosition(line, station) == position;
+	}
+
+	/**
+	 * Method to get the network the lines belong to
+	 * @return the {@link MetroGraph}
+	 */
+	public MetroGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @param line id of a line
+	 * @return number of lines sharing a station with it
+	 */
+	public int degree(int line) {
+		return offsets[line + 1] - offsets[line];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param k index below {@link #degree(int)}
+	 * @return id of the k-th line sharing a station with it
+	 */
+	public int neighbour(int line, int k) {
+		return targets[offsets[line] + k];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param k index below {@link #degree(int)}
+	 * @return number of stations shared with the k-th neighbouring line
+	 */
+	public int interchangeCount(int line, int k) {
+		int edge = offsets[line] + k;
+		return interchangeOffsets[edge + 1] - interchangeOffsets[edge];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param k index below {@link #degree(int)}
+	 * @param i index below {@link #interchangeCount(int, int)}
+	 * @return id of the i-th station shared with the k-th neighbouring line, in order along the line
+	 */
+	public int interchange(int line, int k, int i) {
+		return interchanges[interchangeOffsets[offsets[line] + k] + i];
+	}
+
+	/**
+	 * @param lineA id of a line
+	 * @param lineB id of another line
+	 * @return index of lineB among the neighbours of lineA, or -1 if they share no station
+	 */
+	public int edge(int lineA, int lineB) {
+		for (int k = 0; k < degree(lineA); k++) {
+			if (targets[offsets[lineA] + k] == lineB) {
+				return k;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param station id of a station
+	 * @return position of the station's first appearance on the line, or -1 if it is not on it
+	 */
+	public int position(int line, int station) {
+		return graph.linePosition(line, station);
+	}
+
+	/**
+	 * @return number of lines the calling thread's last query took off its queue
+	 */
+	public int lastExpanded() {
+		return workspaces.get().expanded;
+	}
+
+	/**
+	 * Finds the lines to ride from one line to another with the fewest changes
+	 * @param fromLine id of the line to start on
+	 * @param toLine id of the line to reach
+	 * @return ids of the lines in riding order, both ends included, or null if there is no way
+	 */
+	public int[] findLineRoute(int fromLine, int toLine) {
+		Workspace ws = workspaces.get();
+		int epoch = ws.begin(graph.lineCount());
+		ws.seed(epoch, fromLine);
+		int last = search(ws, epoch, toLine, -1);
+		return last == -1 ? null : ws.lines(last);
+	}
+
+	/**
+	 * Finds a route between two stations with the fewest changes of line. The lines are chosen over
+	 * the line graph, then each change is made at the interchange nearest along the line being ridden
+	 * @param start id of the station to start from
+	 * @param end id of the station to reach
+	 * @return the route, or null if the end cannot be reached, or a line chosen does not join the stations
+	 *         it is ridden between
+	 */
+	public TransferRoute findFewestTransfers(int start, int end) {
+		Workspace ws = workspaces.get();
+		int epoch = ws.begin(graph.lineCount());
+		for (int k = 0; k < graph.stationLineCount(start); k++) {
+			ws.seed(epoch, graph.stationLine(start, k));
+		}
+		int last = search(ws, epoch, -1, end);
+		if (last == -1) {
+			return null;
+		}
+		return expand(start, end, ws.lines(last));
+	}
+
+	/*
+	 * Breadth first search over the lines from the seeded ones, until a line is the target line or
+	 * passes through the target station.
+	 * @return id of the line reached, or -1 if none was
+	 */
+	private int search(Workspace ws, int epoch, int toLine, int toStation) {
+		int[] queue = ws.queue;
+		int head = 0;
+		while (head < ws.tail) {
+			int line = queue[head++];
+			ws.expanded++;
+			if (line == toLine || (toStation != -1 && position(line, toStation) != -1)) {
+				return line;
+			}
+			for (int e = offsets[line]; e < offsets[line + 1]; e++) {
+				int next = targets[e];
+				if (ws.reached[next] != epoch) {
+					ws.reached[next] = epoch;
+					ws.parent[next] = line;
+					queue[ws.tail++] = next;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Rides each line from where the route boarded it to the interchange with the next line nearest
+	 * along it, and the last line on to the end. Stops along a line are counted through its junctions
+	 * and either way round a loop, and an interchange the line does not join to the boarding point is not used.
+	 * @return the route, or null if a line does not join the boarding point to any interchange or to the end
+	 */
+	private TransferRoute expand(int start, int end, int[] lines) {
+		int[] legEnds = new int[lines.length];
+		int size = 1;
+		int from = start;
+		for (int leg = 0; leg < lines.length; leg++) {
+			int line = lines[leg];
+			int to = end;
+			int best;
+			if (leg + 1 < lines.length) {
+				// The interchange nearest to the boarding point along this line
+				int k = edge(line, lines[leg + 1]);
+				to = -1;
+				best = Integer.MAX_VALUE;
+				for (int i = 0; i < interchangeCount(line, k); i++) {
+					int candidate = interchange(line, k, i);
+					int distance = graph.stopsAlong(line, from, candidate);
+					if (distance != -1 && distance < best) {
+						best = distance;
+						to = candidate;
+					}
+				}
+			} else {
+				best = graph.stopsAlong(line, from, end);
+			}
+			if (to == -1 || best == -1) {
+				return null;
+			}
+			legEnds[leg] = to;
+			size += best;
+			from = to;
+		}
+
+		int[] stations = new int[size];
+		int[] ridden = new int[size];
+		stations[0] = start;
+		ridden[0] = lines[0];
+		int n = 1;
+		from = start;
+		for (int leg = 0; leg < lines.length; leg++) {
+			int line = lines[leg];
+			int[] ride = graph.lineSegment(line, from, legEnds[leg]);
+			for (int i = 1; i < ride.length; i++) {
+				stations[n] = ride[i];
+				ridden[n++] = line;
+			}
+			from = legEnds[leg];
+		}
+		return new TransferRoute(stations, ridden, lines);
+	}
+
+	/**
+	 * Scratch state of one thread, reused by every query the thread runs
+	 */
+	private static final class Workspace {
+
+		//epoch stamp of each line, equal to the current epoch once reached
+		private int[] reached = new int[0];
+		//line each line was reached from, -1 for a seed
+		private int[] parent = new int[0];
+		//lines in the order they were reached
+		private int[] queue = new int[0];
+		//end of the queue
+		private int tail;
+		//lines taken off the queue by the last query
+		private int expanded;
+		//stamp of the query in progress
+		private int epoch;
+
+		private int begin(int lines) {
+			if (reached.length < lines) {
+				reached = Arrays.copyOf(reached, lines);
+				parent = new int[lines];
+				queue = new int[lines];
+			}
+			tail = 0;
+			expanded = 0;
+			if (++epoch == 0) {
+				Arrays.fill(reached, 0);
+				epoch = 1;
+			}
+			return epoch;
+		}
+
+		private void seed(int epoch, int line) {
+			if (reached[line] != epoch) {
+				reached[line] = epoch;
+				parent[line] = -1;
+				queue[tail++] = line;
+			}
+		}
+
+		/**
+		 * @return the lines walked back from the specified one to its seed, in riding order
+		 */
+		private int[] lines(int last) {
+			int count = 0;
+			for (int line = last; line != -1; line = parent[line]) {
+				count++;
+			}
+			int[] lines = new int[count];
+			for (int line = last; line != -1; line = parent[line]) {
+				lines[--count] = line;
+			}
+			return lines;
+		}
+	}
+}
@@ -0,0 +1,751 @@
+package metro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An immutable, integer indexed snapshot of a {@link MetroSystem} in compressed sparse row form.
+ * Station and line names are interned to dense int ids once, after which every topology query is
+ * a walk over primitive arrays: the neighbours of station {@code s} are
+ * {@code targets[offsets[s]] .. targets[offsets[s + 1] - 1]}, and the lines, line stations and
+ * connected lines are stored the same way.
+ * Station ids are the {@link MetroStation#getIndex()} of the system the graph was built from.
+ * <p>
+ * The stations of a line with branches list each branch after the line, from its junction, so the
+ * stations at two neighbouring positions are only consecutive stops when no branch starts between them.
+ * Riding a line with branches or a loop is searched for over the line's own segments.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class MetroGraph {
+
+	//station name of each station id
+	private final String[] stationNames;
+	//open addressing table of station ids by name hash, -1 for an empty slot
+	private final int[] stationSlots;
+	//adjacent stations of each station, without duplicates
+	private final int[] offsets;
+	private final int[] targets;
+
+	//line name of each line id
+	private final String[] lineNames;
+	//open addressing table of line ids by name hash, -1 for an empty slot
+	private final int[] lineSlots;
+	//stations of each line in their order along the line
+	private final int[] lineOffsets;
+	private final int[] lineStations;
+	//lines of each station
+	private final int[] stationLineOffsets;
+	private final int[] stationLines;
+	//position on the line of each station line pair, indexed like stationLines
+	private final int[] linePositions;
+	//lines sharing at least one station with each line, the line itself excluded, in the order of the first shared station
+	private final int[] connectionOffsets;
+	private final int[] connections;
+	//position on the line of the first station of each branch of each line
+	private final int[] branchOffsets;
+	private final int[] branchStarts;
+	//true where a line station and the next line station are consecutive stops, indexed like lineStations
+	private final boolean[] segments;
+	//true for each line without branches calling once at each station, so positions count stops
+	private final boolean[] straight;
+	//termini of each line, the stations ending only one of its segments
+	private final int[] terminusOffsets;
+	private final int[] termini;
+
+	/**
+	 * Constructs a new {@link MetroGraph} from the current state of a system.
+	 * Later changes to the system are not seen by the graph
+	 * @param system the network to take a snapshot of
+	 */
+	public MetroGraph(MetroSystem system) {
+		this(system, null);
+	}
+
+	/**
+	 * Constructs a new {@link MetroGraph} from the current state of a system, taking its names from a pool.
+	 * Later changes to the system are not seen by the graph
+	 * @param system the network to take a snapshot of
+	 * @param names the pool shared with the other networks loaded, or null to keep the names of the system
+	 */
+	public MetroGraph(MetroSystem system, NamePool names) {
+		int stationCount = system.stationCount();
+		stationNames = new String[stationCount];
+		offsets = new int[stationCount + 1];
+
+		// O(n)
+		// First pass sizes the adjacency, second pass fills it skipping repeated neighbours
+		int[] seen = new int[stationCount];
+		Arrays.fill(seen, -1);
+		int edges = 0;
+		for (int s = 0; s < stationCount; s++) {
+			MetroStation station = system.getStation(s);
+			stationNames[s] = station.toString();
+			for (MetroStation next : station.getConnectingStations()) {
+				if (seen[next.getIndex()] != s) {
+					seen[next.getIndex()] = s;
+					edges++;
+				}
+			}
+		}
+		Arrays.fill(seen, -1);
+		targets = new int[edges];
+		int edge = 0;
+		for (int s = 0; s < stationCount; s++) {
+			offsets[s] = edge;
+			for (MetroStation next : system.getStation(s).getConnectingStations()) {
+				if (seen[next.getIndex()] != s) {
+					seen[next.getIndex()] = s;
+					targets[edge++] = next.getIndex();
+				}
+			}
+		}
+		offsets[stationCount] = edge;
+
+		// Lines keep the iteration order of the system's line map
+		int lineCount = system.getLines().size();
+		lineNames = new String[lineCount];
+		lineOffsets = new int[lineCount + 1];
+		int memberships = 0;
+		for (MetroLine line : system.getLines().values()) {
+			memberships += line.getSize();
+		}
+		lineStations = new int[memberships];
+		int[] linesPerStation = new int[stationCount];
+		Arrays.fill(seen, -1);
+		int l = 0;
+		int position = 0;
+		int branchCount = 0;
+		for (MetroLine line : system.getLines().values()) {
+			branchCount += Math.max(0, line.getRunCount() - 1);
+		}
+		branchOffsets = new int[lineCount + 1];
+		branchStarts = new int[branchCount];
+		for (MetroLine line : system.getLines().values()) {
+			lineNames[l] = line.toString();
+			lineOffsets[l] = position;
+			branchOffsets[l + 1] = branchOffsets[l];
+			for (int run = 1; run < line.getRunCount(); run++) {
+				branchStarts[branchOffsets[l + 1]++] = line.getRunStart(run);
+			}
+			Iterator<MetroStation> stationItr = line.iterator();
+			while (stationItr.hasNext()) {
+				int s = stationItr.next().getIndex();
+				lineStations[position++] = s;
+				// A line passing a station twice is counted once
+				if (seen[s] != l) {
+					seen[s] = l;
+					linesPerStation[s]++;
+				}
+			}
+			l++;
+		}
+		lineOffsets[lineCount] = position;
+
+		stationLineOffsets = new int[stationCount + 1];
+		for (int s = 0; s < stationCount; s++) {
+			stationLineOffsets[s + 1] = stationLineOffsets[s] + linesPerStation[s];
+		}
+		stationLines = new int[stationLineOffsets[stationCount]];
+		int[] fill = Arrays.copyOf(stationLineOffsets, stationCount);
+		for (int line = 0; line < lineCount; line++) {
+			for (int i = lineOffsets[line]; i < lineOffsets[line + 1]; i++) {
+				int s = lineStations[i];
+				if (fill[s] == stationLineOffsets[s] || stationLines[fill[s] - 1] != line) {
+					stationLines[fill[s]++] = line;
+				}
+			}
+		}
+
+		// Two lines are connected when they share a station
+		connectionOffsets = new int[lineCount + 1];
+		List<Integer> connected = new ArrayList<>();
+		int[] mark = new int[lineCount];
+		Arrays.fill(mark, -1);
+		for (int line = 0; line < lineCount; line++) {
+			connectionOffsets[line] = connected.size();
+			mark[line] = line;
+			for (int i = lineOffsets[line]; i < lineOffsets[line + 1]; i++) {
+				int s = lineStations[i];
+				for (int j = stationLineOffsets[s]; j < stationLineOffsets[s + 1]; j++) {
+					int other = stationLines[j];
+					if (mark[other] != line) {
+						mark[other] = line;
+						connected.add(other);
+					}
+				}
+			}
+		}
+		connectionOffsets[lineCount] = connected.size();
+		connections = new int[connected.size()];
+		for (int i = 0; i < connections.length; i++) {
+			connections[i] = connected.get(i);
+		}
+
+		if (names != null) {
+			names.intern(stationNames);
+			names.intern(lineNames);
+		}
+		stationSlots = slots(stationNames);
+		lineSlots = slots(lineNames);
+		linePositions = linePositions(lineOffsets, lineStations, stationLineOffsets, stationLines);
+		segments = segments(lineOffsets, branchOffsets, branchStarts);
+		straight = straight(stationCount, lineOffsets, lineStations, branchOffsets);
+		terminusOffsets = new int[lineCount + 1];
+		termini = termini(stationCount, lineOffsets, lineStations, segments, terminusOffsets);
+	}
+
+	/**
+	 * Constructs a {@link MetroGraph} from arrays previously taken from another graph, as done by {@link GraphSnapshot}
+	 */
+	MetroGraph(String[] stationNames, int[] stationSlots, int[] offsets, int[] targets,
+			String[] lineNames, int[] lineSlots, int[] lineOffsets, int[] lineStations,
+			int[] stationLineOffsets, int[] stationLines, int[] connectionOffsets, int[] connections,
+			int[] branchOffsets, int[] branchStarts) {
+		this.stationNames = stationNames;
+		this.stationSlots = stationSlots;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.lineNames = lineNames;
+		this.lineSlots = lineSlots;
+		this.lineOffsets = lineOffsets;
+		this.lineStations = lineStations;
+		this.stationLineOffsets = stationLineOffsets;
+		this.stationLines = stationLines;
+		this.connectionOffsets = connectionOffsets;
+		this.connections = connections;
+		this.branchOffsets = branchOffsets;
+		this.branchStarts = branchStarts;
+		this.linePositions = linePositions(lineOffsets, lineStations, stationLineOffsets, stationLines);
+		this.segments = segments(lineOffsets, branchOffsets, branchStarts);
+		this.straight = straight(stationNames.length, lineOffsets, lineStations, branchOffsets);
+		this.terminusOffsets = new int[lineNames.length + 1];
+		this.termini = termini(stationNames.length, lineOffsets, lineStations, segments, terminusOffsets);
+	}
+
+	/*
+	 * Marks the line stations followed by the next stop of their line, every one but the last of the line
+	 * and those before a branch.
+	 */
+	private static boolean[] segments(int[] lineOffsets, int[] branchOffsets, int[] branchStarts) {
+		int memberships = lineOffsets[lineOffsets.length - 1];
+		boolean[] segments = new boolean[memberships];
+		for (int line = 0; line + 1 < lineOffsets.length; line++) {
+			Arrays.fill(segments, lineOffsets[line], Math.max(lineOffsets[line], lineOffsets[line + 1] - 1), true);
+			for (int b = branchOffsets[line]; b < branchOffsets[line + 1]; b++) {
+				segments[lineOffsets[line] + branchStarts[b] - 1] = false;
+			}
+		}
+		return segments;
+	}
+
+	/*
+	 * Marks the lines without branches calling once at each station. A station met again is a loop or a
+	 * line doubling back.
+	 */
+	private static boolean[] straight(int stationCount, int[] lineOffsets, int[] lineStations, int[] branchOffsets) {
+		// O(n)
+		// The stations seen are reset after each line
+		boolean[] straight = new boolean[lineOffsets.length - 1];
+		boolean[] seen = new boolean[stationCount];
+		for (int line = 0; line < straight.length; line++) {
+			straight[line] = branchOffsets[line + 1] == branchOffsets[line];
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1] && straight[line]; m++) {
+				straight[line] = !seen[lineStations[m]];
+				seen[lineStations[m]] = true;
+			}
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+				seen[lineStations[m]] = false;
+			}
+		}
+		return straight;
+	}
+
+	/*
+	 * Finds the termini of every line, the stations ending only one of its segments, in the order they
+	 * first appear on it. A loop has none, a line of one station ends at it.
+	 * @param terminusOffsets filled with where the termini of each line start
+	 */
+	private static int[] termini(int stationCount, int[] lineOffsets, int[] lineStations, boolean[] segments,
+			int[] terminusOffsets) {
+		// O(n)
+		// Segment ends are counted per station, resetting only the stations of each line
+		int[] ends = new int[stationCount];
+		boolean[] listed = new boolean[stationCount];
+		int[] found = new int[lineOffsets[lineOffsets.length - 1]];
+		int count = 0;
+		for (int line = 0; line + 1 < lineOffsets.length; line++) {
+			terminusOffsets[line] = count;
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+				if (segments[m] && lineStations[m] != lineStations[m + 1]) {
+					ends[lineStations[m]]++;
+					ends[lineStations[m + 1]]++;
+				}
+			}
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+				int s = lineStations[m];
+				if (!listed[s] && ends[s] <= 1) {
+					found[count++] = s;
+				}
+				listed[s] = true;
+			}
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+				ends[lineStations[m]] = 0;
+				listed[lineStations[m]] = false;
+			}
+		}
+		terminusOffsets[lineOffsets.length - 1] = count;
+		return Arrays.copyOf(found, count);
+	}
+
+	/*
+	 * Finds where each station first appears on each of its lines, derived from the line stations so a
+	 * snapshot does not store it.
+	 */
+	private static int[] linePositions(int[] lineOffsets, int[] lineStations, int[] stationLineOffsets, int[] stationLines) {
+		int[] positions = new int[stationLines.length];
+		Arrays.fill(positions, -1);
+
+		// O(n)
+		// A station is on few lines, so its slot for a line is found by a short scan
+		for (int line = 0; line + 1 < lineOffsets.length; line++) {
+			for (int m = lineOffsets[line]; m < lineOffsets[line + 1]; m++) {
+				int s = lineStations[m];
+				for (int j = stationLineOffsets[s]; j < stationLineOffsets[s + 1]; j++) {
+					if (stationLines[j] == line) {
+						if (positions[j] == -1) {
+							positions[j] = m - lineOffsets[line];
+						}
+						break;
+					}
+				}
+			}
+		}
+		return positions;
+	}
+
+	/**
+	 * Rebuilds a mutable {@link MetroSystem} with the same station indices, lines and adjacency as this graph
+	 * @return a new {@link MetroSystem}
+	 */
+	public MetroSystem toMetroSystem() {
+		MetroSystem system = new MetroSystem();
+		for (int s = 0; s < stationNames.length; s++) {
+			system.addStation(new MetroStation(stationNames[s]));
+		}
+		for (int l = 0; l < lineNames.length; l++) {
+			MetroLine line = new MetroLine(lineNames[l]);
+			for (int i = lineOffsets[l]; i < lineOffsets[l + 1]; i++) {
+				if (i > lineOffsets[l] && !segments[i - 1]) {
+					line.addBranch();
+				}
+				MetroStation station = system.getStation(lineStations[i]);
+				station.addLine(line);
+				line.addStation(station);
+			}
+			system.addLine(line);
+		}
+		for (MetroLine line : system.getLines().values()) {
+			line.addConnectingStations();
+			for (MetroStation station : line.getAllStations().values()) {
+				line.addConnections(station.getLines());
+			}
+		}
+		return system;
+	}
+
+	/*
+	 * Builds an open addressing table, at most half full, of the ids of some names.
+	 * String hash codes are fixed by the language, so the table can be stored and reused by another process.
+	 */
+	private static int[] slots(String[] names) {
+		int capacity = Integer.highestOneBit(Math.max(2, names.length) * 2 - 1) * 2;
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, -1);
+		for (int id = 0; id < names.length; id++) {
+			int slot = mix(names[id].hashCode()) & (capacity - 1);
+			while (slots[slot] != -1) {
+				slot = (slot + 1) & (capacity - 1);
+			}
+			slots[slot] = id;
+		}
+		return slots;
+	}
+
+	/*
+	 * Finds the id of a name in a table built by slots(String[]).
+	 */
+	private static int find(int[] slots, String[] names, String name) {
+		if (name == null) {
+			return -1;
+		}
+		int mask = slots.length - 1;
+		for (int slot = mix(name.hashCode()) & mask; slots[slot] != -1; slot = (slot + 1) & mask) {
+			if (names[slots[slot]].equals(name)) {
+				return slots[slot];
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Spreads the high bits of a hash code into the low bits used to pick a slot.
+	 */
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Method to return the number of stations
+	 * @return number of stations, every station id is below this value
+	 */
+	public int stationCount() {
+		return stationNames.length;
+	}
+
+	/**
+	 * Method to return the number of lines
+	 * @return number of lines, every line id is below this value
+	 */
+	public int lineCount() {
+		return lineNames.length;
+	}
+
+	/**
+	 * Method to look up the id of a station
+	 * @param name of the station
+	 * @return the station id, or -1 if there is no such station
+	 */
+	public int stationId(String name) {
+		return find(stationSlots, stationNames, name);
+	}
+
+	/**
+	 * Method to look up the id of a line
+	 * @param name of the line
+	 * @return the line id, or -1 if there is no such line
+	 */
+	public int lineId(String name) {
+		return find(lineSlots, lineNames, name);
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return the name of the station
+	 */
+	public String stationName(int station) {
+		return stationNames[station];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @return the name of the line
+	 */
+	public String lineName(int line) {
+		return lineNames[line];
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return number of distinct adjacent stations
+	 */
+	public int degree(int station) {
+		return offsets[station + 1] - offsets[station];
+	}
+
+	/**
+	 * @param station id of a station
+	 * @param k position of the neighbour, below {@link #degree(int)}
+	 * @return the id of the k-th adjacent station
+	 */
+	public int neighbour(int station, int k) {
+		return targets[offsets[station] + k];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @return number of stations on the line
+	 */
+	public int lineSize(int line) {
+		return lineOffsets[line + 1] - lineOffsets[line];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param position of the station along the line, below {@link #lineSize(int)}
+	 * @return the id of the station at that position
+	 */
+	public int lineStation(int line, int position) {
+		return lineStations[lineOffsets[line] + position];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @return the id of the first terminus of the line, or -1 for a line without stations
+	 */
+	public int firstStation(int line) {
+		return lineSize(line) == 0 ? -1 : lineStations[lineOffsets[line]];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @return the id of the last terminus of the line, or -1 for a line without stations
+	 */
+	public int lastStation(int line) {
+		return lineSize(line) == 0 ? -1 : lineStations[lineOffsets[line + 1] - 1];
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return number of lines serving the station
+	 */
+	public int stationLineCount(int station) {
+		return stationLineOffsets[station + 1] - stationLineOffsets[station];
+	}
+
+	/**
+	 * @param station id of a station
+	 * @param k position of the line, below {@link #stationLineCount(int)}
+	 * @return the id of the k-th line serving the station
+	 */
+	public int stationLine(int station, int k) {
+		return stationLines[stationLineOffsets[station] + k];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param station id of a station
+	 * @return position of the station's first appearance on the line, or -1 if it is not on it
+	 */
+	public int linePosition(int line, int station) {
+		// O(l) for the l lines of the station
+		for (int j = stationLineOffsets[station]; j < stationLineOffsets[station + 1]; j++) {
+			if (stationLines[j] == line) {
+				return linePositions[j];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param from id of the station boarded at
+	 * @param to id of the station alighted at
+	 * @return fewest stops riding the line between the two stations, or -1 if either is not on it or the
+	 *         line does not join them
+	 */
+	public int stopsAlong(int line, int from, int to) {
+		int a = linePosition(line, from);
+		int b = linePosition(line, to);
+		if (a == -1 || b == -1) {
+			return -1;
+		}
+		// O(1) on a line calling once at each station, O(n) otherwise
+		if (straight[line]) {
+			return Math.abs(b - a);
+		}
+		int[] ride = ride(line, a, b);
+		return ride == null ? -1 : ride.length - 1;
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param from id of the station boarded at
+	 * @param to id of the station alighted at
+	 * @return ids of the stations called at riding the line between the two with the fewest stops, both
+	 *         included and in the order they are called at, or an empty array if either is not on the line
+	 *         or the line does not join them
+	 */
+	public int[] lineSegment(int line, int from, int to) {
+		int a = linePosition(line, from);
+		int b = linePosition(line, to);
+		if (a == -1 || b == -1) {
+			return new int[0];
+		}
+
+		// O(k)
+		// A segment against the order of the line is read backwards
+		int base = lineOffsets[line];
+		if (straight[line]) {
+			int[] segment = new int[Math.abs(b - a) + 1];
+			int step = a <= b ? 1 : -1;
+			for (int i = 0; i < segment.length; i++) {
+				segment[i] = lineStations[base + a + i * step];
+			}
+			return segment;
+		}
+		int[] ride = ride(line, a, b);
+		if (ride == null) {
+			return new int[0];
+		}
+		for (int i = 0; i < ride.length; i++) {
+			ride[i] = lineStations[base + ride[i]];
+		}
+		return ride;
+	}
+
+	/**
+	 * @param line id of a line
+	 * @return number of termini of the line, 0 for a loop, more than 2 for a line with branches
+	 */
+	public int terminusCount(int line) {
+		return terminusOffsets[line + 1] - terminusOffsets[line];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param k index below {@link #terminusCount(int)}
+	 * @return id of the k-th terminus of the line, in the order they first appear on it
+	 */
+	public int terminus(int line, int k) {
+		return termini[terminusOffsets[line] + k];
+	}
+
+	/*
+	 * Breadth first search over the segments of a line between two positions, where the stations first appear.
+	 * @return the first positions of the stations called at, or null if the line does not join them
+	 */
+	private int[] ride(int line, int from, int to) {
+		int base = lineOffsets[line];
+		int size = lineSize(line);
+
+		// O(n)
+		// Stations are known by their first position, and each segment links two of them both ways
+		int[] at = new int[size];
+		for (int i = 0; i < size; i++) {
+			at[i] = linePosition(line, lineStations[base + i]);
+		}
+		int[] degree = new int[size + 1];
+		for (int i = 0; i + 1 < size; i++) {
+			if (segments[base + i]) {
+				degree[at[i] + 1]++;
+				degree[at[i + 1] + 1]++;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			degree[i + 1] += degree[i];
+		}
+		int[] next = new int[degree[size]];
+		int[] fill = Arrays.copyOf(degree, size);
+		for (int i = 0; i + 1 < size; i++) {
+			if (segments[base + i]) {
+				next[fill[at[i]]++] = at[i + 1];
+				next[fill[at[i + 1]]++] = at[i];
+			}
+		}
+
+		int[] parent = new int[size];
+		Arrays.fill(parent, -1);
+		int[] queue = new int[size];
+		int head = 0;
+		int tail = 0;
+		parent[from] = from;
+		queue[tail++] = from;
+		while (head < tail && parent[to] == -1) {
+			int position = queue[head++];
+			for (int e = degree[position]; e < degree[position + 1]; e++) {
+				if (parent[next[e]] == -1) {
+					parent[next[e]] = position;
+					queue[tail++] = next[e];
+				}
+			}
+		}
+		if (parent[to] == -1) {
+			return null;
+		}
+		int length = 1;
+		for (int position = to; position != from; position = parent[position]) {
+			length++;
+		}
+		int[] ride = new int[length];
+		for (int position = to; length > 0; position = parent[position]) {
+			ride[--length] = position;
+		}
+		return ride;
+	}
+
+	/**
+	 * @param line id of a line
+	 * @return number of other lines sharing a station with the line
+	 */
+	public int connectionCount(int line) {
+		return connectionOffsets[line + 1] - connectionOffsets[line];
+	}
+
+	/**
+	 * @param line id of a line
+	 * @param k position of the connection, below {@link #connectionCount(int)}
+	 * @return the id of the k-th line connected to the line, in the order their first shared station comes along it
+	 */
+	public int connection(int line, int k) {
+		return connections[connectionOffsets[line] + k];
+	}
+
+	/*
+	 * The raw arrays below are shared with the search engines and the snapshot writer of this package,
+	 * none of them may be modified.
+	 */
+
+	String[] stationNames() {
+		return stationNames;
+	}
+
+	int[] stationSlots() {
+		return stationSlots;
+	}
+
+	int[] offsets() {
+		return offsets;
+	}
+
+	int[] targets() {
+		return targets;
+	}
+
+	String[] lineNames() {
+		return lineNames;
+	}
+
+	int[] lineSlots() {
+		return lineSlots;
+	}
+
+	int[] lineOffsets() {
+		return lineOffsets;
+	}
+
+	int[] lineStations() {
+		return lineStations;
+	}
+
+	int[] stationLineOffsets() {
+		return stationLineOffsets;
+	}
+
+	int[] stationLines() {
+		return stationLines;
+	}
+
+	int[] connectionOffsets() {
+		return connectionOffsets;
+	}
+
+	int[] connections() {
+		return connections;
+	}
+
+	int[] branchOffsets() {
+		return branchOffsets;
+	}
+
+	int[] branchStarts() {
+		return branchStarts;
+	}
+
+	boolean[] segments() {
+		return segments;
+	}
+}
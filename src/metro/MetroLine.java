@@ -1,14 +1,30 @@
 package metro;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
- * This class models a metro line by storing each station using a linked-list.
+ * This class models a metro line by storing each station in an array in the order of the line.
  * Additionally, It stores any intercepting metro lines
+ * <p>
+ * The position of each station on the line is kept by name, so the station at a position, the position
+ * of a station, the stops between two stations and the segment between them are read without walking the line
+ * <p>
+ * A line is one or more runs of stations. The first run is the line itself, and each branch is a later
+ * run starting at the station it leaves the line from, so the junction is listed again at the start of the
+ * branch. Stations are only linked to the stations next to them in the same run. A run ending at the station
+ * it started from is a loop, and its last segment links back to the start. The termini are the stations
+ * at the end of a single segment of the line, so a loop has none and a branch adds one
  * 
  * @author Ben Withington, Li He, Hannah Miller
  * @version 12/12/2017
@@ -18,23 +34,28 @@ public class MetroLine {
 
 	//Name of Metro Line
 	private final String name;
-	//list of metro station
-	private final List<MetroStation> metroLine;
+	//metro stations in the order of the line, the first size entries are in use
+	private MetroStation[] metroLine;
 	//first station in line
 	private MetroStation firstStation;
 	//last station in line
 	private MetroStation lastStation;
 	//number of metro stations on the metro line
 	private int size;
+	//position of the first station of each branch, ascending, the first branches entries are in use
+	private int[] branchStarts;
+	private int branches;
+	//true when the next station added starts a branch
+	private boolean branching;
 
 	// Storing connecting station with lines
 	private final Map<String, MetroLine> connections;
-	// Storing connecting station with lines
-	private final Map<String, MetroStation> stations;
+	// Storing the first position of each station on the line by name
+	private final Map<String, Integer> positions;
 
 	/**
 	 * Constructs a new {@link MetroLine} with a specified string line name
-	 * sets size to zero, makes the first and last line null, creates a linked list and 2 hash maps
+	 * sets size to zero, makes the first and last line null, creates an empty array and 2 hash maps
 	 * @param name of the Metro line
 	 */
 	public MetroLine(String name) {
@@ -42,15 +63,16 @@ public class MetroLine {
 		size = 0;
 		lastStation = null;
 		firstStation = null;
-		metroLine = new LinkedList<>();
+		metroLine = new MetroStation[0];
+		branchStarts = new int[0];
 		connections = new HashMap<>();
-		stations = new HashMap<>();
+		positions = new HashMap<>();
 	}
 
 	/**
-	 * Method to add a station to the linked list line, checks to see if first is null and makes it equal to the
-	 * station in parameter, adds this to the line linked list and set it to the last in the list.
-	 * increments the size to keep track of number in list
+	 * Method to add a station to the end of the line, checks to see if first is null and makes it equal to the
+	 * station in parameter, adds this to the line array and set it to the last in the line.
+	 * increments the size to keep track of number in line
 	 * @param station variable of type {@link MetroStation}
 	 * @see MetroStation
 	 */
@@ -59,24 +81,802 @@ public class MetroLine {
 		// creates the first station of a line
 		if (firstStation == null) {
 			firstStation = station;
-			metroLine.add(firstStation);
-			lastStation = firstStation;
-		} 
-		else 
-		// creates the rest of the stations
-		{
-			metroLine.add(station);
-			lastStation = station;
 		}
-		
-		//adds all station into a hashmap for later use
-		stations.put(station.toString(), station);
+		lastStation = station;
+
+		// O(1) amortised
+		// The array doubles when full
+		if (size == metroLine.length) {
+			metroLine = Arrays.copyOf(metroLine, Math.max(4, size * 2));
+		}
+		metroLine[size] = station;
+		if (branching) {
+			if (branches == branchStarts.length) {
+				branchStarts = Arrays.copyOf(branchStarts, Math.max(2, branches * 2));
+			}
+			branchStarts[branches++] = size;
+			branching = false;
+		}
+
+		//records where the station first appears for later use
+		positions.putIfAbsent(station.toString(), size);
 		size++;
 	}
 
 	/**
-	 * Method to return the size of the linked list
-	 * @return size of linked list
+	 * Method to start a branch of the line: the next station added starts a new run, linked to the stations
+	 * added after it and not to the last station of the line. A branch starts at the station it leaves the
+	 * line from, which is then on the line twice. Nothing changes if the line has no stations yet
+	 */
+	public void addBranch() {
+		branching = size > 0;
+	}
+
+	/**
+	 * Method to get the number of runs of the line, the line itself and each of its branches
+	 * @return number of runs, 0 if the line has no stations
+	 */
+	public int getRunCount() {
+		return size == 0 ? 0 : branches + 1;
+	}
+
+	/**
+	 * Method to get where a run of the line starts
+	 * @param run index of the run, below {@link #getRunCount()}
+	 * @return position of the first station of the run, 0 for the line itself
+	 */
+	public int getRunStart(int run) {
+		return run == 0 ? 0 : branchStarts[run - 1];
+	}
+
+	/**
+	 * Method to tell whether trains run between the station at a position and the next station of the array,
+	 * which they do unless the next station starts a branch
+	 * @param position index of a station
+	 * @return true if the station and the next one are linked
+	 */
+	public boolean isLinked(int position) {
+		return position >= 0 && position + 1 < size && !isBranchStart(position + 1);
+	}
+
+	/*
+	 * @return true if a branch starts at the position
+	 */
+	private boolean isBranchStart(int position) {
+		return position > 0 && Arrays.binarySearch(branchStarts, 0, branches, position) >= 0;
+	}
+
+	/*
+	 * @return position after the last station of the run holding the position
+	 */
+	private int runEnd(int position) {
+		// O(log b)
+		int k = Arrays.binarySearch(branchStarts, 0, branches, position + 1);
+		k = k >= 0 ? k : -k - 1;
+		return k < branches ? branchStarts[k] : size;
+	}
+
+	/*
+	 * @return position of the first station of the run holding the position
+	 */
+	private int runStart(int position) {
+		int k = Arrays.binarySearch(branchStarts, 0, branches, position);
+		k = k >= 0 ? k + 1 : -k - 1;
+		return k == 0 ? 0 : branchStarts[k - 1];
+	}
+
+	/*
+	 * Moves the branch starts beyond a position by a number of places, dropping any branch left without stations.
+	 */
+	private void shiftBranches(int position, int by) {
+		int kept = 0;
+		for (int k = 0; k < branches; k++) {
+			int start = branchStarts[k] > position ? branchStarts[k] + by : branchStarts[k];
+			if (start > 0 && start < size && (kept == 0 || branchStarts[kept - 1] < start)) {
+				branchStarts[kept++] = start;
+			}
+		}
+		branches = kept;
+	}
+
+	/**
+	 * Method to find the termini of the line, the stations at the end of only one of its segments.
+	 * A loop has none, and a line of one station ends at it
+	 * @return the termini, in the order they first appear on the line
+	 */
+	public List<MetroStation> getTermini() {
+		// O(n)
+		Map<String, Integer> segments = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			if (isLinked(i) && !metroLine[i].equals(metroLine[i + 1])) {
+				segments.merge(metroLine[i].toString(), 1, Integer::sum);
+				segments.merge(metroLine[i + 1].toString(), 1, Integer::sum);
+			}
+		}
+		List<MetroStation> termini = new ArrayList<>(2);
+		for (int i = 0; i < size; i++) {
+			String stationName = metroLine[i].toString();
+			if (positions.get(stationName) == i && segments.getOrDefault(stationName, 0) <= 1) {
+				termini.add(metroLine[i]);
+			}
+		}
+		return termini;
+	}
+
+	/**
+	 * Method to insert a station into the line, between the stations either side of the position.
+	 * The stations either side are linked to the new station instead of to each other, and the termini,
+	 * the lines of the station and the connections of the lines at the station are patched to match
+	 * @param position index the station takes, from 0 to the size of the line
+	 * @param station the station to insert
+	 * @throws IndexOutOfBoundsException if the position is outside the line
+	 * @see MetroStation
+	 */
+	public void insertStation(int position, MetroStation station) {
+		if (position < 0 || position > size) {
+			throw new IndexOutOfBoundsException("Position " + position + " on " + name + " of " + size + " stations");
+		}
+		// A station inserted where a branch starts ends the run before the branch
+		MetroStation prev = position > 0 ? metroLine[position - 1] : null;
+		MetroStation next = position < size && !isBranchStart(position) ? metroLine[position] : null;
+
+		// O(1)
+		// The segment the station is inserted into is replaced by two
+		if (prev != null && next != null) {
+			unlink(prev, next);
+		}
+		if (prev != null) {
+			prev.addNextStation(station);
+			station.addNextStation(prev);
+		}
+		if (next != null) {
+			station.addNextStation(next);
+			next.addNextStation(station);
+		}
+
+		// O(n)
+		// The stations beyond the position move up one place
+		if (size == metroLine.length) {
+			metroLine = Arrays.copyOf(metroLine, Math.max(4, size * 2));
+		}
+		System.arraycopy(metroLine, position, metroLine, position + 1, size - position);
+		metroLine[position] = station;
+		size++;
+		shiftBranches(position - 1, 1);
+		updateTermini();
+		updatePositions(position);
+		station.addLine(this);
+
+		// O(l)
+		// Every line at the station now shares it with this line
+		for (MetroLine line : station.getLines().values()) {
+			connections.put(line.toString(), line);
+			line.connections.put(name, this);
+		}
+	}
+
+	/**
+	 * Method to remove the station at a position, linking the stations either side of it so trains run through.
+	 * A station a loop starts from or a branch leaves from is removed from the whole line at once, so the line
+	 * stays joined: the loop closes again at the station after it, and the branch leaves from the station
+	 * before it instead. Lines that only shared the removed station with this line stop being connected to it
+	 * @param position index of the station to remove
+	 * @return the removed station
+	 * @throws IndexOutOfBoundsException if the position is outside the line
+	 * @see MetroStation
+	 */
+	public MetroStation removeStation(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("Position " + position + " on " + name + " of " + size + " stations");
+		}
+		MetroStation station = metroLine[position];
+		if (isJunction(station) || isLoopEnd(position)) {
+			removeJunction(station);
+			return station;
+		}
+		MetroStation prev = position > 0 && !isBranchStart(position) ? metroLine[position - 1] : null;
+		MetroStation next = isLinked(position) ? metroLine[position + 1] : null;
+
+		// O(n)
+		// The stations beyond the position move down one place
+		System.arraycopy(metroLine, position + 1, metroLine, position, size - position - 1);
+		metroLine[--size] = null;
+		shiftBranches(position, -1);
+		positions.remove(station.toString(), position);
+		updateTermini();
+		updatePositions(position);
+
+		// O(1)
+		// The two segments either side become one
+		if (prev != null) {
+			unlink(prev, station);
+		}
+		if (next != null) {
+			unlink(station, next);
+		}
+		if (prev != null && next != null) {
+			prev.addNextStation(next);
+			next.addNextStation(prev);
+		}
+
+		// A line passing the station twice is still on it
+		if (indexOf(station) == -1) {
+			leave(station);
+		}
+		return station;
+	}
+
+	/*
+	 * Takes the station off the line's connections once the line no longer calls at it.
+	 */
+	private void leave(MetroStation station) {
+		station.removeLine(this);
+		for (MetroLine line : station.getLines().values()) {
+			updateConnection(this, line);
+		}
+		if (size == 0) {
+			connections.clear();
+		}
+	}
+
+	/*
+	 * @return true if a branch leaves the line from the station
+	 */
+	private boolean isJunction(MetroStation station) {
+		// O(b)
+		for (int k = 0; k < branches; k++) {
+			if (metroLine[branchStarts[k]].equals(station)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * @return true if the position is the first or last of a loop, both holding the station the loop starts from
+	 */
+	private boolean isLoopEnd(int position) {
+		int start = runStart(position);
+		int end = runEnd(position);
+		return (position == start || position == end - 1) && end - start > 3 && metroLine[start].equals(metroLine[end - 1]);
+	}
+
+	/*
+	 * Removes every call at a station a loop starts from or a branch leaves from, rebuilding the runs so the
+	 * line stays joined. The stations either side of each call are linked, a loop starting from the station
+	 * closes again at the station after it, and a branch leaving from it leaves from the station before its
+	 * first call instead, or after it if there is none.
+	 */
+	private void removeJunction(MetroStation station) {
+		// O(n)
+		// Each run is rebuilt on its own, then the runs are packed back into the array
+		List<List<MetroStation>> runs = runs();
+		int runCount = runs.size();
+		boolean[] leaves = new boolean[runCount];
+		MetroStation junction = null;
+		for (int run = 0; run < runCount; run++) {
+			List<MetroStation> stations = runs.get(run);
+			leaves[run] = run > 0 && stations.get(0).equals(station);
+
+			int last = stations.size() - 1;
+			if (last > 2 && stations.get(0).equals(station) && stations.get(last).equals(station)
+					&& !stations.get(1).equals(station) && !stations.get(last - 1).equals(station)) {
+				// A loop closes again at the station after the removed one, unless two stations are left to run between
+				MetroStation after = stations.get(1);
+				MetroStation before = stations.get(last - 1);
+				unlink(station, after);
+				unlink(before, station);
+				stations.remove(last);
+				stations.remove(0);
+				if (stations.size() > 2) {
+					before.addNextStation(after);
+					after.addNextStation(before);
+					stations.add(after);
+				}
+				if (junction == null && !leaves[run]) {
+					junction = after;
+				}
+			} else if (leaves[run]) {
+				if (last > 0) {
+					unlink(station, stations.get(1));
+				}
+				stations.remove(0);
+			}
+
+			// Any other call is removed as on a line without junctions
+			for (int i = 0; i < stations.size(); i++) {
+				if (stations.get(i).equals(station)) {
+					MetroStation prev = i > 0 ? stations.get(i - 1) : null;
+					MetroStation next = i + 1 < stations.size() ? stations.get(i + 1) : null;
+					if (prev != null) {
+						unlink(prev, station);
+					}
+					if (next != null) {
+						unlink(station, next);
+					}
+					if (prev != null && next != null) {
+						prev.addNextStation(next);
+						next.addNextStation(prev);
+					}
+					// A call next to another call at the station is no junction
+					if (junction == null && prev != null && !prev.equals(station)) {
+						junction = prev;
+					} else if (junction == null && next != null && !next.equals(station)) {
+						junction = next;
+					}
+					stations.remove(i--);
+				}
+			}
+		}
+
+		// Each branch that left from the station leaves from the junction instead
+		for (int run = 0; run < runCount; run++) {
+			List<MetroStation> stations = runs.get(run);
+			if (!leaves[run] || stations.isEmpty()) {
+				continue;
+			}
+			if (junction == null) {
+				junction = stations.get(0);
+			} else if (!stations.get(0).equals(junction)) {
+				junction.addNextStation(stations.get(0));
+				stations.get(0).addNextStation(junction);
+				stations.add(0, junction);
+			}
+		}
+
+		pack(runs);
+		leave(station);
+	}
+
+	/*
+	 * @return a copy of the stations of each run, the line itself first
+	 */
+	private List<List<MetroStation>> runs() {
+		int runCount = getRunCount();
+		List<List<MetroStation>> runs = new ArrayList<>(runCount);
+		for (int run = 0; run < runCount; run++) {
+			int end = run + 1 < runCount ? branchStarts[run] : size;
+			runs.add(new ArrayList<>(Arrays.asList(metroLine).subList(getRunStart(run), end)));
+		}
+		return runs;
+	}
+
+	/*
+	 * Replaces the stations of the line with runs, the first run that has stations being the line itself and
+	 * each later one a branch, and records the positions and termini again. Each branch is made to start at a
+	 * station of the runs before it, reversing it or cutting it in two there, and a branch of one station
+	 * already on the line is dropped.
+	 */
+	private void pack(List<List<MetroStation>> runs) {
+		// O(n b)
+		// The runs are taken in turn, each time the first one calling at a station already reached
+		List<List<MetroStation>> left = new ArrayList<>();
+		for (List<MetroStation> stations : runs) {
+			if (!stations.isEmpty()) {
+				left.add(stations);
+			}
+		}
+		List<List<MetroStation>> ordered = new ArrayList<>(left.size());
+		Set<MetroStation> reached = new HashSet<>();
+		while (!left.isEmpty()) {
+			int pick = 0;
+			int at = 0;
+			for (int k = 0; k < left.size() && !ordered.isEmpty(); k++) {
+				at = indexOfAny(left.get(k), reached);
+				if (at != -1) {
+					pick = k;
+					break;
+				}
+			}
+			// A run joined to none before it keeps its place
+			at = Math.max(at, 0);
+			List<MetroStation> stations = left.remove(pick);
+			List<MetroStation> whole = stations;
+			if (at > 0) {
+				List<MetroStation> back = new ArrayList<>(stations.subList(0, at + 1));
+				Collections.reverse(back);
+				ordered.add(back);
+				stations = stations.subList(at, stations.size());
+			}
+			if (stations.size() > 1 || !reached.contains(stations.get(0))) {
+				ordered.add(stations);
+			}
+			reached.addAll(whole);
+		}
+
+		int total = 0;
+		for (List<MetroStation> stations : ordered) {
+			total += stations.size();
+		}
+		if (total > metroLine.length) {
+			metroLine = Arrays.copyOf(metroLine, total);
+		}
+		size = 0;
+		branches = 0;
+		for (List<MetroStation> stations : ordered) {
+			if (size > 0) {
+				if (branches == branchStarts.length) {
+					branchStarts = Arrays.copyOf(branchStarts, Math.max(2, branches * 2));
+				}
+				branchStarts[branches++] = size;
+			}
+			for (MetroStation at : stations) {
+				metroLine[size++] = at;
+			}
+		}
+		Arrays.fill(metroLine, size, metroLine.length, null);
+		positions.clear();
+		updatePositions(0);
+		updateTermini();
+	}
+
+	/**
+	 * Method to find where a station is on the line
+	 * @param station the station
+	 * @return index of the first time the line calls at the station, or -1 if it does not
+	 */
+	public int indexOf(MetroStation station) {
+		// O(1)
+		Integer position = positions.get(station.toString());
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Method to get the station at a position of the line
+	 * @param position index of the station
+	 * @return the {@link MetroStation}
+	 * @throws IndexOutOfBoundsException if the position is outside the line
+	 */
+	public MetroStation getStation(int position) {
+		if (position < 0 || position >= size) {
+			throw new IndexOutOfBoundsException("Position " + position + " on " + name + " of " + size + " stations");
+		}
+		return metroLine[position];
+	}
+
+	/**
+	 * Method to count the fewest stops between two stations riding this line, through its junctions and
+	 * either way round a loop
+	 * @param from the station boarded at
+	 * @param to the station alighted at
+	 * @return number of stops, or -1 if either station is not on the line or the line does not join them
+	 */
+	public int stopsBetween(MetroStation from, MetroStation to) {
+		int a = indexOf(from);
+		int b = indexOf(to);
+		if (a == -1 || b == -1) {
+			return -1;
+		}
+		// O(1) on a line calling once at each station, O(n) otherwise
+		if (isStraight()) {
+			return Math.abs(b - a);
+		}
+		int[] ride = ride(a, b);
+		return ride == null ? -1 : ride.length - 1;
+	}
+
+	/**
+	 * Method to get the stations called at riding this line between two stations with the fewest stops,
+	 * both included and in the order they are called at
+	 * @param from the station boarded at
+	 * @param to the station alighted at
+	 * @return the stations, or an empty list if either station is not on the line or the line does not join them
+	 */
+	public List<MetroStation> getSegment(MetroStation from, MetroStation to) {
+		int a = indexOf(from);
+		int b = indexOf(to);
+		if (a == -1 || b == -1) {
+			return Collections.emptyList();
+		}
+
+		// O(k)
+		// A segment against the order of the line is read backwards
+		if (isStraight()) {
+			int step = a <= b ? 1 : -1;
+			List<MetroStation> segment = new ArrayList<>(Math.abs(b - a) + 1);
+			for (int i = a; i != b + step; i += step) {
+				segment.add(metroLine[i]);
+			}
+			return segment;
+		}
+		int[] ride = ride(a, b);
+		if (ride == null) {
+			return Collections.emptyList();
+		}
+		List<MetroStation> segment = new ArrayList<>(ride.length);
+		for (int position : ride) {
+			segment.add(metroLine[position]);
+		}
+		return segment;
+	}
+
+	/*
+	 * @return true if the line is one run calling once at each station, so positions count stops
+	 */
+	private boolean isStraight() {
+		return branches == 0 && positions.size() == size;
+	}
+
+	/*
+	 * Breadth first search over the segments of the line between the first positions of two stations.
+	 * @return the first positions of the stations called at, or null if the line does not join them
+	 */
+	private int[] ride(int from, int to) {
+		// O(n)
+		// Stations are known by their first position, and each segment links two of them both ways
+		int[] degree = new int[size + 1];
+		for (int i = 0; i < size; i++) {
+			if (isLinked(i)) {
+				degree[indexOf(metroLine[i]) + 1]++;
+				degree[indexOf(metroLine[i + 1]) + 1]++;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			degree[i + 1] += degree[i];
+		}
+		int[] next = new int[degree[size]];
+		int[] fill = Arrays.copyOf(degree, size);
+		for (int i = 0; i < size; i++) {
+			if (isLinked(i)) {
+				int a = indexOf(metroLine[i]);
+				int b = indexOf(metroLine[i + 1]);
+				next[fill[a]++] = b;
+				next[fill[b]++] = a;
+			}
+		}
+
+		int[] parent = new int[size];
+		Arrays.fill(parent, -1);
+		int[] queue = new int[size];
+		int head = 0;
+		int tail = 0;
+		parent[from] = from;
+		queue[tail++] = from;
+		while (head < tail && parent[to] == -1) {
+			int at = queue[head++];
+			for (int e = degree[at]; e < degree[at + 1]; e++) {
+				if (parent[next[e]] == -1) {
+					parent[next[e]] = at;
+					queue[tail++] = next[e];
+				}
+			}
+		}
+		if (parent[to] == -1) {
+			return null;
+		}
+		int length = 1;
+		for (int at = to; at != from; at = parent[at]) {
+			length++;
+		}
+		int[] ride = new int[length];
+		for (int at = to; length > 0; at = parent[at]) {
+			ride[--length] = at;
+		}
+		return ride;
+	}
+
+	/**
+	 * Method to close the segment after a position, splitting the line in two.
+	 * This line keeps its first run and every run still joined to it, and the rest moves to a new line: the
+	 * stations after the position up to the end of their run, and the branches joined only to them.
+	 * Each branch is kept starting at a station of the runs before it.
+	 * A loop is opened at the closure instead, running from the station after it round to the station before it,
+	 * or for a branch round a loop, from its junction to either side of the closure. A line whose branches
+	 * still join the two sides of the closure is not split either.
+	 * The new line is not added to any {@link MetroSystem}, {@link MetroSystem#closeSegment} does that
+	 * @param position index of the station before the closed segment
+	 * @param tailName name of the new line
+	 * @return the new line running beyond the closed segment, or null if the line was not split
+	 * @throws IndexOutOfBoundsException if there is no segment after the position
+	 */
+	public MetroLine splitAfter(int position, String tailName) {
+		if (!isLinked(position)) {
+			throw new IndexOutOfBoundsException("No segment after position " + position + " on " + name);
+		}
+		unlink(metroLine[position], metroLine[position + 1]);
+		int start = runStart(position);
+		int end = runEnd(position);
+
+		// O(n)
+		// A branch round a loop becomes two branches out of its junction, on either side of the closure
+		if (start > 0 && end - start > 3 && metroLine[start].equals(metroLine[end - 1])) {
+			List<List<MetroStation>> runs = runs();
+			int split = Arrays.binarySearch(branchStarts, 0, branches, start) + 1;
+			List<MetroStation> before = new ArrayList<>(Arrays.asList(metroLine).subList(start, position + 1));
+			List<MetroStation> after = new ArrayList<>(Arrays.asList(metroLine).subList(position + 1, end));
+			Collections.reverse(after);
+			runs.set(split, before.size() > 1 ? before : new ArrayList<>());
+			runs.add(split + 1, after.size() > 1 ? after : new ArrayList<>());
+			pack(runs);
+			return null;
+		}
+
+		// A loop runs on from the station after the closure, round through its start, to the station before it
+		if (end - start > 3 && metroLine[start].equals(metroLine[end - 1])) {
+			MetroStation[] opened = new MetroStation[end - start - 1];
+			int n = 0;
+			for (int i = position + 1; i < end - 1; i++) {
+				opened[n++] = metroLine[i];
+			}
+			for (int i = start; i <= position; i++) {
+				opened[n++] = metroLine[i];
+			}
+			System.arraycopy(opened, 0, metroLine, start, n);
+			System.arraycopy(metroLine, end, metroLine, end - 1, size - end);
+			metroLine[--size] = null;
+			shiftBranches(end - 1, -1);
+			updateTermini();
+			updatePositions(start);
+			return null;
+		}
+
+		// O(n)
+		// The stations beyond the closure keep their links to each other and move to the new line
+		List<MetroStation> called = new ArrayList<>(getAllStations().values());
+		List<List<MetroStation>> runs = runs();
+		int split = 0;
+		while (split < branches && branchStarts[split] <= position) {
+			split++;
+		}
+		List<MetroStation> head = runs.get(split);
+		List<MetroStation> beyond = new ArrayList<>(head.subList(position + 1 - start, end - start));
+		head.subList(position + 1 - start, end - start).clear();
+		// A branch left with only its junction has no segments
+		if (split > 0 && head.size() == 1) {
+			head.clear();
+		}
+
+		// O(n b)
+		// Closing one segment leaves the line in at most two parts. The runs joined to the first run through
+		// the stations they share stay, and the others move to the new line, each after a run it shares a
+		// station with, starting from the stations beyond the closure unless they stay
+		runs.add(beyond);
+		boolean[] reached = new boolean[runs.size()];
+		reached[0] = true;
+		reach(runs, reached, new HashSet<>(runs.get(0)));
+		int first = runs.size() - 1;
+		for (int run = 1; reached[first] && run < runs.size(); run++) {
+			if (!reached[run] && !runs.get(run).isEmpty()) {
+				first = run;
+			}
+		}
+		List<List<MetroStation>> moved = new ArrayList<>();
+		if (!reached[first]) {
+			reached[first] = true;
+			List<Integer> tailRuns = reach(runs, reached, new HashSet<>(runs.get(first)));
+			tailRuns.add(0, first);
+			for (int run : tailRuns) {
+				moved.add(runs.set(run, new ArrayList<>()));
+			}
+		}
+		pack(runs);
+
+		MetroLine tail = moved.isEmpty() ? null : new MetroLine(tailName);
+		if (tail != null) {
+			tail.pack(moved);
+			for (MetroStation station : tail.getAllStations().values()) {
+				station.addLine(tail);
+			}
+		}
+
+		Map<String, MetroLine> affected = new HashMap<>(connections);
+		for (MetroStation station : called) {
+			if (indexOf(station) == -1) {
+				station.removeLine(this);
+			}
+			affected.putAll(station.getLines());
+		}
+		if (tail != null) {
+			tail.connections.put(tailName, tail);
+		}
+		for (MetroLine line : affected.values()) {
+			updateConnection(this, line);
+			if (tail != null) {
+				updateConnection(tail, line);
+			}
+		}
+		return tail;
+	}
+
+	/*
+	 * @return index of the first station of a run that is one of the stations, or -1 if none is
+	 */
+	private static int indexOfAny(List<MetroStation> run, Set<MetroStation> stations) {
+		for (int i = 0; i < run.size(); i++) {
+			if (stations.contains(run.get(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * Marks every run not yet marked that is joined to the stations, directly or through runs marked before it,
+	 * adding their stations to them.
+	 * @return indices of the runs marked, each after a run it shares a station with
+	 */
+	private static List<Integer> reach(List<List<MetroStation>> runs, boolean[] marked, Set<MetroStation> stations) {
+		// O(n b)
+		List<Integer> found = new ArrayList<>();
+		boolean grew = true;
+		while (grew) {
+			grew = false;
+			for (int run = 1; run < runs.size(); run++) {
+				if (!marked[run] && !runs.get(run).isEmpty() && !Collections.disjoint(runs.get(run), stations)) {
+					marked[run] = true;
+					stations.addAll(runs.get(run));
+					found.add(run);
+					grew = true;
+				}
+			}
+		}
+		return found;
+	}
+
+	/*
+	 * Removes one link each way between two adjacent stations.
+	 */
+	private static void unlink(MetroStation a, MetroStation b) {
+		a.removeNextStation(b);
+		b.removeNextStation(a);
+	}
+
+	/*
+	 * Connects two lines if they still share a station, disconnects them otherwise.
+	 */
+	private static void updateConnection(MetroLine a, MetroLine b) {
+		if (a == b) {
+			return;
+		}
+		// O(n)
+		// Looks through the shorter of the two lines
+		MetroLine shorter = a.positions.size() <= b.positions.size() ? a : b;
+		MetroLine other = shorter == a ? b : a;
+		boolean shared = false;
+		for (int position : shorter.positions.values()) {
+			if (shorter.metroLine[position].getLines().get(other.name) == other) {
+				shared = true;
+				break;
+			}
+		}
+		if (shared) {
+			a.connections.put(b.name, b);
+			b.connections.put(a.name, a);
+		} else {
+			a.connections.remove(b.name, b);
+			b.connections.remove(a.name, a);
+		}
+	}
+
+	/*
+	 * Sets the termini again from the ends of the array, null when the line has no stations.
+	 */
+	private void updateTermini() {
+		firstStation = size == 0 ? null : metroLine[0];
+		lastStation = size == 0 ? null : metroLine[size - 1];
+	}
+
+	/*
+	 * Records the positions again of the stations from a position on, after the stations there have moved.
+	 * A station first appearing before the position keeps its position.
+	 */
+	private void updatePositions(int from) {
+		// O(n)
+		// Positions at or beyond the move are stale, a station appearing twice keeps the first of them
+		for (int i = from; i < size; i++) {
+			Integer position = positions.get(metroLine[i].toString());
+			if (position != null && position >= from) {
+				positions.remove(metroLine[i].toString());
+			}
+		}
+		for (int i = from; i < size; i++) {
+			positions.putIfAbsent(metroLine[i].toString(), i);
+		}
+	}
+
+	/**
+	 * Method to return the number of stations on the line
+	 * @return size of the line
 	 */
 	public int getSize() {
 		return size;
@@ -109,30 +909,17 @@ public class MetroLine {
 	}
 
 	/**
-	 * Method to add connecting stations, sets a {@link MetroStation} type previous and next to null
-	 * checks to see if there is a station when the iterator gets the next element, if it does: sets it to previous and
-	 * sets next station to the one after the current station
+	 * Method to add connecting stations, linking each station to the next one of its run both ways.
+	 * A branch is not linked to the station before it, only to the junction it starts at
 	 * @see MetroStation
 	 * 
 	 */
 	public void addConnectingStations(){
-		Iterator<MetroStation> stationItr = iterator();
-		MetroStation prev;
-		MetroStation next = null;
-		
 		// adds all adjacent stations of each station
-		if(stationItr.hasNext()) {
-			prev = stationItr.next();
-			if(stationItr.hasNext()) {
-				next = stationItr.next();
-				prev.addNextStation(next);
-				next.addNextStation(prev);
-			}
-			while(stationItr.hasNext()) {
-				prev = next;
-				next = stationItr.next();
-				prev.addNextStation(next);
-				next.addNextStation(prev);
+		for (int i = 0; i + 1 < size; i++) {
+			if (isLinked(i)) {
+				metroLine[i].addNextStation(metroLine[i + 1]);
+				metroLine[i + 1].addNextStation(metroLine[i]);
 			}
 		}
 	}	
@@ -155,19 +942,73 @@ public class MetroLine {
 
 	/**
 	 * Method to get the {@link MetroStation}s in the line
-	 * @return {@link MetroStation}s
+	 * @return a read-only view of the {@link MetroStation}s by name
 	 * @see MetroStation
 	 */
 	public Map<String, MetroStation> getAllStations(){
-		return stations;
+		return new StationView();
 	}
 
 	/**
-	 * @return an iterator to return lines
+	 * @return an iterator over the stations of the line in order
 	 * @see MetroStation
 	 */
 	public Iterator<MetroStation> iterator(){
-		return metroLine.iterator();
+		return Collections.unmodifiableList(Arrays.asList(metroLine).subList(0, size)).iterator();
+	}
+
+	/**
+	 * A read-only map of the stations of the line by name, reading the positions as they are when used
+	 */
+	private final class StationView extends AbstractMap<String, MetroStation> {
+
+		@Override
+		public MetroStation get(Object key) {
+			Integer position = positions.get(key);
+			return position == null ? null : metroLine[position];
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return positions.containsKey(key);
+		}
+
+		@Override
+		public int size() {
+			return positions.size();
+		}
+
+		@Override
+		public Set<Map.Entry<String, MetroStation>> entrySet() {
+			return new AbstractSet<Map.Entry<String, MetroStation>>() {
+
+				@Override
+				public Iterator<Map.Entry<String, MetroStation>> iterator() {
+					Iterator<Map.Entry<String, Integer>> entries = positions.entrySet().iterator();
+					return new Iterator<Map.Entry<String, MetroStation>>() {
+
+						@Override
+						public boolean hasNext() {
+							return entries.hasNext();
+						}
+
+						@Override
+						public Map.Entry<String, MetroStation> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							Map.Entry<String, Integer> entry = entries.next();
+							return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), metroLine[entry.getValue()]);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return positions.size();
+				}
+			};
+		}
 	}
 }
 
@@ -1,14 +1,22 @@
 package metro;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * A node to represent a metro station within the MTR.
  * Additionally, it also holds which line/s this station is on and all connecting stations across the map
+ * <p>
+ * The lines and the connecting stations are kept in plain arrays sized to fit, so a station is three
+ * objects besides its name, where maps and lists would be a dozen. A station is on one or two lines
+ * and next to two or three stations, so searching the arrays is as quick as hashing.
  * 
  * @author Li He, Hannah Miller, Ben Withington
  * @version 12/12/2017
@@ -16,31 +24,30 @@ import java.util.Queue;
 
 public class MetroStation {
 
+	//shared by every station not yet on a line or next to a station
+	private static final MetroLine[] NO_LINES = new MetroLine[0];
+	private static final MetroStation[] NO_STATIONS = new MetroStation[0];
+
 	//String name of station
 	private String name;
-	//Map to link station name with line
-	private Map<String, MetroLine> lines;
-	//array list of adjacent Station objects
-	private ArrayList<MetroStation> connectingStations;
-	//queue of the current stations adjacent stations
-	private Queue<MetroStation> potentialStations;
-	//queue to back up potential storage for later use, keeps complexity O(n)
-	private Queue<MetroStation> stationStorage;
-	// To see if a station is visited or not
-	private boolean isVisited;
+	//lines through the station, no two with the same name, in the order they were added
+	private MetroLine[] lines;
+	//adjacent Station objects, the first degree entries are in use
+	private MetroStation[] connectingStations;
+	private int degree;
+	//dense index of the station within its MetroSystem, -1 until added
+	private int index;
 	
 	/**
 	 * Constructs a new {@link MetroStation} with a specified string station name
-	 * Sets visited boolean to false, creates a hashMap, ArrayList and Linkedlist 
+	 * The station starts on no line and next to no station, the index is assigned once the station joins a {@link MetroSystem}
 	 * @param name, of the station
 	 */
 	public MetroStation(String name) {
 		this.name = name;
-		lines = new HashMap<String, MetroLine>();
-		isVisited = false;
-		connectingStations = new ArrayList<MetroStation>();
-		potentialStations = new LinkedList<MetroStation>();
-		stationStorage = new LinkedList<MetroStation>();
+		lines = NO_LINES;
+		connectingStations = NO_STATIONS;
+		index = -1;
 	}
 
 	/**
@@ -52,76 +59,133 @@ public class MetroStation {
 	}
 
 	/**
-	 * Method to search the hash map to get the lines connected
-	 * @return the line connecting to a station
+	 * Method to get the lines through this station by name
+	 * @return a read-only view of the lines connecting to a station
 	 * @see MetroLine
 	 */
 	public Map<String, MetroLine> getLines(){
-		return lines;
+		return new LineView();
 	}
 
 	/**
-	 * Method to check whether a potential station contains a station
-	 * if not add the station as a potential station 
+	 * Method to get the number of lines through this station
+	 * @return number of lines
 	 */
-	public void nextPotentialStations(){
-		for(MetroStation station : connectingStations){
-			if(!potentialStations.contains(station)){
-				potentialStations.add(station);
-				stationStorage.add(station);
-			}
-		}
+	public int getLineCount() {
+		return lines.length;
 	}
-		
+
 	/**
-	 * Method to return a queue of potential stations
-	 * @return a queue of potential stations
+	 * Method to get one line through this station, without the view of {@link #getLines()}
+	 * @param k position of the line, below {@link #getLineCount()}
+	 * @return the k-th line, in the order the lines were added
 	 */
-	public Queue<MetroStation> potentialStations(){
-		return potentialStations;
+	public MetroLine getLine(int k) {
+		return lines[k];
 	}
 
-	public void resetPotentialStations(){
-		potentialStations = stationStorage; 
+	/**
+	 * Method to get the dense index of this station within its {@link MetroSystem}.
+	 * Search engines key their per-query state on this value instead of marking the station itself
+	 * @return index of the station, or -1 if it has not been added to a system
+	 * @see MetroSystem#getStation(int)
+	 */
+	public int getIndex() {
+		return index;
 	}
+
 	/**
-	 * Method to add the station specified in parameter to the front of array list containing connecting Stations
+	 * Mutator used by {@link MetroSystem} when the station is registered
+	 * @param index dense index of the station
+	 */
+	void setIndex(int index) {
+		this.index = index;
+	}
+
+	/**
+	 * Method to return the adjacent stations of this station
+	 * @return a read-only view of the connecting stations
+	 */
+	public List<MetroStation> getConnectingStations() {
+		return new StationView();
+	}
+
+	/**
+	 * Method to add the station specified in parameter to the end of the connecting Stations
 	 * @param station name of type Station
 	 */
 	public void addNextStation(MetroStation station){
-		connectingStations.add(station);
+		// O(1) amortised
+		// Most stations have two neighbours, so the array starts at two and doubles
+		if (degree == connectingStations.length) {
+			connectingStations = Arrays.copyOf(connectingStations, Math.max(2, degree * 2));
+		}
+		connectingStations[degree++] = station;
 	}
 
 	/**
-	 * Method to add a {@link line}line of type string as the key line in the map
-	 * @param line name of type Line
-	 * @see MetroLine
+	 * Method to remove one link to an adjacent station, a pair linked by two lines stays linked by the other
+	 * @param station the adjacent station
+	 * @return true if a link was removed
 	 */
-	public void addLine(MetroLine line){
-		lines.put(line.toString(), line);
+	public boolean removeNextStation(MetroStation station){
+		for (int k = 0; k < degree; k++) {
+			if (station.equals(connectingStations[k])) {
+				System.arraycopy(connectingStations, k + 1, connectingStations, k, degree - k - 1);
+				connectingStations[--degree] = null;
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
-	 * Method to check if station has been visited
-	 * @return boolean value if been visited or not
+	 * Method to add a {@link line}line, replacing any line of the same name
+	 * @param line name of type Line
+	 * @see MetroLine
 	 */
-	public boolean isVisited(){
-		return isVisited;
+	public void addLine(MetroLine line){
+		int k = findLine(line.toString());
+		if (k != -1) {
+			lines[k] = line;
+			return;
+		}
+		lines = Arrays.copyOf(lines, lines.length + 1);
+		lines[lines.length - 1] = line;
 	}
-	
+
 	/**
-	 * Mutator to mark a station has been visited
+	 * Method to remove a line once this station is no longer on it
+	 * @param line the line
+	 * @see MetroLine
 	 */
-	public void markVisited(){
-		isVisited = true;
+	public void removeLine(MetroLine line){
+		int k = findLine(line.toString());
+		if (k == -1) {
+			return;
+		}
+		if (lines.length == 1) {
+			lines = NO_LINES;
+			return;
+		}
+		MetroLine[] kept = new MetroLine[lines.length - 1];
+		System.arraycopy(lines, 0, kept, 0, k);
+		System.arraycopy(lines, k + 1, kept, k, kept.length - k);
+		lines = kept;
 	}
-	
-	/**
-	 * Mutator method to reset visited, in preparation of the next execution
+
+	/*
+	 * Finds the position of the line of a name, -1 if the station is not on it.
 	 */
-	public void resetVisited(){
-		isVisited = false;
+	private int findLine(String lineName) {
+		for (int k = 0; k < lines.length; k++) {
+			if (lines[k].toString().equals(lineName)) {
+				return k;
+			}
+		}
+		return -1;
 	}
+
 	/**
 	 * Method to add the station specified in parameter to the front of array list containing connecting Stations
 	 */
@@ -159,4 +223,78 @@ public class MetroStation {
 			return false;
 		return true;
 	}
+
+	/**
+	 * A read-only map of the lines through the station by name, reading the line array as it is when used
+	 */
+	private final class LineView extends AbstractMap<String, MetroLine> {
+
+		@Override
+		public MetroLine get(Object key) {
+			int k = key instanceof String ? findLine((String) key) : -1;
+			return k == -1 ? null : lines[k];
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return lines.length;
+		}
+
+		@Override
+		public Set<Map.Entry<String, MetroLine>> entrySet() {
+			return new AbstractSet<Map.Entry<String, MetroLine>>() {
+
+				@Override
+				public Iterator<Map.Entry<String, MetroLine>> iterator() {
+					MetroLine[] snapshot = lines;
+					return new Iterator<Map.Entry<String, MetroLine>>() {
+						private int k;
+
+						@Override
+						public boolean hasNext() {
+							return k < snapshot.length;
+						}
+
+						@Override
+						public Map.Entry<String, MetroLine> next() {
+							if (k == snapshot.length) {
+								throw new NoSuchElementException();
+							}
+							MetroLine line = snapshot[k++];
+							return new AbstractMap.SimpleImmutableEntry<>(line.toString(), line);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return lines.length;
+				}
+			};
+		}
+	}
+
+	/**
+	 * A read-only list of the connecting stations, reading the station array as it is when used
+	 */
+	private final class StationView extends AbstractList<MetroStation> {
+
+		@Override
+		public MetroStation get(int k) {
+			if (k < 0 || k >= degree) {
+				throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + degree);
+			}
+			return connectingStations[k];
+		}
+
+		@Override
+		public int size() {
+			return degree;
+		}
+	}
 }
\ No newline at end of file
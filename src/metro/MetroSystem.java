@@ -1,6 +1,8 @@
 package metro;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,10 +19,13 @@ public class MetroSystem {
 	private Map<String, MetroLine> lines;
 	//map of stations
 	private Map<String, MetroStation> stations;
+	//stations in the order they were added, position is the station index
+	private List<MetroStation> stationIndex;
 
 	public MetroSystem(){
 		lines = new HashMap<>();
 		stations = new HashMap<>();
+		stationIndex = new ArrayList<>();
 	}
 
 	/**
@@ -52,12 +57,177 @@ public class MetroSystem {
 	}
 	
 	/**
-	 * method to get a station name from the map
+	 * method to get a station by its dense index
+	 * @param index of the station, as returned by {@link MetroStation#getIndex()}
+	 * @return the {@link MetroStation}
+	 * @see MetroStation
+	 */
+	public MetroStation getStation(int index){
+		return stationIndex.get(index);
+	}
+
+	/**
+	 * method to return the number of stations, every station index is below this value
+	 * @return number of stations in the map
+	 */
+	public int stationCount(){
+		return stationIndex.size();
+	}
+	
+	/**
+	 * method to add a station to the map, a new station is given the next free index
 	 * @param station name of the station
 	 * @see MetroStation
 	 */
 	public void addStation(MetroStation station){
-		stations.put(station.toString(), station);
+		if (stations.put(station.toString(), station) == null) {
+			station.setIndex(stationIndex.size());
+			stationIndex.add(station);
+		}
+	}
+
+	/**
+	 * Adds a new line calling at the specified stations in order, creating any station not yet in the system.
+	 * The stations are linked along the line and every line sharing one of them is connected to it
+	 * @param name of the new line
+	 * @param stationNames the stations of the line in order
+	 * @return the new {@link MetroLine}
+	 * @throws IllegalArgumentException if a line of that name already exists
+	 * @see MetroLine
+	 */
+	public MetroLine addLine(String name, List<String> stationNames) {
+		if (lines.containsKey(name)) {
+			throw new IllegalArgumentException("Line already exists: " + name);
+		}
+		MetroLine line = new MetroLine(name);
+		for (String stationName : stationNames) {
+			line.insertStation(line.getSize(), stationOrNew(stationName));
+		}
+		addLine(line);
+		return line;
+	}
+
+	/**
+	 * Inserts a station into a line, creating the station if it is not yet in the system
+	 * @param lineName name of the line
+	 * @param position index the station takes on the line, from 0 to the size of the line
+	 * @param stationName name of the station
+	 * @return the inserted {@link MetroStation}
+	 * @throws IllegalArgumentException if there is no such line
+	 * @throws IndexOutOfBoundsException if the position is outside the line
+	 * @see MetroLine#insertStation(int, MetroStation)
+	 */
+	public MetroStation insertStation(String lineName, int position, String stationName) {
+		MetroLine line = requireLine(lineName);
+		if (position < 0 || position > line.getSize()) {
+			throw new IndexOutOfBoundsException("Position " + position + " on " + lineName + " of " + line.getSize() + " stations");
+		}
+		MetroStation station = stationOrNew(stationName);
+		line.insertStation(position, station);
+		return station;
+	}
+
+	/**
+	 * Removes a station from every line it is on and from the system, trains run through from the
+	 * station before it to the station after it. The last station takes over the index of the removed
+	 * one, so station indices stay dense
+	 * @param name of the station
+	 * @return the removed {@link MetroStation}
+	 * @throws IllegalArgumentException if there is no such station
+	 */
+	public MetroStation removeStation(String name) {
+		MetroStation station = stations.get(name);
+		if (station == null) {
+			throw new IllegalArgumentException("No such station: " + name);
+		}
+		for (MetroLine line : new ArrayList<>(station.getLines().values())) {
+			for (int position = line.indexOf(station); position != -1; position = line.indexOf(station)) {
+				line.removeStation(position);
+			}
+		}
+
+		// O(1)
+		// Moves the last station into the hole
+		stations.remove(name);
+		int index = station.getIndex();
+		MetroStation last = stationIndex.remove(stationIndex.size() - 1);
+		if (last != station) {
+			stationIndex.set(index, last);
+			last.setIndex(index);
+		}
+		station.setIndex(-1);
+		return station;
+	}
+
+	/**
+	 * Closes the segment between two adjacent stations of a line. The line is split in two at the
+	 * closure: it keeps its name and the stations up to the closure, a new line named after the line
+	 * and its new termini takes the stations beyond it to the end of their run, with the branches only
+	 * they are joined to. A loop, or a line whose branches still join the two sides of the closure, keeps
+	 * all its stations instead
+	 * @param lineName name of the line
+	 * @param stationA name of a station at one end of the segment
+	 * @param stationB name of the station at the other end
+	 * @return the new {@link MetroLine} beyond the closure, or null if the line was not split
+	 * @throws IllegalArgumentException if there is no such line or the stations are not adjacent on it
+	 */
+	public MetroLine closeSegment(String lineName, String stationA, String stationB) {
+		MetroLine line = requireLine(lineName);
+		MetroStation a = stations.get(stationA);
+		MetroStation b = stations.get(stationB);
+
+		// O(n)
+		// The first place the line runs between the two stations, in either direction
+		int position = -1;
+		for (int i = 0; i + 1 < line.getSize() && a != null && b != null; i++) {
+			MetroStation here = line.getStation(i);
+			MetroStation next = line.getStation(i + 1);
+			if (line.isLinked(i) && ((here == a && next == b) || (here == b && next == a))) {
+				position = i;
+				break;
+			}
+		}
+		if (position == -1) {
+			throw new IllegalArgumentException(stationA + " and " + stationB + " are not adjacent on " + lineName);
+		}
+
+		// The tail runs to the end of the run, which is the end of the line unless a branch follows
+		int end = position + 1;
+		while (line.isLinked(end)) {
+			end++;
+		}
+		String tailName = lineName + " (" + line.getStation(position + 1) + " - " + line.getStation(end) + ")";
+		for (int n = 2; lines.containsKey(tailName); n++) {
+			tailName = lineName + " (" + line.getStation(position + 1) + " - " + line.getStation(end) + ") " + n;
+		}
+		MetroLine tail = line.splitAfter(position, tailName);
+		if (tail != null) {
+			addLine(tail);
+		}
+		return tail;
+	}
+
+	/*
+	 * Finds a line, failing if there is none of that name.
+	 */
+	private MetroLine requireLine(String name) {
+		MetroLine line = lines.get(name);
+		if (line == null) {
+			throw new IllegalArgumentException("No such line: " + name);
+		}
+		return line;
+	}
+
+	/*
+	 * Finds a station, adding a new one if there is none of that name.
+	 */
+	private MetroStation stationOrNew(String name) {
+		MetroStation station = stations.get(name);
+		if (station == null) {
+			station = new MetroStation(name);
+			addStation(station);
+		}
+		return station;
 	}
 
 	/**
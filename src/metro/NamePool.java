@@ -0,0 +1,36 @@
+package metro;
+
+/**
+ * The pool of station and line names shared by the networks loaded into one process, so a name used
+ * by several networks, such as a station kept from one version of a network to the next, is held once.
+ * <p>
+ * Names are pooled in the JVM's own string table, which any number of threads can use at once and
+ * which holds its names weakly, so a name no graph uses any more is collected with the last network
+ * using it. Each name costs a few bytes of the table off the heap, where a map of weak references on
+ * the heap took more than the copies of the names it saved.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class NamePool {
+
+	/**
+	 * Finds the pooled name equal to a name, pooling the name if there is none
+	 * @param name a name
+	 * @return the pooled name
+	 */
+	public String intern(String name) {
+		return name.intern();
+	}
+
+	/**
+	 * Replaces every name of an array with the pooled name equal to it
+	 * @param names names, replaced in place
+	 */
+	public void intern(String[] names) {
+		// O(n)
+		for (int i = 0; i < names.length; i++) {
+			names[i] = intern(names[i]);
+		}
+	}
+}
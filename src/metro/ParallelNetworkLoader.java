@@ -0,0 +1,447 @@
+package metro;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Loads a {@link MetroSystem} from the same csv files as {@link CsvNetworkLoader}, using several threads.
+ * <p>
+ * The file is read whole and cut into chunks at row breaks. Each chunk is parsed on its own thread,
+ * building the station list of each of its lines and interning station names in a striped table, so
+ * threads only contend when two names fall in the same stripe. A short merge then walks the rows in
+ * file order, numbering each station the first time a row calls at it and adding the lines, a row naming
+ * a line already added being added to it as a branch. The lines
+ * of each station, its adjacent stations and the connections of each line are then filled in parallel,
+ * every station and every line being written by one thread only.
+ * <p>
+ * The result is the same as {@link CsvNetworkLoader#load()}, down to the station indices and the order
+ * of adjacent stations, so a graph built from either is identical.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class ParallelNetworkLoader {
+
+	//chunks or ranges handed out per thread, so a slow chunk does not hold the others up
+	private static final int TASKS_PER_THREAD = 4;
+
+	//file to read
+	private final String path;
+	//threads used to load
+	private final int parallelism;
+
+	/**
+	 * Constructs a new {@link ParallelNetworkLoader} for the specified file, using every core
+	 * @param path of the csv file
+	 */
+	public ParallelNetworkLoader(String path) {
+		this(path, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a new {@link ParallelNetworkLoader} for the specified file
+	 * @param path of the csv file
+	 * @param parallelism number of threads to load with
+	 * @throws IllegalArgumentException if parallelism is below 1
+	 */
+	public ParallelNetworkLoader(String path, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism " + parallelism);
+		}
+		this.path = path;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Reads the file and builds the system, including the adjacent stations and connections of every line
+	 * @return the loaded {@link MetroSystem}
+	 * @throws IOException if the file cannot be read, or a branch does not start on its line
+	 */
+	public MetroSystem load() throws IOException {
+		byte[] data = Files.readAllBytes(Paths.get(path));
+		ExecutorService pool = Executors.newFixedThreadPool(parallelism, task -> {
+			Thread thread = new Thread(task, "network-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			return build(data, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/*
+	 * Builds the system from the whole file.
+	 */
+	private MetroSystem build(byte[] data, ExecutorService pool) throws IOException {
+		int tasks = parallelism * TASKS_PER_THREAD;
+
+		// O(n / p)
+		// Each chunk parses its rows and interns their stations
+		int[] bounds = chunkBounds(data, tasks);
+		StationTable table = new StationTable();
+		List<List<Row>> chunks = new ArrayList<>(tasks);
+		for (int t = 0; t < tasks; t++) {
+			chunks.add(null);
+		}
+		run(pool, tasks, t -> chunks.set(t, new ChunkParser(data, table).parse(bounds[t], bounds[t + 1])));
+		List<Row> rows = new ArrayList<>();
+		for (List<Row> chunk : chunks) {
+			rows.addAll(chunk);
+		}
+
+		// O(n)
+		// Stations are numbered the first time a row calls at them, as a single pass would number them
+		MetroSystem system = new MetroSystem();
+		for (Row row : rows) {
+			for (MetroStation station : row.stations) {
+				if (station.getIndex() == -1) {
+					system.addStation(station);
+				}
+			}
+		}
+		for (Row row : rows) {
+			MetroLine known = system.getOneLine(row.line.toString());
+			if (known == null) {
+				system.addLine(row.line);
+			} else {
+				if (row.stations.length > 0 && known.indexOf(row.stations[0]) == -1) {
+					throw new IOException("Branch of " + known + " does not start on the line: " + row.stations[0]);
+				}
+				known.addBranch();
+				for (MetroStation station : row.stations) {
+					known.addStation(station);
+				}
+				row.line = known;
+			}
+		}
+
+		// Rank of each line in the system's line map, the order a single pass links stations in
+		Map<MetroLine, Integer> ranks = new IdentityHashMap<>();
+		for (MetroLine line : system.getLines().values()) {
+			ranks.put(line, ranks.size());
+		}
+		for (Row row : rows) {
+			row.rank = ranks.get(row.line);
+		}
+
+		// O(n)
+		// Every place each station appears, grouped by station in row order
+		int stationCount = system.stationCount();
+		int[] occurrenceOffsets = new int[stationCount + 1];
+		for (Row row : rows) {
+			for (MetroStation station : row.stations) {
+				occurrenceOffsets[station.getIndex() + 1]++;
+			}
+		}
+		for (int s = 0; s < stationCount; s++) {
+			occurrenceOffsets[s + 1] += occurrenceOffsets[s];
+		}
+		int[] fill = Arrays.copyOf(occurrenceOffsets, stationCount);
+		int[] occurrenceRows = new int[occurrenceOffsets[stationCount]];
+		int[] occurrencePositions = new int[occurrenceRows.length];
+		for (int r = 0; r < rows.size(); r++) {
+			MetroStation[] stations = rows.get(r).stations;
+			for (int i = 0; i < stations.length; i++) {
+				int at = fill[stations[i].getIndex()]++;
+				occurrenceRows[at] = r;
+				occurrencePositions[at] = i;
+			}
+		}
+
+		// O(n / p)
+		// Each station takes its lines and adjacent stations, only ever writing to itself
+		run(pool, tasks, t -> {
+			int[] order = new int[0];
+			for (int s = stationCount * t / tasks; s < stationCount * (t + 1) / tasks; s++) {
+				int from = occurrenceOffsets[s];
+				int count = occurrenceOffsets[s + 1] - from;
+				MetroStation station = system.getStation(s);
+				for (int i = from; i < from + count; i++) {
+					station.addLine(rows.get(occurrenceRows[i]).line);
+				}
+
+				// Neighbours are added line by line in map order, and by position within a line
+				if (order.length < count) {
+					order = new int[count * 2];
+				}
+				for (int i = 0; i < count; i++) {
+					int rank = rows.get(occurrenceRows[from + i]).rank;
+					int j = i;
+					while (j > 0 && rows.get(occurrenceRows[order[j - 1]]).rank > rank) {
+						order[j] = order[j - 1];
+						j--;
+					}
+					order[j] = from + i;
+				}
+				for (int i = 0; i < count; i++) {
+					Row row = rows.get(occurrenceRows[order[i]]);
+					int position = occurrencePositions[order[i]];
+					if (position > 0) {
+						station.addNextStation(row.stations[position - 1]);
+					}
+					if (position < row.stations.length - 1) {
+						station.addNextStation(row.stations[position + 1]);
+					}
+				}
+			}
+		});
+
+		// O(n / p)
+		// Each line takes the lines of its stations as connections, only ever writing to itself
+		MetroLine[] lines = system.getLines().values().toArray(new MetroLine[0]);
+		run(pool, tasks, t -> {
+			for (int l = lines.length * t / tasks; l < lines.length * (t + 1) / tasks; l++) {
+				for (MetroStation station : lines[l].getAllStations().values()) {
+					lines[l].addConnections(station.getLines());
+				}
+			}
+		});
+		return system;
+	}
+
+	/*
+	 * Cuts the file into chunks that each start at the beginning of a row.
+	 * @return the start of each chunk, followed by the length of the file
+	 */
+	private static int[] chunkBounds(byte[] data, int chunks) {
+		int[] bounds = new int[chunks + 1];
+		for (int t = 1; t < chunks; t++) {
+			int at = Math.max((int) ((long) data.length * t / chunks), bounds[t - 1]);
+			while (at > 0 && at < data.length && data[at - 1] != '\n') {
+				at++;
+			}
+			bounds[t] = at;
+		}
+		bounds[chunks] = data.length;
+		return bounds;
+	}
+
+	/*
+	 * Runs a task once for each number below tasks on the pool, waiting for all of them.
+	 */
+	private static void run(ExecutorService pool, int tasks, IntConsumer task) {
+		List<Callable<Void>> calls = new ArrayList<>(tasks);
+		for (int t = 0; t < tasks; t++) {
+			int number = t;
+			calls.add(() -> {
+				task.accept(number);
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> future : pool.invokeAll(calls)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Loading interrupted", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * A row of the file with a line name, and the stations it calls at in order
+	 */
+	private static final class Row {
+
+		//the row's own line, or the line it is a branch of once merged
+		private MetroLine line;
+		private final MetroStation[] stations;
+		//position of the line in the system's line map
+		private int rank;
+
+		private Row(MetroLine line, MetroStation[] stations) {
+			this.line = line;
+			this.stations = stations;
+		}
+	}
+
+	/**
+	 * Parses the rows of one chunk, the same way {@link CsvNetworkLoader} scans a whole file
+	 */
+	private static final class ChunkParser {
+
+		private final byte[] data;
+		private final StationTable table;
+		private final List<Row> rows = new ArrayList<>();
+		//line of the row being read, null before its name or for a row without one
+		private MetroLine line;
+		//stations of the row being read
+		private MetroStation[] stations = new MetroStation[16];
+		private int count;
+		//true until the first cell of a row has been read
+		private boolean newRow = true;
+
+		private ChunkParser(byte[] data, StationTable table) {
+			this.data = data;
+			this.table = table;
+		}
+
+		/**
+		 * @return the rows starting between from and to
+		 */
+		private List<Row> parse(int from, int to) {
+			int cellStart = from;
+			for (int pos = from; pos < to; pos++) {
+				byte b = data[pos];
+				if (b == ',' || b == '\n' || b == '\r') {
+					// A \r\n pair ends one row, the \n then only ends an empty one
+					if (b != '\n' || pos > cellStart || !newRow) {
+						cell(cellStart, pos);
+					}
+					if (b != ',') {
+						endRow();
+					}
+					cellStart = pos + 1;
+				}
+			}
+			//a last row without a line break
+			if (to == data.length && (to > cellStart || !newRow)) {
+				cell(cellStart, to);
+				endRow();
+			}
+			return rows;
+		}
+
+		/*
+		 * Handles one cell of the current row.
+		 */
+		private void cell(int from, int to) {
+			if (newRow) {
+				newRow = false;
+				line = from == to ? null : new MetroLine(new String(data, from, to - from, StandardCharsets.UTF_8));
+			} else if (line != null && from < to) {
+				MetroStation station = table.intern(data, from, to);
+				line.addStation(station);
+				if (count == stations.length) {
+					stations = Arrays.copyOf(stations, count * 2);
+				}
+				stations[count++] = station;
+			}
+		}
+
+		/*
+		 * Finishes the current row.
+		 */
+		private void endRow() {
+			if (line != null) {
+				rows.add(new Row(line, Arrays.copyOf(stations, count)));
+			}
+			line = null;
+			count = 0;
+			newRow = true;
+		}
+	}
+
+	/**
+	 * A table from the UTF-8 bytes of a station name to its station, safe for many threads.
+	 * It is split into stripes by hash, each an open addressing table behind its own lock
+	 */
+	private static final class StationTable {
+
+		//number of stripes, a power of two
+		private static final int STRIPES = 64;
+
+		private final Stripe[] stripes = new Stripe[STRIPES];
+
+		private StationTable() {
+			for (int i = 0; i < STRIPES; i++) {
+				stripes[i] = new Stripe();
+			}
+		}
+
+		/**
+		 * Finds the station named by a range of bytes, creating it the first time it is seen
+		 * @return the station with that name
+		 */
+		private MetroStation intern(byte[] buf, int from, int to) {
+			int hash = 0;
+			for (int i = from; i < to; i++) {
+				hash = 31 * hash + buf[i];
+			}
+			hash ^= hash >>> 16;
+			// The stripe takes the top bits, leaving the low bits to pick a slot
+			Stripe stripe = stripes[hash >>> 26];
+			synchronized (stripe) {
+				return stripe.intern(buf, from, to, hash);
+			}
+		}
+	}
+
+	/**
+	 * One stripe of a {@link StationTable}, kept at most half full
+	 */
+	private static final class Stripe {
+
+		private byte[][] keys = new byte[64][];
+		private int[] hashes = new int[64];
+		private MetroStation[] values = new MetroStation[64];
+		private int size;
+
+		private MetroStation intern(byte[] buf, int from, int to, int hash) {
+			int mask = keys.length - 1;
+			int slot = hash & mask;
+			while (keys[slot] != null) {
+				if (hashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, buf, from, to)) {
+					return values[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			MetroStation station = new MetroStation(new String(buf, from, to - from, StandardCharsets.UTF_8));
+			keys[slot] = Arrays.copyOfRange(buf, from, to);
+			hashes[slot] = hash;
+			values[slot] = station;
+			if (++size * 2 > keys.length) {
+				resize();
+			}
+			return station;
+		}
+
+		/*
+		 * Doubles the stripe.
+		 */
+		private void resize() {
+			byte[][] oldKeys = keys;
+			int[] oldHashes = hashes;
+			MetroStation[] oldValues = values;
+			keys = new byte[oldKeys.length * 2][];
+			hashes = new int[keys.length];
+			values = new MetroStation[keys.length];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					int slot = oldHashes[i] & mask;
+					while (keys[slot] != null) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					hashes[slot] = oldHashes[i];
+					values[slot] = oldValues[i];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,358 @@
+package metro;
+
+import java.util.Arrays;
+
+/**
+ * A path query engine over a {@link MetroGraph}, offering any path with a depth first search
+ * and a fewest-stops path with a bidirectional breadth first search.
+ * The graph is never marked during a search, all traversal state is kept in a per-thread
+ * {@link Workspace} keyed by station id, so any number of threads can query one shared graph.
+ * A visited station is recognised by carrying the current query's epoch, which means no clean up
+ * pass over every station is needed once a query is finished.
+ * <p>
+ * Paths are written as station ids into a buffer owned by the caller. Once each thread's workspace
+ * has grown to the size of the graph a query allocates nothing.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class PathSearch {
+
+	//the network being searched
+	private final MetroGraph graph;
+	//scratch arrays of each querying thread
+	private final ThreadLocal<Workspace> workspaces;
+
+	/**
+	 * Constructs a new {@link PathSearch} over the specified graph
+	 * @param graph the network to search
+	 */
+	public PathSearch(MetroGraph graph) {
+		this.graph = graph;
+		this.workspaces = ThreadLocal.withInitial(Workspace::new);
+	}
+
+	/**
+	 * Method to get the graph being searched
+	 * @return the {@link MetroGraph}
+	 */
+	public MetroGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * @return number of stations the calling thread's last query took off its stack or queues
+	 */
+	public int lastExpanded() {
+		return workspaces.get().expanded;
+	}
+
+	/**
+	 * Finds a path between two stations with a depth first search.
+	 * Adjacent stations are tried in the order they were connected, the first path reaching the end is returned
+	 * @param start id of the station to start from
+	 * @param end id of the station to reach
+	 * @param path buffer receiving the station ids along the path, including both ends
+	 * @return number of stations on the path, or -1 if the end cannot be reached.
+	 * 		If this is larger than the buffer nothing is written and the query can be repeated with a larger buffer
+	 */
+	public int findPath(int start, int end, int[] path) {
+		Workspace ws = workspaces.get();
+		int epoch = ws.begin(graph.stationCount());
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] stack = ws.stack;
+		int[] cursor = ws.cursor;
+		int[] visited = ws.visited;
+
+		int top = 0;
+		int expanded = 1;
+		stack[0] = start;
+		cursor[0] = offsets[start];
+		visited[start] = epoch;
+
+		// O(n)
+		// Each station is pushed at most once and each of its connections is looked at once
+		while (top >= 0 && stack[top] != end) {
+			if (cursor[top] == offsets[stack[top] + 1]) {
+				//no more adjacent stations left, go back a station
+				top--;
+			} else {
+				int next = targets[cursor[top]++];
+				if (visited[next] != epoch) {
+					visited[next] = epoch;
+					top++;
+					stack[top] = next;
+					cursor[top] = offsets[next];
+					expanded++;
+				}
+			}
+		}
+		ws.expanded = expanded;
+
+		if (top < 0) {
+			return -1;
+		}
+		if (top < path.length) {
+			System.arraycopy(stack, 0, path, 0, top + 1);
+		}
+		return top + 1;
+	}
+
+	/**
+	 * Finds a path with the fewest stops between two stations with a bidirectional breadth first search.
+	 * Each round expands one whole level of the smaller frontier, and the search stops at the end of
+	 * the first level in which the two frontiers meet
+	 * @param start id of the station to start from
+	 * @param end id of the station to reach
+	 * @param path buffer receiving the station ids along the path, including both ends
+	 * @return number of stations on the path, or -1 if the end cannot be reached.
+	 * 		If this is larger than the buffer nothing is written and the query can be repeated with a larger buffer
+	 */
+	public int findShortestPath(int start, int end, int[] path) {
+		Workspace ws = workspaces.get();
+		int epoch = ws.begin(graph.stationCount());
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] visited = ws.visited;
+		int[] backVisited = ws.backVisited;
+		int[] parent = ws.parent;
+		int[] backParent = ws.backParent;
+		int[] depth = ws.depth;
+		int[] backDepth = ws.backDepth;
+		int[] queue = ws.stack;
+		int[] backQueue = ws.cursor;
+
+		visited[start] = epoch;
+		parent[start] = -1;
+		depth[start] = 0;
+		backVisited[end] = epoch;
+		backParent[end] = -1;
+		backDepth[end] = 0;
+
+		int head = 0, tail = 0, backHead = 0, backTail = 0;
+		queue[tail++] = start;
+		backQueue[backTail++] = end;
+
+		//the station each side reaches the other through, and the length of the best path so far
+		int meetFrom = start == end ? start : -1;
+		int meetTo = meetFrom;
+		int best = meetFrom == -1 ? Integer.MAX_VALUE : 0;
+		int expanded = 0;
+
+		// O(n)
+		// Each station is queued at most once per side
+		while (best == Integer.MAX_VALUE && head < tail && backHead < backTail) {
+			boolean forward = tail - head <= backTail - backHead;
+			int[] q = forward ? queue : backQueue;
+			int[] seen = forward ? visited : backVisited;
+			int[] otherSeen = forward ? backVisited : visited;
+			int[] from = forward ? parent : backParent;
+			int[] dist = forward ? depth : backDepth;
+			int[] otherDist = forward ? backDepth : depth;
+			int qHead = forward ? head : backHead;
+			int qTail = forward ? tail : backTail;
+			int levelEnd = qTail;
+
+			expanded += levelEnd - qHead;
+			while (qHead < levelEnd) {
+				int current = q[qHead++];
+				for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+					int next = targets[e];
+					if (otherSeen[next] == epoch && dist[current] + 1 + otherDist[next] < best) {
+						//the frontiers meet, the rest of the level may still offer a shorter join
+						best = dist[current] + 1 + otherDist[next];
+						meetFrom = forward ? current : next;
+						meetTo = forward ? next : current;
+					}
+					if (seen[next] != epoch) {
+						seen[next] = epoch;
+						from[next] = current;
+						dist[next] = dist[current] + 1;
+						q[qTail++] = next;
+					}
+				}
+			}
+
+			if (forward) {
+				head = qHead;
+				tail = qTail;
+			} else {
+				backHead = qHead;
+				backTail = qTail;
+			}
+		}
+
+		ws.expanded = expanded;
+		if (meetFrom == -1) {
+			return -1;
+		}
+		int length = best + 1;
+		if (length > path.length) {
+			return length;
+		}
+
+		// Walks back to the start from the meeting point, then on to the end
+		int i = depth[meetFrom];
+		for (int s = meetFrom; s != -1; s = parent[s]) {
+			path[i--] = s;
+		}
+		if (meetTo != meetFrom) {
+			i = depth[meetFrom] + 1;
+			for (int s = meetTo; s != -1; s = backParent[s]) {
+				path[i++] = s;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Grows the fewest-stops paths from one station with a breadth first search, stopping as soon as
+	 * every wanted station is reached, so one search answers every pair sharing the origin
+	 * @param start id of the station to grow the tree from
+	 * @param ends ids of the stations paths are wanted to, repeats allowed
+	 * @param from index of the first wanted station in ends
+	 * @param to index after the last wanted station in ends
+	 * @param tree the tree to grow, whatever it held before is replaced
+	 */
+	public void growTree(int start, int[] ends, int from, int to, PathTree tree) {
+		int epoch = tree.begin(graph.stationCount(), start);
+		tree.expanded = 0;
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] reached = tree.reached;
+		int[] wanted = tree.wanted;
+		int[] parent = tree.parent;
+		int[] depth = tree.depth;
+		int[] queue = tree.queue;
+
+		// Each wanted station is counted once however often it is asked for
+		int remaining = 0;
+		for (int i = from; i < to; i++) {
+			if (wanted[ends[i]] != epoch) {
+				wanted[ends[i]] = epoch;
+				remaining++;
+			}
+		}
+
+		reached[start] = epoch;
+		parent[start] = -1;
+		depth[start] = 0;
+		if (wanted[start] == epoch) {
+			remaining--;
+		}
+		int head = 0, tail = 0;
+		queue[tail++] = start;
+
+		// O(n)
+		// Each station is queued at most once
+		while (remaining > 0 && head < tail) {
+			int current = queue[head++];
+			tree.expanded++;
+			for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+				int next = targets[e];
+				if (reached[next] != epoch) {
+					reached[next] = epoch;
+					parent[next] = current;
+					depth[next] = depth[current] + 1;
+					queue[tail++] = next;
+					if (wanted[next] == epoch) {
+						remaining--;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds every station within a number of stops of the nearest of some seed stations with a breadth
+	 * first search, which stops expanding at the bound rather than visiting the whole network
+	 * @param seeds ids of the stations to start from, repeats allowed
+	 * @param maxStops most stops from a seed, 0 reaches the seeds only
+	 * @param catchment receives the stations and their stops from the nearest seed, whatever it held before is replaced
+	 */
+	public void reachWithin(int[] seeds, int maxStops, Catchment catchment) {
+		int epoch = catchment.begin(graph.stationCount());
+		int[] offsets = graph.offsets();
+		int[] targets = graph.targets();
+		int[] reached = catchment.reached;
+		int[] distance = catchment.distance;
+		//the stations in the order reached double as the queue
+		int[] queue = catchment.order;
+
+		for (int seed : seeds) {
+			if (reached[seed] != epoch) {
+				catchment.add(seed, 0);
+			}
+		}
+
+		// O(n)
+		// Only stations within the bound are queued, those at the bound are not expanded
+		int head = 0;
+		while (head < catchment.size) {
+			int current = queue[head++];
+			int d = distance[current];
+			if (d == maxStops) {
+				// Every station still queued is at the bound too
+				break;
+			}
+			catchment.expanded++;
+			for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+				int next = targets[e];
+				if (reached[next] != epoch) {
+					catchment.add(next, d + 1);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Scratch state of one thread, reused by every query the thread runs
+	 */
+	private static final class Workspace {
+
+		//epoch stamp of each station, equal to the current epoch once visited
+		private int[] visited = new int[0];
+		//station id at each depth of the search, doubles as the forward queue
+		private int[] stack = new int[0];
+		//next adjacency entry to try at each depth of the search, doubles as the backward queue
+		private int[] cursor = new int[0];
+		//epoch stamp of each station reached from the end
+		private int[] backVisited = new int[0];
+		//station each station was reached from, on each side
+		private int[] parent = new int[0];
+		private int[] backParent = new int[0];
+		//stops from the start, and from the end, of each reached station
+		private int[] depth = new int[0];
+		private int[] backDepth = new int[0];
+		//stations expanded by the last query
+		private int expanded;
+		//stamp of the query in progress
+		private int epoch;
+
+		/**
+		 * Prepares the workspace for a new query
+		 * @param stations number of stations in the graph
+		 * @return the epoch marking stations visited by this query
+		 */
+		private int begin(int stations) {
+			if (visited.length < stations) {
+				visited = Arrays.copyOf(visited, stations);
+				backVisited = Arrays.copyOf(backVisited, stations);
+				stack = new int[stations];
+				cursor = new int[stations];
+				parent = new int[stations];
+				backParent = new int[stations];
+				depth = new int[stations];
+				backDepth = new int[stations];
+			}
+			// Wrapping around would make stale stamps look current, so start again from clean arrays
+			if (++epoch == 0) {
+				Arrays.fill(visited, 0);
+				Arrays.fill(backVisited, 0);
+				epoch = 1;
+			}
+			return epoch;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package metro;
+
+import java.util.Arrays;
+
+/**
+ * The fewest-stops paths from one origin to the stations reached from it, grown by
+ * {@link PathSearch#growTree(int, int[], int, int, PathTree)}. One tree answers every pair sharing
+ * its origin, which is what batch queries group their pairs by.
+ * <p>
+ * A tree is meant to be reused for origin after origin by one thread: growing it again only bumps
+ * an epoch, so nothing is cleared between origins.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class PathTree {
+
+	//epoch stamp of each station, equal to the current epoch once reached
+	int[] reached;
+	//epoch stamp of each station a path is wanted to
+	int[] wanted;
+	//station each station was reached from
+	int[] parent;
+	//stops from the origin of each reached station
+	int[] depth;
+	//stations in the order they were reached
+	int[] queue;
+	//stamp of the tree being grown
+	int epoch;
+	//the station the tree is grown from
+	int origin = -1;
+	//stations taken off the queue growing the tree
+	int expanded;
+
+	/**
+	 * Constructs an empty tree for a graph of the specified size
+	 * @param stations number of stations in the graph
+	 */
+	public PathTree(int stations) {
+		reached = new int[stations];
+		wanted = new int[stations];
+		parent = new int[stations];
+		depth = new int[stations];
+		queue = new int[stations];
+	}
+
+	/**
+	 * Prepares the tree to be grown from a new origin
+	 * @param stations number of stations in the graph
+	 * @param from the new origin
+	 * @return the epoch marking stations reached from it
+	 */
+	int begin(int stations, int from) {
+		if (reached.length < stations) {
+			reached = Arrays.copyOf(reached, stations);
+			wanted = Arrays.copyOf(wanted, stations);
+			parent = new int[stations];
+			depth = new int[stations];
+			queue = new int[stations];
+		}
+		// Wrapping around would make stale stamps look current, so start again from clean arrays
+		if (++epoch == 0) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(wanted, 0);
+			epoch = 1;
+		}
+		origin = from;
+		return epoch;
+	}
+
+	/**
+	 * @return id of the station the tree was last grown from, -1 before it is grown
+	 */
+	public int origin() {
+		return origin;
+	}
+
+	/**
+	 * @return number of stations taken off the queue growing the tree
+	 */
+	public int expanded() {
+		return expanded;
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return true if the tree holds a path to the station
+	 */
+	public boolean reaches(int station) {
+		return origin != -1 && reached[station] == epoch;
+	}
+
+	/**
+	 * @param station id of a station
+	 * @return number of stops from the origin to the station, or -1 if the tree does not reach it
+	 */
+	public int distance(int station) {
+		return reaches(station) ? depth[station] : -1;
+	}
+
+	/**
+	 * Writes the path from the origin to a station
+	 * @param end id of the station
+	 * @param path buffer receiving the station ids along the path, including both ends
+	 * @return number of stations on the path, or -1 if the tree does not reach the station.
+	 * 		If this is larger than the buffer nothing is written
+	 */
+	public int pathTo(int end, int[] path) {
+		if (!reaches(end)) {
+			return -1;
+		}
+		int length = depth[end] + 1;
+		if (length > path.length) {
+			return length;
+		}
+		int i = depth[end];
+		for (int s = end; i >= 0; s = parent[s]) {
+			path[i--] = s;
+		}
+		return length;
+	}
+}
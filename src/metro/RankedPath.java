@@ -0,0 +1,66 @@
+package metro;
+
+import java.util.Arrays;
+
+/**
+ * One of the alternative paths found by {@link KShortestPaths}, as station ids with its cost, which is
+ * the number of stops or the riding time in seconds depending on how the paths were ranked.
+ * Two paths are equal when they call at the same stations in the same order.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class RankedPath {
+
+	//station ids along the path, including both ends
+	final int[] stations;
+	//cost from the start to each station along the path
+	final int[] costs;
+	//index of the station the path branched off its parent at, its own spur searches start there
+	final int deviation;
+
+	RankedPath(int[] stations, int[] costs, int deviation) {
+		this.stations = stations;
+		this.costs = costs;
+		this.deviation = deviation;
+	}
+
+	/**
+	 * @return number of stations on the path, including both ends
+	 */
+	public int size() {
+		return stations.length;
+	}
+
+	/**
+	 * @param i position along the path, below {@link #size()}
+	 * @return id of the i-th station
+	 */
+	public int station(int i) {
+		return stations[i];
+	}
+
+	/**
+	 * @return the stations along the path as a new array
+	 */
+	public int[] stations() {
+		return stations.clone();
+	}
+
+	/**
+	 * @return cost of the whole path, in the unit the paths were ranked by
+	 */
+	public int cost() {
+		return costs[costs.length - 1];
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(stations);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof RankedPath && Arrays.equals(stations, ((RankedPath) obj).stations);
+	}
+}
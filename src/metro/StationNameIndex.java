@@ -0,0 +1,278 @@
+package metro;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * An index of the station names of a {@link MetroGraph}, for resolving names as people type them:
+ * exact matches that ignore case and spacing, prefix completion, and suggestions within a few typing
+ * mistakes.
+ * <p>
+ * Every name is folded to lower case with its runs of spaces collapsed, and the folded names are kept
+ * sorted next to their station ids. An exact match or the start of a completion is a binary search.
+ * The sorted names are also read as a trie, each node being the range of names sharing a prefix, so
+ * suggestions are found by walking that trie with one row of edit distances per level and leaving
+ * every branch that is already too far from the input. A typing mistake is a missing, extra or
+ * wrong character, or two neighbouring characters swapped.
+ * <p>
+ * An index is immutable and any number of threads can query it.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class StationNameIndex {
+
+	//folded names, sorted
+	private final String[] keys;
+	//station id of each folded name
+	private final int[] ids;
+	//the graph the names are from
+	private final MetroGraph graph;
+	//length of the longest folded name
+	private final int longest;
+
+	/**
+	 * Constructs the index of the station names of a graph
+	 * @param graph the network whose stations are looked up
+	 */
+	public StationNameIndex(MetroGraph graph) {
+		this.graph = graph;
+		int n = graph.stationCount();
+		String[] folded = new String[n];
+		Integer[] order = new Integer[n];
+		int max = 0;
+		for (int s = 0; s < n; s++) {
+			folded[s] = fold(graph.stationName(s));
+			order[s] = s;
+			max = Math.max(max, folded[s].length());
+		}
+
+		// O(n log n)
+		// Stations folding to the same name stay in id order
+		Arrays.sort(order, Comparator.<Integer, String>comparing(s -> folded[s]).thenComparingInt(s -> s));
+		keys = new String[n];
+		ids = new int[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = order[i];
+			keys[i] = folded[order[i]];
+		}
+		longest = max;
+	}
+
+	/**
+	 * Folds a name the way the index compares names: lower case, with surrounding spaces removed and
+	 * every run of spaces inside it taken as one
+	 * @param name a station name as typed
+	 * @return the folded name
+	 */
+	public static String fold(String name) {
+		StringBuilder sb = new StringBuilder(name.length());
+		boolean space = false;
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (Character.isWhitespace(c)) {
+				space = sb.length() > 0;
+			} else {
+				if (space) {
+					sb.append(' ');
+					space = false;
+				}
+				sb.append(Character.toLowerCase(c));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Method to get the graph the names are from
+	 * @return the {@link MetroGraph}
+	 */
+	public MetroGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Finds the station a name means, ignoring case and spacing.
+	 * When several stations fold to the same name, the one spelt exactly as given is preferred
+	 * @param name a station name as typed
+	 * @return the station id, or -1 if no station has that name
+	 */
+	public int find(String name) {
+		String key = fold(name);
+		// O(log n)
+		int i = lowerBound(key);
+		int found = -1;
+		for (; i < keys.length && keys[i].equals(key); i++) {
+			if (graph.stationName(ids[i]).equals(name)) {
+				return ids[i];
+			}
+			if (found == -1) {
+				found = ids[i];
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Lists the stations whose names start with a prefix, ignoring case and spacing
+	 * @param prefix the start of a name as typed
+	 * @param limit most stations to list
+	 * @return ids of the stations, in order of their folded names
+	 */
+	public int[] complete(String prefix, int limit) {
+		String key = fold(prefix);
+		// O(log n + limit)
+		int from = lowerBound(key);
+		int to = from;
+		while (to < keys.length && to - from < limit && keys[to].startsWith(key)) {
+			to++;
+		}
+		return Arrays.copyOfRange(ids, from, to);
+	}
+
+	/**
+	 * Lists the stations whose names are within a number of typing mistakes of a name, ignoring case
+	 * and spacing. A mistake is a missing, extra or wrong character, or two neighbouring characters swapped
+	 * @param name a station name as typed
+	 * @param maxEdits most mistakes allowed
+	 * @param limit most stations to list
+	 * @return ids of the stations, closest first, then in order of their folded names
+	 */
+	public int[] suggest(String name, int maxEdits, int limit) {
+		String query = fold(name);
+		int m = query.length();
+		int[][] rows = new int[longest + 1][m + 1];
+		for (int k = 0; k <= m; k++) {
+			rows[0][k] = k;
+		}
+
+		// Wider walks cost more, so mistakes are allowed one at a time until enough names are found
+		Walk walk = null;
+		for (int edits = 0; edits <= maxEdits && (walk == null || walk.size < limit); edits++) {
+			walk = new Walk(query, edits, rows);
+			if (keys.length > 0) {
+				walk.visit(0, keys.length, 0);
+			}
+		}
+
+		// Closest first, names in order within a distance
+		long[] found = walk == null ? new long[0] : Arrays.copyOf(walk.found, walk.size);
+		Arrays.sort(found);
+		int[] suggestions = new int[Math.min(limit, found.length)];
+		for (int i = 0; i < suggestions.length; i++) {
+			suggestions[i] = ids[(int) found[i]];
+		}
+		return suggestions;
+	}
+
+	/*
+	 * Finds the first folded name not below a key.
+	 */
+	private int lowerBound(String key) {
+		int lo = 0;
+		int hi = keys.length;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid].compareTo(key) < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * One walk of the trie for a suggestion query
+	 */
+	private final class Walk {
+
+		private final String query;
+		private final int maxEdits;
+		//edit distances from the query's prefixes to the trie prefix of each depth
+		private final int[][] rows;
+		//distance in the high half and position of the folded name in the low half of each match
+		private long[] found = new long[16];
+		private int size;
+
+		private Walk(String query, int maxEdits, int[][] rows) {
+			this.query = query;
+			this.maxEdits = maxEdits;
+			this.rows = rows;
+		}
+
+		/**
+		 * Visits the trie node of the names from lo to hi, which share their first depth characters
+		 */
+		private void visit(int lo, int hi, int depth) {
+			int m = query.length();
+			int[] row = rows[depth];
+
+			// Names ending here sort first
+			int i = lo;
+			boolean inBand = Math.abs(m - depth) <= maxEdits;
+			while (i < hi && keys[i].length() == depth) {
+				if (inBand && row[m] <= maxEdits) {
+					add((long) row[m] << 32 | i);
+				}
+				i++;
+			}
+
+			// Only distances within maxEdits of the diagonal can stay within maxEdits, the cells either
+			// side of that band are marked as too far so the next level reads nothing stale
+			int from = Math.max(1, depth + 1 - maxEdits);
+			int to = Math.min(m, depth + 1 + maxEdits);
+
+			// O(log n + maxEdits) per child
+			while (i < hi) {
+				char c = keys[i].charAt(depth);
+				int end = childEnd(i, hi, depth, c);
+				int[] next = rows[depth + 1];
+				next[0] = row[0] + 1;
+				if (from > 1) {
+					next[from - 1] = maxEdits + 1;
+				}
+				if (to < m) {
+					next[to + 1] = maxEdits + 1;
+				}
+				int best = next[0];
+				for (int k = from; k <= to; k++) {
+					char q = query.charAt(k - 1);
+					int d = Math.min(Math.min(row[k] + 1, next[k - 1] + 1), row[k - 1] + (q == c ? 0 : 1));
+					// Two neighbouring characters typed the other way round
+					if (k > 1 && depth > 0 && q == keys[i].charAt(depth - 1) && query.charAt(k - 2) == c) {
+						d = Math.min(d, rows[depth - 1][k - 2] + 1);
+					}
+					next[k] = d;
+					best = Math.min(best, d);
+				}
+				if (best <= maxEdits) {
+					visit(i, end, depth + 1);
+				}
+				i = end;
+			}
+		}
+
+		/*
+		 * Finds the end of the names from lo to hi whose character at depth is c, all of them being longer than depth.
+		 */
+		private int childEnd(int lo, int hi, int depth, char c) {
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (keys[mid].charAt(depth) <= c) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			return lo;
+		}
+
+		private void add(long match) {
+			if (size == found.length) {
+				found = Arrays.copyOf(found, size * 2);
+			}
+			found[size++] = match;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package metro;
+
+/**
+ * A route found by {@link FastestRouteSearch}: the stations passed, the line ridden into each of
+ * them, and the total travel time including interchange penalties.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class TimedRoute {
+
+	private final int[] stations;
+	private final int[] lines;
+	private final int seconds;
+	private final int interchanges;
+
+	TimedRoute(int[] stations, int[] lines, int seconds, int interchanges) {
+		this.stations = stations;
+		this.lines = lines;
+		this.seconds = seconds;
+		this.interchanges = interchanges;
+	}
+
+	/**
+	 * @return number of stations on the route, including both ends
+	 */
+	public int size() {
+		return stations.length;
+	}
+
+	/**
+	 * @param i position along the route
+	 * @return id of the i-th station
+	 */
+	public int station(int i) {
+		return stations[i];
+	}
+
+	/**
+	 * @param i position along the route
+	 * @return id of the line ridden into the i-th station, for the first station the line boarded
+	 */
+	public int line(int i) {
+		return lines[i];
+	}
+
+	/**
+	 * @return total travel time in seconds
+	 */
+	public int seconds() {
+		return seconds;
+	}
+
+	/**
+	 * @return number of changes of line
+	 */
+	public int interchanges() {
+		return interchanges;
+	}
+}
@@ -0,0 +1,66 @@
+package metro;
+
+/**
+ * A route found by {@link LineGraph}: the lines ridden in order, and the stations passed riding them
+ * with the line ridden into each.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class TransferRoute {
+
+	private final int[] stations;
+	private final int[] ridden;
+	private final int[] lines;
+
+	TransferRoute(int[] stations, int[] ridden, int[] lines) {
+		this.stations = stations;
+		this.ridden = ridden;
+		this.lines = lines;
+	}
+
+	/**
+	 * @return number of stations on the route, including both ends
+	 */
+	public int size() {
+		return stations.length;
+	}
+
+	/**
+	 * @param i position along the route
+	 * @return id of the i-th station
+	 */
+	public int station(int i) {
+		return stations[i];
+	}
+
+	/**
+	 * @param i position along the route
+	 * @return id of the line ridden into the i-th station, for the first station the line boarded
+	 */
+	public int line(int i) {
+		return ridden[i];
+	}
+
+	/**
+	 * @return number of lines ridden
+	 */
+	public int legs() {
+		return lines.length;
+	}
+
+	/**
+	 * @param i index below {@link #legs()}
+	 * @return id of the i-th line ridden
+	 */
+	public int leg(int i) {
+		return lines[i];
+	}
+
+	/**
+	 * @return number of changes of line
+	 */
+	public int transfers() {
+		return lines.length - 1;
+	}
+}
@@ -0,0 +1,129 @@
+package metro;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Travel times of a network: the minutes between adjacent stations of a line, and the penalty for
+ * changing line at an interchange. Segments without a time of their own take the default time.
+ * <p>
+ * Times are read from a csv where {@code #} starts a comment and each row is one of
+ * <pre>
+ * default,2.5                      minutes of a segment without its own time
+ * interchange,5                    minutes added for every change of line, walkable links included
+ * Island Line,Central,Admiralty,2  minutes between two adjacent stations of a line, either way
+ * </pre>
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class TravelTimes {
+
+	//minutes between stations when nothing else is known
+	public static final double DEFAULT_SEGMENT_MINUTES = 2;
+	//minutes to change line when nothing else is known
+	public static final double DEFAULT_INTERCHANGE_MINUTES = 5;
+
+	//seconds of a segment without its own time
+	private int segmentSeconds;
+	//seconds added for every change of line
+	private int interchangeSeconds;
+	//seconds of each timed segment, keyed by line and both station names
+	private final Map<String, Integer> segments;
+
+	/**
+	 * Constructs {@link TravelTimes} giving every segment the same time
+	 * @param segmentMinutes minutes between adjacent stations
+	 * @param interchangeMinutes minutes added for every change of line
+	 */
+	public TravelTimes(double segmentMinutes, double interchangeMinutes) {
+		segmentSeconds = seconds(segmentMinutes);
+		interchangeSeconds = seconds(interchangeMinutes);
+		segments = new HashMap<>();
+	}
+
+	/**
+	 * Reads travel times from a csv
+	 * @param path of the csv
+	 * @return the times, starting from the defaults of this class
+	 * @throws IOException if the file cannot be read or a row is not understood
+	 */
+	public static TravelTimes load(String path) throws IOException {
+		TravelTimes times = new TravelTimes(DEFAULT_SEGMENT_MINUTES, DEFAULT_INTERCHANGE_MINUTES);
+		String sentence;
+		int row = 0;
+		try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+			while ((sentence = br.readLine()) != null) {
+				row++;
+				int comment = sentence.indexOf('#');
+				if (comment >= 0) {
+					sentence = sentence.substring(0, comment);
+				}
+				if (sentence.trim().isEmpty()) {
+					continue;
+				}
+				String[] temp = sentence.split(",");
+				try {
+					if (temp.length == 2 && temp[0].trim().equals("default")) {
+						times.segmentSeconds = seconds(Double.parseDouble(temp[1].trim()));
+					} else if (temp.length == 2 && temp[0].trim().equals("interchange")) {
+						times.interchangeSeconds = seconds(Double.parseDouble(temp[1].trim()));
+					} else if (temp.length == 4) {
+						times.setSegment(temp[0], temp[1], temp[2], Double.parseDouble(temp[3].trim()));
+					} else {
+						throw new IOException("Row " + row + " of " + path + " is not a travel time: " + sentence);
+					}
+				} catch (IllegalArgumentException e) {
+					throw new IOException("Row " + row + " of " + path + " has a bad time: " + sentence, e);
+				}
+			}
+		}
+		return times;
+	}
+
+	/**
+	 * Sets the time between two adjacent stations of a line, in both directions
+	 * @param line name of the line
+	 * @param stationA name of a station
+	 * @param stationB name of the adjacent station
+	 * @param minutes travel time
+	 */
+	public void setSegment(String line, String stationA, String stationB, double minutes) {
+		segments.put(key(line, stationA, stationB), seconds(minutes));
+	}
+
+	/**
+	 * @param line name of the line
+	 * @param stationA name of a station
+	 * @param stationB name of the adjacent station
+	 * @return seconds between the two stations on the line
+	 */
+	public int segmentSeconds(String line, String stationA, String stationB) {
+		Integer seconds = segments.get(key(line, stationA, stationB));
+		return seconds == null ? segmentSeconds : seconds;
+	}
+
+	/**
+	 * @return seconds added for every change of line
+	 */
+	public int interchangeSeconds() {
+		return interchangeSeconds;
+	}
+
+	private static String key(String line, String stationA, String stationB) {
+		// The same key either way along the line
+		return stationA.compareTo(stationB) <= 0
+				? line + '\u0000' + stationA + '\u0000' + stationB
+				: line + '\u0000' + stationB + '\u0000' + stationA;
+	}
+
+	private static int seconds(double minutes) {
+		if (minutes < 0 || Double.isNaN(minutes)) {
+			throw new IllegalArgumentException("Travel time must not be negative: " + minutes);
+		}
+		return (int) Math.round(minutes * 60);
+	}
+}
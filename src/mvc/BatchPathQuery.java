@@ -0,0 +1,154 @@
+package mvc;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import metro.MetroGraph;
+import metro.PathSearch;
+import metro.PathTree;
+import metrics.Metrics;
+
+/**
+ * Answers many path queries in one pass for {@link WorkingController}. The pairs are grouped by
+ * origin and each group is answered from one search grown from its origin, so the work grows with
+ * the number of origins rather than the number of pairs. Groups are spread over a fork join pool,
+ * each worker reusing one {@link PathTree}.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+final class BatchPathQuery {
+
+	//most pairs a single task answers before its groups are split between workers
+	private static final int PAIRS_PER_TASK = 256;
+
+	private final MetroGraph graph;
+	private final PathSearch pathSearch;
+	private final List<StationPair> pairs;
+	//ids of the end stations, ordered by origin
+	private final int[] ends;
+	//index into pairs of each entry of ends
+	private final int[] order;
+	//first entry of each origin's group, and one past the last group
+	private final int[] groups;
+	//id of the origin of each group
+	private final int[] origins;
+	private final PathResult[] results;
+	//tree reused by each worker
+	private final ThreadLocal<PathTree> trees;
+
+	/**
+	 * Resolves the station names of every pair and groups the pairs by origin
+	 * @param graph	the network
+	 * @param pathSearch	the search to grow trees with
+	 * @param pairs	the queries
+	 */
+	BatchPathQuery(MetroGraph graph, PathSearch pathSearch, List<StationPair> pairs) {
+		this.graph = graph;
+		this.pathSearch = pathSearch;
+		this.pairs = pairs;
+		this.results = new PathResult[pairs.size()];
+		this.trees = ThreadLocal.withInitial(() -> new PathTree(graph.stationCount()));
+
+		// O(p log p)
+		// Sorting origin and index packed into one long keeps pairs of an origin in their given order
+		long[] keys = new long[pairs.size()];
+		int[] endOf = new int[pairs.size()];
+		int valid = 0;
+		for (int i = 0; i < pairs.size(); i++) {
+			StationPair pair = pairs.get(i);
+			int start = graph.stationId(pair.from());
+			int end = graph.stationId(pair.to());
+			if (start == -1 || end == -1) {
+				results[i] = PathResult.unknown(graph, PathResult.Kind.SHORTEST, pair.from(), pair.to());
+			} else {
+				endOf[i] = end;
+				keys[valid++] = ((long) start << 32) | i;
+			}
+		}
+		Arrays.sort(keys, 0, valid);
+
+		ends = new int[valid];
+		order = new int[valid];
+		int[] starts = new int[valid + 1];
+		int[] startIds = new int[valid];
+		int groupCount = 0;
+		for (int k = 0; k < valid; k++) {
+			order[k] = (int) keys[k];
+			ends[k] = endOf[order[k]];
+			if (k == 0 || (keys[k] >>> 32) != (keys[k - 1] >>> 32)) {
+				startIds[groupCount] = (int) (keys[k] >>> 32);
+				starts[groupCount++] = k;
+			}
+		}
+		starts[groupCount] = valid;
+		groups = Arrays.copyOf(starts, groupCount + 1);
+		origins = Arrays.copyOf(startIds, groupCount);
+	}
+
+	/**
+	 * Answers every pair
+	 * @param pool	the pool to spread the groups over
+	 * @return a result for each pair, in the order the pairs were given
+	 */
+	List<PathResult> run(ForkJoinPool pool) {
+		if (groups.length > 1) {
+			pool.invoke(new Task(0, groups.length - 1));
+		}
+		return Arrays.asList(results);
+	}
+
+	/*
+	 * Answers every pair of one origin's group from a single tree.
+	 */
+	private void answer(int group, PathTree tree) {
+		int first = groups[group];
+		int last = groups[group + 1];
+		pathSearch.growTree(origins[group], ends, first, last, tree);
+		Metrics.expanded(Metrics.Operation.BATCH_PATHS, tree.expanded());
+		for (int k = first; k < last; k++) {
+			StationPair pair = pairs.get(order[k]);
+			int distance = tree.distance(ends[k]);
+			PathResult result;
+			if (distance == -1) {
+				result = PathResult.noPath(graph, PathResult.Kind.SHORTEST, pair.from(), pair.to());
+			} else {
+				int[] path = new int[distance + 1];
+				tree.pathTo(ends[k], path);
+				result = PathResult.path(graph, PathResult.Kind.SHORTEST, pair.from(), pair.to(), path);
+			}
+			results[order[k]] = result;
+		}
+	}
+
+	/**
+	 * A range of groups, split in halves until few enough pairs are left for one worker
+	 */
+	private final class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+
+		private Task(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1 && groups[to] - groups[from] > PAIRS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Task(from, middle), new Task(middle, to));
+				return;
+			}
+			PathTree tree = trees.get();
+			for (int group = from; group < to; group++) {
+				answer(group, tree);
+			}
+		}
+	}
+}
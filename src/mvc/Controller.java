@@ -3,6 +3,8 @@
  */
 package mvc;
 
+import java.util.List;
+
 /**
  * A controller for the MTR Information Centre system.
  * This controller includes the 4 features that the intended
@@ -27,7 +29,8 @@ public interface Controller {
 	String listStationsInLine(String line);
 
 	/**
-	 * Lists the name of the line(s) that is/are directly connected with the specified MTR line.
+	 * Lists the name of the line(s) that is/are directly connected with the specified MTR line,
+	 * in the order their first shared station comes along it.
 	 * @param line	a specified line in the MTR network
 	 * @return	a String representation of the name of the required line(s)
 	 */
@@ -41,4 +44,163 @@ public interface Controller {
 	 * @return	a String representation of a path between the specified stations
 	 */
 	String showPathBetween(String stationA, String stationB);
+
+	/**
+	 * Lists a path with the fewest stops between the specified stations.
+	 * The path is represented as a sequence of the name of the stations between the specified stations. 
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	a String representation of a shortest path between the specified stations
+	 */
+	String showShortestPathBetween(String stationA, String stationB);
+
+	/**
+	 * Lists the route with the least travel time between the specified stations.
+	 * The route is represented as a sequence of the name of the stations between the specified stations,
+	 * followed by its travel time.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	a String representation of the fastest route between the specified stations
+	 */
+	String showFastestPathBetween(String stationA, String stationB);
+
+	/**
+	 * Lists a route with the fewest changes of line between the specified stations.
+	 * The route is represented as a sequence of the name of the stations between the specified stations,
+	 * followed by the lines ridden.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	a String representation of the route with the fewest changes between the specified stations
+	 */
+	String showFewestTransfersBetween(String stationA, String stationB);
+
+	/**
+	 * Lists up to k distinct paths between the specified stations, best first, for when the usual
+	 * route is disrupted. No path calls at a station twice.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @param k	most paths to list, at least 1
+	 * @param kind	{@link PathResult.Kind#SHORTEST} to rank by stops, {@link PathResult.Kind#FASTEST} by riding time
+	 * @return	a String representation of the numbered paths
+	 */
+	String showAlternativePathsBetween(String stationA, String stationB, int k, PathResult.Kind kind);
+
+	/**
+	 * Lists every station within a number of stops of the specified station, nearest first.
+	 * @param station	the name of a station
+	 * @param stops	most stops away, 0 lists the station alone
+	 * @return	a String representation of the stations and their stops away
+	 */
+	String showStationsWithinStops(String station, int stops);
+
+	/**
+	 * Lists every station within a travel time of the specified station, nearest first,
+	 * counting the time of each segment and a penalty for every change of line.
+	 * @param station	the name of a station
+	 * @param minutes	most minutes away
+	 * @return	a String representation of the stations and their minutes away
+	 */
+	String showStationsWithinMinutes(String station, double minutes);
+
+	/**
+	 * Finds the station a name means, ignoring case and spacing, as every query does.
+	 * @param name	a station name as typed
+	 * @return	the name of the station as listed, or null if no station has that name
+	 */
+	String resolveStationName(String name);
+
+	/**
+	 * Lists the stations whose names start with the specified text, ignoring case and spacing.
+	 * @param prefix	the start of a station name
+	 * @param limit	most names to list
+	 * @return	the names, in alphabetical order
+	 */
+	List<String> completeStationName(String prefix, int limit);
+
+	/**
+	 * Lists the stations whose names are a few typing mistakes from the specified name.
+	 * @param name	a station name as typed
+	 * @param limit	most names to list
+	 * @return	the names, closest first
+	 */
+	List<String> suggestStationNames(String name, int limit);
+
+	/**
+	 * Gets the termini of every line in this MTR network, without formatting or timing.
+	 * @return	the termini of each line with stations, in the order the lines are listed
+	 */
+	List<Termini> getTermini();
+
+	/**
+	 * Gets the stations of the specified MTR line in their order, without formatting or timing.
+	 * @param line	a specified line in the MTR network
+	 * @return	the names of the stations, or null if it is not a line
+	 */
+	List<String> getStationsInLine(String line);
+
+	/**
+	 * Gets the lines sharing a station with the specified MTR line, without formatting or timing.
+	 * @param line	a specified line in the MTR network
+	 * @return	the names of the connected lines in the order their first shared station comes along the
+	 * line, or null if it is not a line
+	 */
+	List<String> getDirectlyConnectedLines(String line);
+
+	/**
+	 * Gets a path between the specified stations as station ids.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the path, or the reason there is none
+	 */
+	PathResult getPathBetween(String stationA, String stationB);
+
+	/**
+	 * Gets a path with the fewest stops between the specified stations as station ids.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the path, or the reason there is none
+	 */
+	PathResult getShortestPathBetween(String stationA, String stationB);
+
+	/**
+	 * Gets the route with the least travel time between the specified stations, with its lines and time.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the route, or the reason there is none
+	 */
+	PathResult getFastestPathBetween(String stationA, String stationB);
+
+	/**
+	 * Gets a route with the fewest changes of line between the specified stations, with its lines.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the route, or the reason there is none
+	 */
+	PathResult getFewestTransfersBetween(String stationA, String stationB);
+
+	/**
+	 * Gets up to k distinct paths between the specified stations as station ids, best first.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @param k	most paths wanted, at least 1
+	 * @param kind	{@link PathResult.Kind#SHORTEST} to rank by stops, {@link PathResult.Kind#FASTEST} by riding time
+	 * @return	the paths, or a single result giving the reason there is none
+	 */
+	List<PathResult> getAlternativePathsBetween(String stationA, String stationB, int k, PathResult.Kind kind);
+
+	/**
+	 * Gets every station within a number of stops of the nearest of the specified stations, as station ids.
+	 * @param stations	the names of the stations to start from
+	 * @param stops	most stops away
+	 * @return	the stations and their stops away, nearest first
+	 */
+	ReachResult getStationsWithinStops(List<String> stations, int stops);
+
+	/**
+	 * Gets every station within a travel time of the nearest of the specified stations, as station ids.
+	 * @param stations	the names of the stations to start from
+	 * @param minutes	most minutes away
+	 * @return	the stations and their seconds away, nearest first
+	 */
+	ReachResult getStationsWithinMinutes(List<String> stations, double minutes);
 }
@@ -0,0 +1,524 @@
+package mvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import metrics.Metrics;
+
+/**
+ * A JSON over HTTP front end for a {@link Controller}, next to the {@link TUI}, built on the JDK's
+ * {@link HttpServer}. Requests are answered on a fixed pool of platform threads, one per core unless set
+ * with {@code -Dmtr.httpThreads}, and all requests share the controller and the read-only network behind it.
+ * Each thread keeps the scratch workspaces of the searches it runs and reuses them request after request,
+ * which a new thread per request, virtual or not, would build again for every request.
+ * <p>
+ * Every endpoint answers GET with JSON:
+ * <pre>
+ * /termini                                   the termini of every line, first and last null for a loop
+ * /stations?line=Island Line                 the stations of a line in order
+ * /connected?line=Island Line                the lines sharing a station with a line
+ * /path?from=Central&amp;to=Po Lam&amp;kind=fastest   a path, kind being any, shortest, fastest or transfers
+ * /complete?prefix=tsim&amp;limit=10              the stations whose names start with a prefix
+ * /suggest?name=tsim sah tsui&amp;limit=10        the stations whose names are closest to a name
+ * /networks                                  the ids of the networks served and whether each is loaded
+ * /metrics                                   the metrics dump, as text
+ * </pre>
+ * Station names ignore case. Unknown lines and stations are answered with 404, missing parameters,
+ * parameters with malformed escapes and limits that are not positive numbers with 400.
+ * <p>
+ * A service over a {@link NetworkRegistry} answers every query from the network named by its
+ * {@code network} parameter, or from the network registered first without one, and answers an unknown
+ * network with 404.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class HttpService {
+
+	//port listened on when none is given
+	public static final int DEFAULT_PORT = 8080;
+	//threads answering requests, the queries are bound by the processor rather than by waiting
+	public static final int REQUEST_THREADS = Integer.getInteger("mtr.httpThreads", Runtime.getRuntime().availableProcessors());
+
+	static {
+		// Small responses otherwise wait out the client's delayed acknowledgement, about 40ms each
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	//the controller answering every query, null when a registry is
+	private final Controller controller;
+	//the networks queries name, null when a single controller answers
+	private final NetworkRegistry registry;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * Constructs a service on the specified port of every local address, not yet started
+	 * @param controller	the controller answering the queries
+	 * @param port	the port, 0 for any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public HttpService(Controller controller, int port) throws IOException {
+		this(controller, null, port);
+	}
+
+	/**
+	 * Constructs a service over several networks on the specified port of every local address, not yet started
+	 * @param registry	the networks, each query answered by the one it names
+	 * @param port	the port, 0 for any free port
+	 * @throws IOException if the port cannot be bound
+	 */
+	public HttpService(NetworkRegistry registry, int port) throws IOException {
+		this(null, registry, port);
+	}
+
+	private HttpService(Controller controller, NetworkRegistry registry, int port) throws IOException {
+		this.controller = controller;
+		this.registry = registry;
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.executor = newRequestExecutor(REQUEST_THREADS);
+		server.setExecutor(executor);
+		server.createContext("/termini", exchange -> handle(exchange, this::termini));
+		server.createContext("/stations", exchange -> handle(exchange, this::stations));
+		server.createContext("/connected", exchange -> handle(exchange, this::connected));
+		server.createContext("/path", exchange -> handle(exchange, this::path));
+		server.createContext("/complete", exchange -> handle(exchange, this::complete));
+		server.createContext("/suggest", exchange -> handle(exchange, this::suggest));
+		server.createContext("/networks", exchange -> handle(exchange, this::networks));
+		server.createContext("/metrics", exchange -> handle(exchange, this::metrics));
+	}
+
+	/**
+	 * Serves one network, or several given as id=csv. Set the minutes a network goes unqueried before
+	 * it is evicted with -Dmtr.idleMinutes, 0 never evicts.
+	 * <p>
+	 * Usage: {@code HttpService [csv | id=csv]... [port]}
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		NetworkRegistry registry = new NetworkRegistry(NetworkRegistry.IDLE_TIME);
+		for (String arg : args) {
+			if (arg.chars().allMatch(Character::isDigit)) {
+				port = Integer.parseInt(arg);
+			} else {
+				registry.register(arg);
+			}
+		}
+		if (registry.ids().isEmpty()) {
+			registry.register(TUI.DEFAULT_PATH);
+		}
+		// The network answering queries that name none is loaded before listening, the others when first queried
+		registry.controller(registry.defaultId());
+		HttpService service = new HttpService(registry, port);
+		service.start();
+		System.out.println("Listening on http://localhost:" + service.port() + "/ for " + String.join(", ", registry.ids()));
+	}
+
+	/**
+	 * Makes an executor running tasks on a fixed number of platform threads, which live as long as the
+	 * executor so the workspaces they keep are reused task after task
+	 * @param threads	the number of threads
+	 * @return the executor
+	 */
+	public static ExecutorService newRequestExecutor(int threads) {
+		return Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "mtr-http");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Makes an executor starting one virtual thread per task, or one platform thread per task
+	 * on a JVM without virtual threads, for tasks that mostly wait such as the clients of a load test
+	 * @return the executor
+	 */
+	public static ExecutorService newThreadPerRequestExecutor() {
+		try {
+			// Looked up by name so the code still builds and runs on JDK 17
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "mtr-http");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Starts answering requests
+	 */
+	public void start() {
+		server.start();
+	}
+
+	/**
+	 * Stops answering requests, letting those in progress finish for up to a second
+	 */
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the port being listened on
+	 */
+	public int port() {
+		return server.getAddress().getPort();
+	}
+
+	/**
+	 * The answer to one request
+	 */
+	private static final class Response {
+
+		private final int status;
+		private final String contentType;
+		private final String body;
+
+		private Response(int status, String contentType, String body) {
+			this.status = status;
+			this.contentType = contentType;
+			this.body = body;
+		}
+
+		private static Response json(int status, String body) {
+			return new Response(status, "application/json; charset=utf-8", body);
+		}
+
+		private static Response error(int status, String message) {
+			return json(status, "{\"error\":" + quote(message) + "}");
+		}
+	}
+
+	/**
+	 * One endpoint, answering from the decoded query parameters
+	 */
+	private interface Endpoint {
+		Response answer(Map<String, String> parameters);
+	}
+
+	/*
+	 * Answers one exchange, turning a query string that cannot be decoded into a 400 and anything an
+	 * endpoint throws into a 500.
+	 */
+	private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+		Response response;
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				response = Response.error(405, "Only GET is supported");
+			} else {
+				response = endpoint.answer(parameters(exchange.getRequestURI().getRawQuery()));
+			}
+		} catch (UnknownNetworkException e) {
+			response = Response.error(404, "Not A Network");
+		} catch (BadParameterException e) {
+			response = Response.error(400, "Bad parameter: " + e.getMessage());
+		} catch (RuntimeException e) {
+			response = Response.error(500, String.valueOf(e));
+		}
+		byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", response.contentType);
+		exchange.sendResponseHeaders(response.status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private Response termini(Map<String, String> parameters) {
+		Controller controller = controller(parameters);
+		StringBuilder sb = new StringBuilder("[");
+		List<Termini> termini = controller.getTermini();
+		for (int i = 0; i < termini.size(); i++) {
+			Termini t = termini.get(i);
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"line\":").append(quote(t.line()))
+					.append(",\"first\":").append(t.isLoop() ? "null" : quote(t.first()))
+					.append(",\"last\":").append(t.isLoop() ? "null" : quote(t.last()))
+					.append(",\"termini\":[");
+			for (int k = 0; k < t.stations().size(); k++) {
+				if (k > 0) {
+					sb.append(',');
+				}
+				sb.append(quote(t.stations().get(k)));
+			}
+			sb.append("]}");
+		}
+		return Response.json(200, sb.append(']').toString());
+	}
+
+	private Response stations(Map<String, String> parameters) {
+		Controller controller = controller(parameters);
+		String line = parameters.get("line");
+		if (line == null) {
+			return Response.error(400, "Missing parameter: line");
+		}
+		List<String> stations = controller.getStationsInLine(line);
+		if (stations == null) {
+			return Response.error(404, "Not A Line");
+		}
+		return Response.json(200, "{\"line\":" + quote(line) + ",\"stations\":" + array(stations) + "}");
+	}
+
+	private Response connected(Map<String, String> parameters) {
+		Controller controller = controller(parameters);
+		String line = parameters.get("line");
+		if (line == null) {
+			return Response.error(400, "Missing parameter: line");
+		}
+		List<String> lines = controller.getDirectlyConnectedLines(line);
+		if (lines == null) {
+			return Response.error(404, "Not A Line");
+		}
+		return Response.json(200, "{\"line\":" + quote(line) + ",\"connected\":" + array(lines) + "}");
+	}
+
+	private Response path(Map<String, String> parameters) {
+		Controller controller = controller(parameters);
+		String from = parameters.get("from");
+		String to = parameters.get("to");
+		if (from == null || to == null) {
+			return Response.error(400, "Missing parameter: " + (from == null ? "from" : "to"));
+		}
+		String kind = parameters.getOrDefault("kind", "any").toLowerCase(Locale.ROOT);
+		PathResult result;
+		switch (kind) {
+		case "any" :
+			result = controller.getPathBetween(from, to);
+			break;
+		case "shortest" :
+			result = controller.getShortestPathBetween(from, to);
+			break;
+		case "fastest" :
+			result = controller.getFastestPathBetween(from, to);
+			break;
+		case "transfers" :
+			result = controller.getFewestTransfersBetween(from, to);
+			break;
+		default :
+			return Response.error(400, "Unknown kind: " + kind);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"from\":").append(quote(from))
+				.append(",\"to\":").append(quote(to))
+				.append(",\"kind\":").append(quote(kind))
+				.append(",\"status\":").append(quote(result.status().name()))
+				.append(",\"stations\":[");
+		for (int i = 0; i < result.length(); i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(quote(result.stationName(i)));
+		}
+		sb.append(']');
+		if (result.hasLines()) {
+			sb.append(",\"lines\":[");
+			for (int i = 0; i < result.length(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append(quote(result.lineName(i)));
+			}
+			sb.append(']');
+		}
+		if (result.seconds() >= 0) {
+			sb.append(",\"seconds\":").append(result.seconds());
+		}
+		if (result.interchanges() >= 0) {
+			sb.append(",\"interchanges\":").append(result.interchanges());
+		}
+		sb.append('}');
+		return Response.json(result.status() == PathResult.Status.UNKNOWN_STATION ? 404 : 200, sb.toString());
+	}
+
+	private Response complete(Map<String, String> parameters) {
+		Controller controller = controller(parameters);
+		String prefix = parameters.get("prefix");
+		if (prefix == null) {
+			return Response.error(400, "Missing parameter: prefix");
+		}
+		int limit = limit(parameters);
+		if (limit < 1) {
+			return Response.error(400, "Bad parameter: limit");
+		}
+		List<String> stations = controller.completeStationName(prefix, limit);
+		return Response.json(200, "{\"prefix\":" + quote(prefix) + ",\"stations\":" + array(stations) + "}");
+	}
+
+	private Response suggest(Map<String, String> parameters) {
+		Controller controller = controller(parameters);
+		String name = parameters.get("name");
+		if (name == null) {
+			return Response.error(400, "Missing parameter: name");
+		}
+		int limit = limit(parameters);
+		if (limit < 1) {
+			return Response.error(400, "Bad parameter: limit");
+		}
+		// The station the name means, if any, next to the names closest to it
+		String station = controller.resolveStationName(name);
+		List<String> stations = controller.suggestStationNames(name, limit);
+		return Response.json(200, "{\"name\":" + quote(name) + ",\"station\":" + (station == null ? "null" : quote(station))
+				+ ",\"suggestions\":" + array(stations) + "}");
+	}
+
+	/*
+	 * Reads the limit parameter, 10 when absent and 0 when not a number.
+	 */
+	private static int limit(Map<String, String> parameters) {
+		try {
+			return Integer.parseInt(parameters.getOrDefault("limit", "10"));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	private Response networks(Map<String, String> parameters) {
+		StringBuilder sb = new StringBuilder("[");
+		List<String> ids = registry == null ? List.of() : registry.ids();
+		for (int i = 0; i < ids.size(); i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"id\":").append(quote(ids.get(i)))
+					.append(",\"loaded\":").append(registry.isLoaded(ids.get(i))).append('}');
+		}
+		return Response.json(200, sb.append(']').toString());
+	}
+
+	/*
+	 * Finds the controller of the network a query names, loading the network if it is not loaded.
+	 * @throws UnknownNetworkException if no network is registered by that name
+	 */
+	private Controller controller(Map<String, String> parameters) {
+		if (registry == null) {
+			return controller;
+		}
+		Controller named = registry.controller(parameters.getOrDefault("network", registry.defaultId()));
+		if (named == null) {
+			throw new UnknownNetworkException();
+		}
+		return named;
+	}
+
+	/**
+	 * Thrown by an endpoint asked about a network that is not served, answered with 404
+	 */
+	private static final class UnknownNetworkException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private UnknownNetworkException() {
+			super(null, null, false, false);
+		}
+	}
+
+	/**
+	 * Thrown for a query parameter that is not a valid percent-encoded string, answered with 400
+	 */
+	private static final class BadParameterException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private BadParameterException(String name) {
+			super(name, null, false, false);
+		}
+	}
+
+	private Response metrics(Map<String, String> parameters) {
+		return new Response(200, "text/plain; charset=utf-8", Metrics.dump());
+	}
+
+	/*
+	 * Decodes the parameters of a query string, the last of a repeated name wins.
+	 * @throws BadParameterException if a name or value has a malformed escape, such as %zz
+	 */
+	private static Map<String, String> parameters(String query) {
+		Map<String, String> parameters = new HashMap<>();
+		if (query == null || query.isEmpty()) {
+			return parameters;
+		}
+		for (String pair : query.split("&")) {
+			int equals = pair.indexOf('=');
+			String name = equals == -1 ? pair : pair.substring(0, equals);
+			String value = equals == -1 ? "" : pair.substring(equals + 1);
+			try {
+				parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+			} catch (IllegalArgumentException e) {
+				throw new BadParameterException(name);
+			}
+		}
+		return parameters;
+	}
+
+	private static String array(List<String> values) {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < values.size(); i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(quote(values.get(i)));
+		}
+		return sb.append(']').toString();
+	}
+
+	/*
+	 * Writes a string as a JSON string literal.
+	 */
+	private static String quote(String value) {
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"' :
+				sb.append("\\\"");
+				break;
+			case '\\' :
+				sb.append("\\\\");
+				break;
+			case '\n' :
+				sb.append("\\n");
+				break;
+			case '\r' :
+				sb.append("\\r");
+				break;
+			case '\t' :
+				sb.append("\\t");
+				break;
+			default :
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
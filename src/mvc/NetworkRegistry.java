@@ -0,0 +1,237 @@
+package mvc;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import metro.NamePool;
+
+/**
+ * Several named networks served side by side by one process, such as the networks of several cities
+ * or past versions of one network, each answered by a {@link Controller} of its own.
+ * <p>
+ * A network is registered by id with the csv it is loaded from, and only loaded the first time its
+ * controller is asked for. A network unused for the idle time is evicted and loaded again when next
+ * asked for, unless it has been updated, as its updates are only held in memory. A controller already
+ * handed out stays usable after its network is evicted, and its heap is freed once no caller holds it.
+ * Every network takes its station and line names from one {@link NamePool}, so the names networks
+ * share are held once.
+ * <p>
+ * Any number of threads can use a registry. A network is loaded by the first thread asking for it,
+ * while the others asking for it wait and the other networks are answered as usual.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class NetworkRegistry implements AutoCloseable {
+
+	//time a network goes unused before the front ends evict it, set in minutes with -Dmtr.idleMinutes, 0 never evicts
+	public static final Duration IDLE_TIME = Duration.ofMinutes(Long.getLong("mtr.idleMinutes", 0));
+
+	//the names shared by every network
+	private final NamePool names = new NamePool();
+	//networks by id
+	private final Map<String, Network> networks = new ConcurrentHashMap<>();
+	//ids in the order they were registered
+	private final List<String> ids = new CopyOnWriteArrayList<>();
+	//nanoseconds a network goes unused before it is evicted, 0 for never
+	private final long idleNanos;
+	private final int routeCacheSize;
+	//evicts the idle networks, null if they are never evicted
+	private final ScheduledExecutorService sweeper;
+
+	/**
+	 * Constructs an empty registry whose networks have route caches of the default size
+	 * @param idle	time a network goes unused before it is evicted, zero to never evict
+	 */
+	public NetworkRegistry(Duration idle) {
+		this(idle, WorkingController.DEFAULT_ROUTE_CACHE_SIZE);
+	}
+
+	/**
+	 * Constructs an empty registry
+	 * @param idle	time a network goes unused before it is evicted, zero to never evict
+	 * @param routeCacheSize	most routes each network caches at once, 0 disables the caches
+	 */
+	public NetworkRegistry(Duration idle, int routeCacheSize) {
+		this.idleNanos = idle.toNanos();
+		this.routeCacheSize = routeCacheSize;
+		if (idleNanos > 0) {
+			sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+				Thread thread = new Thread(task, "network-sweeper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			// A network is evicted at most half the idle time late
+			long period = Math.max(TimeUnit.MILLISECONDS.toNanos(1), idleNanos / 2);
+			sweeper.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.NANOSECONDS);
+		} else {
+			sweeper = null;
+		}
+	}
+
+	/**
+	 * Registers a network, without loading it
+	 * @param id	the name the network is asked for by
+	 * @param path	the csv of the network, or the csv a compiled snapshot was made from
+	 * @throws IllegalArgumentException if a network is already registered by that id
+	 */
+	public void register(String id, String path) {
+		if (networks.putIfAbsent(id, new Network(path)) != null) {
+			throw new IllegalArgumentException("Network already registered: " + id);
+		}
+		ids.add(id);
+	}
+
+	/**
+	 * Registers a network given as id=csv, or as a csv named after its file
+	 * @param network	the id and csv of the network, or its csv alone
+	 * @return	the id the network was registered by
+	 * @throws IllegalArgumentException if a network is already registered by that id
+	 */
+	public String register(String network) {
+		int equals = network.indexOf('=');
+		String path = network.substring(equals + 1);
+		String id = equals == -1 ? idOf(path) : network.substring(0, equals);
+		register(id, path);
+		return id;
+	}
+
+	/**
+	 * Names a network after its csv, without directories or extension
+	 * @param path	the csv
+	 * @return	the id
+	 */
+	public static String idOf(String path) {
+		String name = Paths.get(path).getFileName().toString();
+		return name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+	}
+
+	/**
+	 * Gets the controller of a network, loading the network if it is not loaded
+	 * @param id	the id the network was registered by
+	 * @return	the controller, or null if no network is registered by that id
+	 */
+	public Controller controller(String id) {
+		Network network = id == null ? null : networks.get(id);
+		if (network == null) {
+			return null;
+		}
+		network.lastUsed = System.nanoTime();
+		WorkingController controller = network.controller;
+		return controller != null ? controller : network.load();
+	}
+
+	/**
+	 * @return	the ids of the networks, in the order they were registered
+	 */
+	public List<String> ids() {
+		return List.copyOf(ids);
+	}
+
+	/**
+	 * @return	the id of the network registered first, or null if there is none
+	 */
+	public String defaultId() {
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	/**
+	 * @param id	the id of a network
+	 * @return	true if the network is registered and loaded
+	 */
+	public boolean isLoaded(String id) {
+		Network network = networks.get(id);
+		return network != null && network.controller != null;
+	}
+
+	/**
+	 * Evicts a network whether it is idle or not, dropping any update made to it
+	 * @param id	the id of the network
+	 * @return	true if the network was loaded
+	 */
+	public boolean evict(String id) {
+		Network network = networks.get(id);
+		return network != null && network.evict(0, true);
+	}
+
+	/**
+	 * Evicts every network unused for the idle time that has not been updated
+	 * @return	the number of networks evicted
+	 */
+	public int evictIdle() {
+		if (idleNanos <= 0) {
+			return 0;
+		}
+		long unusedSince = System.nanoTime() - idleNanos;
+		int evicted = 0;
+		// O(n)
+		for (Network network : networks.values()) {
+			if (network.evict(unusedSince, false)) {
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * Method to get the pool the networks take their names from
+	 * @return the {@link NamePool}
+	 */
+	public NamePool getNames() {
+		return names;
+	}
+
+	/**
+	 * Stops evicting idle networks. The networks loaded stay usable
+	 */
+	@Override
+	public void close() {
+		if (sweeper != null) {
+			sweeper.shutdownNow();
+		}
+	}
+
+	/**
+	 * One registered network and its controller while loaded
+	 */
+	private final class Network {
+
+		private final String path;
+		//null while the network is not loaded
+		private volatile WorkingController controller;
+		//System.nanoTime of the last time the controller was asked for
+		private volatile long lastUsed;
+
+		private Network(String path) {
+			this.path = path;
+		}
+
+		/*
+		 * Loads the network, unless a thread asking for it before has just loaded it.
+		 */
+		private synchronized WorkingController load() {
+			if (controller == null) {
+				controller = new WorkingController(path, routeCacheSize, names);
+			}
+			return controller;
+		}
+
+		/*
+		 * Evicts the network if it was last used before a time and has not been updated, or in any case if forced.
+		 */
+		private synchronized boolean evict(long unusedSince, boolean force) {
+			if (controller == null || !force && (lastUsed - unusedSince > 0 || controller.getVersion() > 0)) {
+				return false;
+			}
+			controller = null;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package mvc;
+
+import java.util.Arrays;
+
+import metro.MetroGraph;
+
+/**
+ * The answer to one path query, as station ids rather than text. Routes that ride known lines also
+ * carry the line ridden into each station, and fastest routes their travel time. The names of the
+ * stations are only looked up, and the text only built, when asked for.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class PathResult {
+
+	/**
+	 * Which kind of path was asked for
+	 */
+	public enum Kind {
+		//any path, as found by a depth first search
+		ANY,
+		//a path with the fewest stops
+		SHORTEST,
+		//a route with the least travel time
+		FASTEST,
+		//a route with the fewest changes of line
+		FEWEST_TRANSFERS
+	}
+
+	/**
+	 * How a query was answered
+	 */
+	public enum Status {
+		//a path was found
+		FOUND,
+		//both stations exist but no path joins them
+		NO_PATH,
+		//one or both stations are not in the network
+		UNKNOWN_STATION
+	}
+
+	private static final int[] NONE = new int[0];
+
+	private final MetroGraph graph;
+	private final Kind kind;
+	private final String from;
+	private final String to;
+	private final Status status;
+	//station ids along the path, empty unless one was found
+	private final int[] stations;
+	//line ridden into each station, null when the search does not follow lines
+	private final int[] lines;
+	//travel time in seconds, -1 when the route is not timed
+	private final int seconds;
+	//changes of line, -1 when they are not counted
+	private final int interchanges;
+	//the text of the result, built on first use
+	private String text;
+
+	private PathResult(MetroGraph graph, Kind kind, String from, String to, Status status,
+			int[] stations, int[] lines, int seconds, int interchanges) {
+		this.graph = graph;
+		this.kind = kind;
+		this.from = from;
+		this.to = to;
+		this.status = status;
+		this.stations = stations;
+		this.lines = lines;
+		this.seconds = seconds;
+		this.interchanges = interchanges;
+	}
+
+	/**
+	 * @return a result for a query naming a station not in the network
+	 */
+	static PathResult unknown(MetroGraph graph, Kind kind, String from, String to) {
+		return new PathResult(graph, kind, from, to, Status.UNKNOWN_STATION, NONE, null, -1, -1);
+	}
+
+	/**
+	 * @return a result for a query between stations no path joins
+	 */
+	static PathResult noPath(MetroGraph graph, Kind kind, String from, String to) {
+		return new PathResult(graph, kind, from, to, Status.NO_PATH, NONE, null, -1, -1);
+	}
+
+	/**
+	 * @return a result holding a path of station ids
+	 */
+	static PathResult path(MetroGraph graph, Kind kind, String from, String to, int[] stations) {
+		return new PathResult(graph, kind, from, to, Status.FOUND, stations, null, -1, -1);
+	}
+
+	/**
+	 * @return a result holding a route along known lines
+	 */
+	static PathResult route(MetroGraph graph, Kind kind, String from, String to, int[] stations, int[] lines,
+			int seconds, int interchanges) {
+		return new PathResult(graph, kind, from, to, Status.FOUND, stations, lines, seconds, interchanges);
+	}
+
+	/**
+	 * @return the graph the station and line ids belong to
+	 */
+	MetroGraph graph() {
+		return graph;
+	}
+
+	/**
+	 * @return which kind of path was asked for
+	 */
+	public Kind kind() {
+		return kind;
+	}
+
+	/**
+	 * @return the name of the start station as asked for
+	 */
+	public String from() {
+		return from;
+	}
+
+	/**
+	 * @return the name of the end station as asked for
+	 */
+	public String to() {
+		return to;
+	}
+
+	/**
+	 * @return how the query was answered
+	 */
+	public Status status() {
+		return status;
+	}
+
+	/**
+	 * @return true if a path was found
+	 */
+	public boolean found() {
+		return status == Status.FOUND;
+	}
+
+	/**
+	 * @return number of stations on the path including both ends, 0 if none was found
+	 */
+	public int length() {
+		return stations.length;
+	}
+
+	/**
+	 * @param i position along the path, below {@link #length()}
+	 * @return id of the i-th station
+	 */
+	public int station(int i) {
+		return stations[i];
+	}
+
+	/**
+	 * @param i position along the path, below {@link #length()}
+	 * @return name of the i-th station
+	 */
+	public String stationName(int i) {
+		return graph.stationName(stations[i]);
+	}
+
+	/**
+	 * @return a copy of the station ids along the path
+	 */
+	public int[] stations() {
+		return Arrays.copyOf(stations, stations.length);
+	}
+
+	/**
+	 * @return true if the line ridden into each station is known
+	 */
+	public boolean hasLines() {
+		return lines != null;
+	}
+
+	/**
+	 * @param i position along the path, below {@link #length()}
+	 * @return id of the line ridden into the i-th station, for the first station the line boarded
+	 */
+	public int line(int i) {
+		return lines[i];
+	}
+
+	/**
+	 * @param i position along the path, below {@link #length()}
+	 * @return name of the line ridden into the i-th station
+	 */
+	public String lineName(int i) {
+		return graph.lineName(lines[i]);
+	}
+
+	/**
+	 * @return travel time in seconds, -1 when the route is not timed
+	 */
+	public int seconds() {
+		return seconds;
+	}
+
+	/**
+	 * @return number of changes of line, -1 when they are not counted
+	 */
+	public int interchanges() {
+		return interchanges;
+	}
+
+	/**
+	 * Formats the result the way the {@link Controller} path methods do, without the timing.
+	 * The text is built on first use and kept
+	 * @return the names of the stations along the path, or why there is none
+	 */
+	@Override
+	public String toString() {
+		// A race only builds the same text twice
+		String formatted = text;
+		if (formatted == null) {
+			formatted = ResultFormat.path(this);
+			text = formatted;
+		}
+		return formatted;
+	}
+}
@@ -0,0 +1,101 @@
+package mvc;
+
+import java.util.List;
+
+import metro.MetroGraph;
+
+/**
+ * The answer to one reachability query: every station within a number of stops, or a travel time,
+ * of the nearest seed station, as station ids and distances in primitive arrays ordered by distance.
+ * The names of the stations are only looked up when asked for.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class ReachResult {
+
+	private final MetroGraph graph;
+	//true when distances are in seconds, false when in stops
+	private final boolean timed;
+	//station ids within the bound, nearest first
+	private final int[] stations;
+	//distance of each station from the nearest seed
+	private final int[] distances;
+	//seeds asked for that are not in the network
+	private final List<String> unknown;
+
+	ReachResult(MetroGraph graph, boolean timed, int[] stations, int[] distances, List<String> unknown) {
+		this.graph = graph;
+		this.timed = timed;
+		this.stations = stations;
+		this.distances = distances;
+		this.unknown = unknown;
+	}
+
+	/**
+	 * @return true when distances are in seconds, false when they are in stops
+	 */
+	public boolean timed() {
+		return timed;
+	}
+
+	/**
+	 * @return number of stations within the bound, the seeds included
+	 */
+	public int size() {
+		return stations.length;
+	}
+
+	/**
+	 * @param i position by distance, below {@link #size()}
+	 * @return id of the i-th station
+	 */
+	public int station(int i) {
+		return stations[i];
+	}
+
+	/**
+	 * @param i position by distance, below {@link #size()}
+	 * @return name of the i-th station
+	 */
+	public String stationName(int i) {
+		return graph.stationName(stations[i]);
+	}
+
+	/**
+	 * @param i position by distance, below {@link #size()}
+	 * @return stops, or seconds, from the nearest seed to the i-th station
+	 */
+	public int distance(int i) {
+		return distances[i];
+	}
+
+	/**
+	 * @return ids of the stations within the bound, nearest first, as a new array
+	 */
+	public int[] stations() {
+		return stations.clone();
+	}
+
+	/**
+	 * @return distances of the stations, aligned with {@link #stations()}, as a new array
+	 */
+	public int[] distances() {
+		return distances.clone();
+	}
+
+	/**
+	 * @return seeds asked for that are not in the network, empty if every seed was found
+	 */
+	public List<String> unknownStations() {
+		return unknown;
+	}
+
+	/**
+	 * @return the text of the result, as listed by the controller
+	 */
+	@Override
+	public String toString() {
+		return ResultFormat.reach(this);
+	}
+}
@@ -0,0 +1,161 @@
+package mvc;
+
+import java.util.List;
+
+/**
+ * Turns the typed results of a {@link Controller} into the text the {@link TUI} shows. Kept apart
+ * from the queries so callers that only want the data never pay for building strings.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class ResultFormat {
+
+	private ResultFormat() {
+	}
+
+	/**
+	 * @param termini	the termini of every line
+	 * @return each line and its termini, as listed by {@link Controller#listAllTermini()} before its timing
+	 */
+	public static String termini(List<Termini> termini) {
+		StringBuilder sb = new StringBuilder();
+		// O(n)
+		for (Termini t : termini) {
+			sb.append("Train Line: ").append(t.line()).append("\n"); 					// O(1)
+			if (t.isLoop()) {
+				sb.append("Termini: None, Runs In A Loop\n"); 						// O(1)
+			} else {
+				sb.append("Termini: ").append(String.join(", ", t.stations())).append("\n"); 	// O(k)
+			}
+			sb.append("\n"); 													// O(1)
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param line	the name of the line
+	 * @param stations	the names of its stations in order, or null if it is not a line
+	 * @return the stations, as listed by {@link Controller#listStationsInLine(String)} before its timing
+	 */
+	public static String stationsInLine(String line, List<String> stations) {
+		if (stations == null) {
+			return "\nNot A Line";
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(line).append(": ");
+		// O(n)
+		for (int i = 0; i < stations.size(); i++) {
+			if (i > 0) {
+				sb.append(" <-> "); 							// O(1)
+			}
+			sb.append(stations.get(i)); 						// O(1)
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param lines	the names of the connected lines, or null if the line asked about is not a line
+	 * @return the lines, as listed by {@link Controller#listAllDirectlyConnectedLines(String)}
+	 */
+	public static String connectedLines(List<String> lines) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Directly Connected Lines: \n");
+		if (lines == null) {
+			sb.append("Not A Line");
+		} else {
+			// O(n)
+			for (String line : lines) {
+				sb.append("\n").append(line); 					// O(1)
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param result	a path query's result
+	 * @return the stations along the path, and the travel time or lines of a route, or why there is none
+	 */
+	public static String path(PathResult result) {
+		if (result.status() == PathResult.Status.UNKNOWN_STATION) {
+			return "\nOne Or More Stations Not In The Set";
+		}
+		if (result.status() == PathResult.Status.NO_PATH) {
+			return "\nNo Path Between The Stations";
+		}
+
+		StringBuilder sb = new StringBuilder();
+		// O(n)
+		//Add all the path to the StringBuffer
+		for (int i = 0; i < result.length(); i++) {
+			if (i > 0) {
+				sb.append(" -> "); 							// O(1)
+			}
+			sb.append(result.stationName(i)); 				// O(1)
+		}
+
+		if (result.kind() == PathResult.Kind.FASTEST) {
+			sb.append("\nTravel Time: ").append(String.format("%.1f", result.seconds() / 60.0)).append(" minutes");
+			if (result.interchanges() >= 0) {
+				sb.append(", Interchanges: ").append(result.interchanges());
+			}
+		} else if (result.kind() == PathResult.Kind.FEWEST_TRANSFERS) {
+			// O(n)
+			//Each run of stations ridden into on one line is one leg
+			sb.append("\nLines: ");
+			for (int i = 0; i < result.length(); i++) {
+				if (i == 0 || result.line(i) != result.line(i - 1)) {
+					if (i > 0) {
+						sb.append(" -> "); 						// O(1)
+					}
+					sb.append(result.lineName(i)); 				// O(1)
+				}
+			}
+			sb.append(", Interchanges: ").append(result.interchanges());
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param results	alternative paths best first, or a single result with the reason there are none
+	 * @return the paths numbered in order, as listed by {@link Controller#showAlternativePathsBetween}
+	 */
+	public static String alternatives(List<PathResult> results) {
+		if (results.size() == 1 && !results.get(0).found()) {
+			return path(results.get(0));
+		}
+		StringBuilder sb = new StringBuilder();
+		// O(n)
+		for (int i = 0; i < results.size(); i++) {
+			PathResult result = results.get(i);
+			sb.append("\nRoute ").append(i + 1).append(": ").append(path(result)); 		// O(1) once formatted
+			if (result.kind() == PathResult.Kind.SHORTEST) {
+				sb.append("\nStops: ").append(result.length() - 1);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @param result	the stations within reach and their distances
+	 * @return each station and its distance, as listed by {@link Controller#showStationsWithinStops} and
+	 * 		{@link Controller#showStationsWithinMinutes}
+	 */
+	public static String reach(ReachResult result) {
+		if (!result.unknownStations().isEmpty()) {
+			return "\nOne Or More Stations Not In The Set";
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("\nStations Within Reach: ").append(result.size());
+		// O(n)
+		for (int i = 0; i < result.size(); i++) {
+			sb.append("\n").append(result.stationName(i)).append(": "); 				// O(1)
+			if (result.timed()) {
+				sb.append(String.format("%.1f", result.distance(i) / 60.0)).append(" minutes");
+			} else {
+				sb.append(result.distance(i)).append(result.distance(i) == 1 ? " stop" : " stops");
+			}
+		}
+		return sb.toString();
+	}
+}
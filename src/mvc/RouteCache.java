@@ -0,0 +1,180 @@
+package mvc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of path results keyed by station pair and kind of path, used by {@link WorkingController}
+ * so repeated path queries skip the search, and once a result has been formatted the string building too.
+ * <p>
+ * Entries are spread over independently locked segments, each evicting its least recently used
+ * route once full, so concurrent queries rarely wait on each other. Hits, misses and evictions are
+ * counted. The cache must be invalidated whenever the network it was filled from changes.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class RouteCache {
+
+	//number of independently locked segments
+	private static final int SEGMENTS = 16;
+
+	private final int capacity;
+	private final Segment[] segments;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Constructs a new {@link RouteCache}
+	 * @param capacity most routes held at once, rounded up to a multiple of the segment count, 0 disables the cache
+	 */
+	public RouteCache(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+		}
+		this.capacity = capacity;
+		segments = new Segment[SEGMENTS];
+		for (int i = 0; i < SEGMENTS; i++) {
+			// Rounds up so the segments together hold at least the capacity
+			segments[i] = new Segment((capacity + SEGMENTS - 1) / SEGMENTS);
+		}
+	}
+
+	/**
+	 * Method to build the key of a route
+	 * @param from id of the start station
+	 * @param to id of the end station
+	 * @param kind which kind of route
+	 * @return the key
+	 */
+	public static long key(int from, int to, PathResult.Kind kind) {
+		return ((long) kind.ordinal() << 62) | ((long) from << 31) | to;
+	}
+
+	/**
+	 * Method to look up a route, counting a hit or a miss
+	 * @param key of the route
+	 * @return the cached route, or null
+	 */
+	public PathResult get(long key) {
+		if (capacity == 0) {
+			return null;
+		}
+		PathResult route = segment(key).get(key);
+		if (route == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return route;
+	}
+
+	/**
+	 * Method to add a route, evicting the least recently used route of its segment if that is full
+	 * @param key of the route
+	 * @param route the route
+	 */
+	public void put(long key, PathResult route) {
+		if (capacity > 0) {
+			segment(key).put(key, route);
+		}
+	}
+
+	/**
+	 * Removes every route, to be called when the network changes
+	 */
+	public void invalidate() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	/**
+	 * @return most routes held at once
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return routes currently held
+	 */
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * @return lookups that found a route
+	 */
+	public long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return lookups that found nothing
+	 */
+	public long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return routes removed to make room
+	 */
+	public long evictions() {
+		return evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Route cache: %d/%d routes, %d hits, %d misses, %d evictions",
+				size(), capacity, hits(), misses(), evictions());
+	}
+
+	private Segment segment(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return segments[(int) (h >>> 60) & (SEGMENTS - 1)];
+	}
+
+	/**
+	 * One locked part of the cache, an access ordered map dropping its eldest entry when full
+	 */
+	private final class Segment {
+
+		private final Map<Long, PathResult> routes;
+
+		private Segment(int bound) {
+			routes = new LinkedHashMap<Long, PathResult>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Long, PathResult> eldest) {
+					if (size() > bound) {
+						evictions.increment();
+						return true;
+					}
+					return false;
+				}
+			};
+		}
+
+		private synchronized PathResult get(long key) {
+			return routes.get(key);
+		}
+
+		private synchronized void put(long key, PathResult route) {
+			routes.put(key, route);
+		}
+
+		private synchronized void clear() {
+			routes.clear();
+		}
+
+		private synchronized int size() {
+			return routes.size();
+		}
+	}
+}
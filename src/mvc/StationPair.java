@@ -0,0 +1,42 @@
+package mvc;
+
+/**
+ * An origin and a destination named by station, one query of a batch.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class StationPair {
+
+	private final String from;
+	private final String to;
+
+	/**
+	 * Constructs a new {@link StationPair}
+	 * @param from	the name of the start station
+	 * @param to	the name of the end station
+	 */
+	public StationPair(String from, String to) {
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * @return the name of the start station
+	 */
+	public String from() {
+		return from;
+	}
+
+	/**
+	 * @return the name of the end station
+	 */
+	public String to() {
+		return to;
+	}
+
+	@Override
+	public String toString() {
+		return from + " -> " + to;
+	}
+}
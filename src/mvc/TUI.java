@@ -3,25 +3,93 @@
  */
 package mvc;
 
-import java.util.Scanner;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import metrics.LatencyHistogram;
+import metrics.Metrics;
 
 /**
  * A simple text-based user interface for showing various information about an MTR network.
+ * <p>
+ * Started with {@code --batch [file]} it answers a script of commands from the file, or from stdin,
+ * instead: the same lines typed at the menu, a menu number followed by its answers, with blank lines
+ * skipped. No menu or prompt is shown, the results are written through one buffer, and the commands
+ * answered per second and their latency percentiles are printed to stderr at the end of the script.
+ * Only the results are written to stdout, the messages of loading each network go to stderr.
  * 
  * @author S H S Wong
  * @version 15/10/2017
  */
 public class TUI {
 
-	private static String path = "resources/MTRsystem_partial.csv";
+	//the network shown when none is given
+	public static final String DEFAULT_PATH = "resources/MTRsystem_partial.csv";
+	//most station names listed when completing or suggesting a name
+	private static final int NAMES_LISTED = 10;
+	//bytes of output buffered in batch mode
+	private static final int OUTPUT_BUFFER = 1 << 16;
 
 	private Controller controller;  
-	private Scanner stdIn;
+	//the networks that can be switched between, null if only the controller's
+	private NetworkRegistry registry;
+	//id of the network shown, null without a registry
+	private String network;
+	private BufferedReader stdIn;
+	private PrintStream out;
+	//true when answering a script, without menu or prompts
+	private boolean batch;
 
+	/**
+	 * Usage: {@code TUI [--network csv | --network id=csv]... [--batch [script]]}
+	 * <p>
+	 * The first network is shown first, and option 11 switches to any other. Each is loaded when first
+	 * shown, and evicted once unused for the minutes set with -Dmtr.idleMinutes, 0 never evicts.
+	 */
 	public static void main(String args[]) {
 		try {
-			Controller controller = new WorkingController(path);
-			new TUI(controller);
+			NetworkRegistry registry = new NetworkRegistry(NetworkRegistry.IDLE_TIME);
+			boolean batch = false;
+			String script = null;
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("--network") && i + 1 < args.length) {
+					registry.register(args[++i]);
+				} else if (args[i].equals("--batch")) {
+					batch = true;
+				} else if (batch && script == null) {
+					script = args[i];
+				}
+			}
+			if (registry.ids().isEmpty()) {
+				registry.register(DEFAULT_PATH);
+			}
+			PrintStream out = null;
+			if (batch) {
+				// The results keep stdout to themselves, the messages of loading a network go to stderr
+				out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER), false);
+				System.setOut(System.err);
+			}
+			Controller controller = registry.controller(registry.defaultId());
+			if (batch) {
+				BufferedReader in = script != null
+						? Files.newBufferedReader(Paths.get(script), StandardCharsets.UTF_8)
+						: new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+				new TUI(controller, registry, in, out, true).runBatch();
+			} else {
+				new TUI(controller, registry, new BufferedReader(new InputStreamReader(System.in)), System.out, false).run();
+			}
+			System.exit(0);
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
@@ -29,15 +97,66 @@ public class TUI {
 	
 	public TUI(Controller controller) {
 		
+		// Reads the user input line by line
+		this(controller, null, new BufferedReader(new InputStreamReader(System.in)), System.out, false);
+		run();
+		System.exit(0);
+	}
+
+	/*
+	 * Constructs a TUI over the given input and output, without starting it.
+	 */
+	private TUI(Controller controller, NetworkRegistry registry, BufferedReader stdIn, PrintStream out, boolean batch) {
 		this.controller = controller;
-		
-		// Creates a Scanner object for obtaining user input
-		stdIn = new Scanner(System.in);
-		
-		while (true) {
+		this.registry = registry;
+		this.network = registry == null ? null : registry.defaultId();
+		this.stdIn = stdIn;
+		this.out = out;
+		this.batch = batch;
+	}
+
+	/*
+	 * Shows the menu and answers the options chosen until the user exits.
+	 */
+	private void run() {
+		do {
 			displayMenu();
-			getAndProcessUserOption();
+		} while (getAndProcessUserOption(nextLine()));
+	}
+
+	/*
+	 * Answers every command of the script until it ends or exits, then prints the throughput and the
+	 * latency of the commands, from reading the menu number to the result being buffered, to stderr.
+	 */
+	private void runBatch() {
+		LatencyHistogram latencies = new LatencyHistogram();
+		long start = System.nanoTime();
+		try {
+			String command;
+			// O(n)
+			while ((command = readLine()) != null) {
+				command = command.trim();
+				if (command.isEmpty()) {
+					continue;
+				}
+				long commandStart = System.nanoTime();
+				boolean more = getAndProcessUserOption(command);
+				latencies.record(System.nanoTime() - commandStart);
+				if (!more) {
+					break;
+				}
+			}
+		} catch (NoSuchElementException e) {
+			// The script ended part way through a command, which is left unanswered
 		}
+		out.flush();
+		long elapsed = System.nanoTime() - start;
+
+		System.err.printf("commands=%d seconds=%.3f commands/s=%.0f%n",
+				latencies.count(), elapsed / 1e9, latencies.count() * 1e9 / Math.max(1, elapsed));
+		System.err.printf("latency us: mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+				latencies.mean() / 1000, latencies.percentile(50) / 1000.0, latencies.percentile(90) / 1000.0,
+				latencies.percentile(99) / 1000.0, latencies.percentile(99.9) / 1000.0, latencies.max() / 1000.0);
 	}
 
 	/**
@@ -49,41 +168,141 @@ public class TUI {
 	}
 	
 	/**
-	 * Obtains an user option and processes it.
+	 * Processes an user option, reading any more input it needs.
+	 * @param command	the menu number typed
+	 * @return	false if the option was to exit
 	 */
-	private void getAndProcessUserOption() {
-		String command = stdIn.nextLine().trim();
+	private boolean getAndProcessUserOption(String command) {
+		if (registry != null) {
+			// Asked for on every command, so the network shown is never evicted as idle
+			controller = registry.controller(network);
+		}
 		switch (command) {
 		case "1" : // Lists all terminus
 			display(controller.listAllTermini());
 			break;
 		case "2" : // Lists all stations in a line
-			display("Lists all stations in a line...");
-			display("Enter the name of the line you'd like to view:");
-			display(controller.listStationsInLine(stdIn.nextLine().trim()));
+			prompt("Lists all stations in a line...");
+			prompt("Enter the name of the line you'd like to view:");
+			display(controller.listStationsInLine(nextLine()));
 			break;
 		case "3" : // Lists all connected lines
-			display("Lists all directly connected lines...");
-			display("Enter the name of the required line:");
-			display(controller.listAllDirectlyConnectedLines(stdIn.nextLine().trim()));
+			prompt("Lists all directly connected lines...");
+			prompt("Enter the name of the required line:");
+			display(controller.listAllDirectlyConnectedLines(nextLine()));
 			break;
 		case "4" : // Finds a path between two stations
-			display("Finds a path between two stations...");
-			display("Enter the name of the start station:");
-			String stationA = stdIn.nextLine().trim();
-			display("Enter the name of the end station:");
-			String stationB = stdIn.nextLine().trim();
+			prompt("Finds a path between two stations...");
+			String stationA = readStation("Enter the name of the start station:");
+			String stationB = readStation("Enter the name of the end station:");
 			display(controller.showPathBetween(stationA, stationB));
 			break;
-		case "5" : // Exits the application
-			display("Goodbye!");
-			System.exit(0);
+		case "5" : // Finds a shortest path between two stations
+			prompt("Finds the shortest path between two stations...");
+			String from = readStation("Enter the name of the start station:");
+			String to = readStation("Enter the name of the end station:");
+			display(controller.showShortestPathBetween(from, to));
+			break;
+		case "6" : // Finds the fastest route between two stations
+			prompt("Finds the fastest route between two stations...");
+			String origin = readStation("Enter the name of the start station:");
+			String destination = readStation("Enter the name of the end station:");
+			display(controller.showFastestPathBetween(origin, destination));
+			break;
+		case "7" : // Finds the route with the fewest changes between two stations
+			prompt("Finds the route with the fewest changes of line between two stations...");
+			String boarding = readStation("Enter the name of the start station:");
+			String alighting = readStation("Enter the name of the end station:");
+			display(controller.showFewestTransfersBetween(boarding, alighting));
+			break;
+		case "8" : // Finds alternative routes between two stations
+			prompt("Finds alternative routes between two stations...");
+			String first = readStation("Enter the name of the start station:");
+			String last = readStation("Enter the name of the end station:");
+			prompt("Enter the number of routes you'd like to see:");
+			String count = nextLine();
+			prompt("Rank the routes by stops or by time? (s/t)");
+			PathResult.Kind kind = nextLine().toLowerCase().startsWith("t")
+					? PathResult.Kind.FASTEST : PathResult.Kind.SHORTEST;
+			int k;
+			try {
+				k = Integer.parseInt(count);
+			} catch (NumberFormatException e) {
+				k = 0;
+			}
+			if (k < 1) {
+				display("\nNot A Number Of Routes");
+			} else {
+				display(controller.showAlternativePathsBetween(first, last, k, kind));
+			}
 			break;
+		case "9" : // Lists the stations within reach of a station
+			prompt("Lists the stations within reach of a station...");
+			String centre = readStation("Enter the name of the station:");
+			prompt("Enter the most stops, or the most minutes followed by m (e.g. 20m):");
+			String bound = nextLine().toLowerCase();
+			try {
+				if (bound.endsWith("m")) {
+					display(controller.showStationsWithinMinutes(centre,
+							Double.parseDouble(bound.substring(0, bound.length() - 1).trim())));
+				} else {
+					display(controller.showStationsWithinStops(centre, Integer.parseInt(bound)));
+				}
+			} catch (IllegalArgumentException e) {
+				display("\nNot A Valid Bound");
+			}
+			break;
+		case "10" : // Shows the query metrics
+			display(Metrics.dump());
+			break;
+		case "11" : // Switches to another network
+			prompt("Switches to another network...");
+			prompt("Networks: " + (registry == null ? "" : String.join(", ", registry.ids())));
+			prompt("Enter the name of the network:");
+			String id = nextLine();
+			Controller next = registry == null ? null : registry.controller(id);
+			if (next == null) {
+				display("\nNot A Network");
+			} else {
+				controller = next;
+				network = id;
+				display("\nNow Showing: " + id);
+			}
+			break;
+		case "12" : // Exits the application
+			display("Goodbye!");
+			return false;
 		default : // Not a known command option
 			display(unrecogniseCommandErrorMsg(command));
 		}
+		return true;
 	}
 	
+	/*
+	 * Reads a station name. A name ending in * lists the stations starting with it and asks again,
+	 * and a name of no station is followed by the closest names before it is used as typed.
+	 * @param prompt	the request for the name
+	 * @return	the name as typed
+	 */
+	private String readStation(String prompt) {
+		while (true) {
+			prompt(prompt);
+			String name = nextLine();
+			if (name.endsWith("*")) {
+				List<String> names = controller.completeStationName(name.substring(0, name.length() - 1), NAMES_LISTED);
+				display(names.isEmpty() ? "\nNo Station Starts With That" : "\n" + String.join("\n", names) + "\n");
+				continue;
+			}
+			if (controller.resolveStationName(name) == null) {
+				List<String> names = controller.suggestStationNames(name, NAMES_LISTED);
+				if (!names.isEmpty()) {
+					display("\nDid You Mean: " + String.join(", ", names));
+				}
+			}
+			return name;
+		}
+	}
+
 	/*
 	 * Returns a string representation of a brief title for this application as the header.
 	 * @return	a header
@@ -98,11 +317,19 @@ public class TUI {
 	 */
 	private static String menu() {
 		return "Enter the number associated with your chosen menu option.\n" +
+			   "Station names ignore case; end a name with * to list the stations starting with it.\n" +
 			   "1: List all termini in the MTR network\n" +
 			   "2: List all stations in a line in the MTR network\n" +
 		       "3: List all lines that are directly connected to a line\n" +
 			   "4: Find a path between two stations\n" +
-			   "5: Exit this application\n";
+			   "5: Find the shortest path between two stations\n" +
+			   "6: Find the fastest route between two stations\n" +
+			   "7: Find the route with the fewest changes between two stations\n" +
+			   "8: Find alternative routes between two stations\n" +
+			   "9: List all stations within a number of stops or minutes of a station\n" +
+			   "10: Show query metrics\n" +
+			   "11: Switch to another network\n" +
+			   "12: Exit this application\n";
 	}
 	
 	/*
@@ -110,7 +337,42 @@ public class TUI {
 	 * @param info	info to be displayed on the screen
 	 */
 	private void display(String info) {
-		System.out.println(info);
+		out.println(info);
+	}
+
+	/*
+	 * Displays a heading or a request for input, which a script has no use for.
+	 * @param info	info to be displayed on the screen
+	 */
+	private void prompt(String info) {
+		if (!batch) {
+			out.println(info);
+		}
+	}
+
+	/*
+	 * Reads the next line of input, trimmed.
+	 * @return	the line
+	 * @throws NoSuchElementException if the input has ended
+	 */
+	private String nextLine() {
+		String line = readLine();
+		if (line == null) {
+			throw new NoSuchElementException("No line found");
+		}
+		return line.trim();
+	}
+
+	/*
+	 * Reads the next line of input as it is.
+	 * @return	the line, or null if the input has ended
+	 */
+	private String readLine() {
+		try {
+			return stdIn.readLine();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 	
     /*
@@ -0,0 +1,76 @@
+package mvc;
+
+import java.util.List;
+
+/**
+ * The end stations of a line. A straight line has two, a line with branches one more for each branch
+ * and a line running round a loop none.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public final class Termini {
+
+	private final String line;
+	private final List<String> stations;
+
+	/**
+	 * Constructs a new {@link Termini} of a straight line
+	 * @param line	the name of the line
+	 * @param first	the name of the station the line starts at
+	 * @param last	the name of the station the line ends at
+	 */
+	public Termini(String line, String first, String last) {
+		this(line, List.of(first, last));
+	}
+
+	/**
+	 * Constructs a new {@link Termini}
+	 * @param line	the name of the line
+	 * @param stations	the names of the stations the line ends at, in the order they appear on it
+	 */
+	public Termini(String line, List<String> stations) {
+		this.line = line;
+		this.stations = List.copyOf(stations);
+	}
+
+	/**
+	 * @return the name of the line
+	 */
+	public String line() {
+		return line;
+	}
+
+	/**
+	 * @return the name of the station the line starts at, or null if it runs round a loop
+	 */
+	public String first() {
+		return stations.isEmpty() ? null : stations.get(0);
+	}
+
+	/**
+	 * @return the name of the station the line ends at, or null if it runs round a loop
+	 */
+	public String last() {
+		return stations.isEmpty() ? null : stations.get(stations.size() - 1);
+	}
+
+	/**
+	 * @return the names of every station the line ends at, empty if it runs round a loop
+	 */
+	public List<String> stations() {
+		return stations;
+	}
+
+	/**
+	 * @return true if the line runs round a loop and has no termini
+	 */
+	public boolean isLoop() {
+		return stations.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return line + ": " + (isLoop() ? "Loop" : String.join(", ", stations));
+	}
+}
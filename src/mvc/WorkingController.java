@@ -1,17 +1,37 @@
 package mvc;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.Date;
-import java.util.Iterator;
-import java.util.Queue;
-import java.util.Stack;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import metro.MetroLine;
-import metro.MetroStation;
+import metro.Catchment;
+import metro.CsvNetworkLoader;
+import metro.FastestRouteSearch;
+import metro.GraphSnapshot;
+import metro.HubLabels;
+import metro.KShortestPaths;
+import metro.LineGraph;
+import metro.MetroGraph;
 import metro.MetroSystem;
+import metro.NamePool;
+import metro.ParallelNetworkLoader;
+import metro.PathSearch;
+import metro.RankedPath;
+import metro.StationNameIndex;
+import metro.TimedRoute;
+import metro.TransferRoute;
+import metro.TravelTimes;
+import metrics.Metrics;
 
 /**
  * MTR is a concrete class of controller implementing the four methods required for the 
@@ -20,58 +40,428 @@ import metro.MetroSystem;
  */
 public class WorkingController implements Controller {
 
-	private final MetroSystem collection;
+	//routes kept by default, enough for warmRouteCache to hold every kind of path between every pair
+	//of the 89 stations of the bundled network, 4 x 89 x 89 = 31,684 routes
+	public static final int DEFAULT_ROUTE_CACHE_SIZE = 32_768;
+	//csv files from this size are parsed on several threads, smaller ones load faster on one
+	private static final long PARALLEL_LOAD_BYTES = 4L << 20;
+	//threads loading a large csv, set with -Dmtr.loadThreads
+	private static final int LOAD_THREADS = Integer.getInteger("mtr.loadThreads", Runtime.getRuntime().availableProcessors());
+
+	//most typing mistakes a suggested station name may be away from what was typed
+	private static final int SUGGESTION_EDITS = 2;
+
+	//operation each kind of path is timed under, indexed by kind
+	private static final Metrics.Operation[] OPERATIONS = {
+		Metrics.Operation.PATH, Metrics.Operation.SHORTEST_PATH,
+		Metrics.Operation.FASTEST_PATH, Metrics.Operation.FEWEST_TRANSFERS
+	};
+
+	//the network updates edit, built from the graph on the first update and kept from then on
+	private MetroSystem collection;
+	//the version of the network new queries run over, replaced whole by update
+	private volatile Version current;
+	//true while a thread is rebuilding the hub labels of an updated network
+	private boolean rebuildingHubLabels;
+	private final TravelTimes travelTimes;
+	private final RouteCache routeCache;
+	//the pool the names of every version are taken from, or null to keep the names as loaded
+	private final NamePool names;
+	//scratch catchment of each querying thread, reused query after query
+	private final ThreadLocal<Catchment> catchments = ThreadLocal.withInitial(() -> new Catchment(0));
 
 	public WorkingController(String path) {
+		this(path, DEFAULT_ROUTE_CACHE_SIZE);
+	}
 
-		long startTime = new Date().getTime();
-		collection = new MetroSystem();
-
-		String sentence;
-		try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-			// While there are still lines left to read in the csv file
-			while ((sentence = br.readLine()) != null) {
-				String[] temp = sentence.split(",");
-				MetroLine line = new MetroLine(temp[0]);
-
-				// Add each station in the current line to the collection
-				for (int i = 1; i < temp.length; i++) {
-					MetroStation station;
-
-					if (collection.getStations().containsKey(temp[i])) {
-						station = collection.getStation(temp[i]);
-						station.addLine(line);
-					} else {
-						station = new MetroStation(temp[i]);
-						station.addLine(line);
-						collection.addStation(station);
-					}
+	/**
+	 * Constructs a controller over the network in a csv, with a route cache of the specified size
+	 * @param path	the csv, or the csv a compiled snapshot was made from
+	 * @param routeCacheSize	most routes cached at once, 0 disables the cache
+	 */
+	public WorkingController(String path, int routeCacheSize) {
+		this(path, routeCacheSize, null);
+	}
 
-					line.addStation(station);
+	/**
+	 * Constructs a controller over the network in a csv, with a route cache of the specified size,
+	 * sharing its station and line names with the other networks taking names from the same pool
+	 * @param path	the csv, or the csv a compiled snapshot was made from
+	 * @param routeCacheSize	most routes cached at once, 0 disables the cache
+	 * @param names	the pool of names shared by the networks of this process, or null to keep the names as loaded
+	 */
+	public WorkingController(String path, int routeCacheSize, NamePool names) {
+
+		this.names = names;
+		long startTime = System.nanoTime();
+		long phaseStart = startTime;
+		MetroGraph graph;
+
+		// A compiled snapshot that is still current with the csv skips parsing altogether
+		Path snapshot = GraphSnapshot.snapshotFor(path);
+		MetroGraph compiled = null;
+		try {
+			compiled = GraphSnapshot.read(snapshot, Paths.get(path), names);
+		} catch (IOException e) {
+			System.out.println("Snapshot Not Readable, Loading " + path);
+		}
+		phaseStart = phase("snapshot read", phaseStart);
+
+		if (compiled != null) {
+			graph = compiled;
+		} else {
+			MetroSystem loaded;
+			try {
+				// Reads every row and builds the adjacent stations and connections of each line
+				loaded = loadNetwork(path);
+			} catch (IOException e) {
+				e.printStackTrace();
+				if (e instanceof FileNotFoundException || e instanceof NoSuchFileException) {
+					System.out.println("File Not Found");
 				}
-				//Add the current line to the collection
-				collection.addLine(line);
+				loaded = new MetroSystem();
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			if (e instanceof FileNotFoundException) {
-				System.out.println("File Not Found");
+			phaseStart = phase("csv load", phaseStart);
+
+			//Queries run over an integer indexed snapshot of the collection, which is not kept,
+			//it takes several times the heap of the graph and is only needed by an update
+			graph = new MetroGraph(loaded, names);
+			phaseStart = phase("graph build", phaseStart);
+
+			// A stale snapshot is compiled again so the next start is fast
+			if (Files.exists(snapshot) && Files.exists(Paths.get(path))) {
+				try {
+					GraphSnapshot.write(graph, Paths.get(path), snapshot);
+				} catch (IOException e) {
+					System.out.println("Snapshot Not Updated: " + e.getMessage());
+				}
+				phaseStart = phase("snapshot write", phaseStart);
+			}
+		}
+		PathSearch pathSearch = new PathSearch(graph);
+		travelTimes = loadTravelTimes(path);
+		FastestRouteSearch fastestRouteSearch = new FastestRouteSearch(graph, travelTimes);
+		phaseStart = phase("travel times", phaseStart);
+		LineGraph lineGraph = new LineGraph(graph);
+		phaseStart = phase("line graph", phaseStart);
+		// Hub labels built over another network take a search from every station to build again, so
+		// the network is published without them and they are built in the background
+		Path labelsFile = HubLabels.labelsFor(path);
+		HubLabels hubLabels = null;
+		boolean staleHubLabels = false;
+		if (Files.exists(labelsFile)) {
+			try {
+				hubLabels = HubLabels.read(labelsFile, graph);
+				staleHubLabels = hubLabels == null;
+			} catch (IOException e) {
+				System.out.println("Hub Labels Not Readable: " + e.getMessage());
 			}
 		}
+		phaseStart = phase("hub labels", phaseStart);
+		KShortestPaths fewestStopPaths = new KShortestPaths(graph);
+		KShortestPaths quickestPaths = new KShortestPaths(graph, travelTimes);
+		phaseStart = phase("alternative paths", phaseStart);
+		StationNameIndex nameIndex = new StationNameIndex(graph);
+		phase("name index", phaseStart);
+		current = new Version(graph, pathSearch, fastestRouteSearch, lineGraph, fewestStopPaths, quickestPaths,
+				hubLabels, nameIndex, 0);
+		routeCache = new RouteCache(routeCacheSize);
+
+		long timeElapsed = System.nanoTime() - startTime;
+		Metrics.phase("total", timeElapsed);
+		Metrics.registerMBean();
+		System.out.println("Time taken to Initialise: " + timeElapsed / 1_000_000);
+		if (staleHubLabels) {
+			synchronized (this) {
+				startHubLabelRebuild(labelsFile);
+			}
+		}
+	}
+
+	/*
+	 * Records how long a phase of loading took.
+	 * @param name	the phase
+	 * @param phaseStart	{@link System#nanoTime()} when it started
+	 * @return	{@link System#nanoTime()} now, when the next phase starts
+	 */
+	private static long phase(String name, long phaseStart) {
+		long now = System.nanoTime();
+		Metrics.phase(name, now - phaseStart);
+		return now;
+	}
+
+	/*
+	 * Loads the network in a csv, on several threads when the file is large enough to gain from it.
+	 * @param path	the network csv
+	 * @return	the loaded network
+	 * @throws IOException	if the file cannot be read
+	 */
+	private static MetroSystem loadNetwork(String path) throws IOException {
+		if (LOAD_THREADS > 1 && Files.size(Paths.get(path)) >= PARALLEL_LOAD_BYTES) {
+			return new ParallelNetworkLoader(path, LOAD_THREADS).load();
+		}
+		return new CsvNetworkLoader(path).load();
+	}
 
-		//Adds the adjacent stations to each station
-		for (String lineName : collection.getLines().keySet()) {
-			MetroLine line = collection.getOneLine(lineName);
-			line.addConnectingStations();
-			for (MetroStation station : line.getAllStations().values()) {
-				station.nextPotentialStations();
-				line.addConnections(station.getLines());
+	/*
+	 * Reads the travel times kept next to the csv, or falls back to the default times.
+	 * @param path	the network csv
+	 * @return	the travel times of the network
+	 */
+	private static TravelTimes loadTravelTimes(String path) {
+		String timesPath = path + ".times";
+		if (Files.exists(Paths.get(timesPath))) {
+			try {
+				return TravelTimes.load(timesPath);
+			} catch (IOException e) {
+				System.out.println("Travel Times Not Readable, Using Defaults: " + e.getMessage());
 			}
 		}
+		return new TravelTimes(TravelTimes.DEFAULT_SEGMENT_MINUTES, TravelTimes.DEFAULT_INTERCHANGE_MINUTES);
+	}
 
-		long endTime = new Date().getTime();
-		long timeElapsed = endTime - startTime;
-		System.out.println("Time taken to Initialise: " + timeElapsed);
+	/**
+	 * One version of the network and the engines querying it, never changed once published.
+	 * A query reads the current version once and runs on it to the end, whatever updates happen meanwhile
+	 */
+	private static final class Version {
+
+		private final MetroGraph graph;
+		private final PathSearch pathSearch;
+		private final FastestRouteSearch fastestRouteSearch;
+		private final LineGraph lineGraph;
+		//alternative paths ranked by stops, and by riding time
+		private final KShortestPaths fewestStopPaths;
+		private final KShortestPaths quickestPaths;
+		//distance index answering fewest-stops paths, null when the network has none
+		private final HubLabels hubLabels;
+		//station names as people type them
+		private final StationNameIndex names;
+		//number of updates applied before this version
+		private final long number;
+
+		private Version(MetroGraph graph, PathSearch pathSearch, FastestRouteSearch fastestRouteSearch,
+				LineGraph lineGraph, KShortestPaths fewestStopPaths, KShortestPaths quickestPaths,
+				HubLabels hubLabels, StationNameIndex names, long number) {
+			this.graph = graph;
+			this.pathSearch = pathSearch;
+			this.fastestRouteSearch = fastestRouteSearch;
+			this.lineGraph = lineGraph;
+			this.fewestStopPaths = fewestStopPaths;
+			this.quickestPaths = quickestPaths;
+			this.hubLabels = hubLabels;
+			this.names = names;
+			this.number = number;
+		}
+
+		/*
+		 * The same version with hub labels built after it was published.
+		 */
+		private Version(Version version, HubLabels hubLabels) {
+			this.graph = version.graph;
+			this.pathSearch = version.pathSearch;
+			this.fastestRouteSearch = version.fastestRouteSearch;
+			this.lineGraph = version.lineGraph;
+			this.fewestStopPaths = version.fewestStopPaths;
+			this.quickestPaths = version.quickestPaths;
+			this.hubLabels = hubLabels;
+			this.names = version.names;
+			this.number = version.number;
+		}
+	}
+
+	/**
+	 * Method to get the loaded network, the one {@link #update(Consumer)} changes. Queries never read it,
+	 * so it must only be changed through an update.
+	 * When the controller started from a snapshot the system is rebuilt from the graph on first use
+	 * @return the {@link MetroSystem} behind this controller
+	 */
+	public synchronized MetroSystem getMetroSystem() {
+		if (collection == null) {
+			collection = current.graph.toMetroSystem();
+		}
+		return collection;
+	}
+
+	/**
+	 * Changes the network without reloading it, for closures, new stations and new lines.
+	 * The change edits the {@link MetroSystem} through its mutation methods, which patch the adjacent
+	 * stations, termini and line connections around each edit. The integer indexed graph and the search
+	 * engines are then rebuilt from the system and published as a new version, and the route cache is emptied.
+	 * <p>
+	 * Queries are never blocked: those already running finish on the version they started with, and only
+	 * queries starting after the update returns see the change. Updates are applied one at a time. A change
+	 * that throws has its completed edits published by the next update.
+	 * Hub labels are rebuilt in the background, fewest-stops paths are searched for until they are ready
+	 * @param change	edits the network
+	 * @return	number of the version now being queried
+	 */
+	public synchronized long update(Consumer<MetroSystem> change) {
+		long startTime = System.nanoTime();
+		MetroSystem system = getMetroSystem();
+		change.accept(system);
+
+		// O(n)
+		// Queries run over arrays that cannot be patched in place, so the new version gets its own
+		MetroGraph graph = new MetroGraph(system, names);
+		Version next = new Version(graph, new PathSearch(graph), new FastestRouteSearch(graph, travelTimes),
+				new LineGraph(graph), new KShortestPaths(graph), new KShortestPaths(graph, travelTimes), null,
+				new StationNameIndex(graph), current.number + 1);
+		boolean labelled = current.hubLabels != null;
+		current = next;
+		if (labelled) {
+			startHubLabelRebuild(null);
+		}
+		routeCache.invalidate();
+		Metrics.phase("update", System.nanoTime() - startTime);
+		return next.number;
+	}
+
+	/*
+	 * Starts a thread rebuilding the hub labels of the current version, unless one is already running.
+	 * Must be called holding the lock of this controller.
+	 * @param file	where the labels of the network as loaded are written, or null to keep them in memory only
+	 */
+	private void startHubLabelRebuild(Path file) {
+		if (rebuildingHubLabels) {
+			return;
+		}
+		rebuildingHubLabels = true;
+		Thread builder = new Thread(() -> rebuildHubLabels(file), "hub-labels");
+		builder.setDaemon(true);
+		builder.start();
+	}
+
+	/*
+	 * Builds hub labels for the current version and publishes them with it, starting again whenever
+	 * an update replaces the version while its labels are being built.
+	 * @param file	where the labels of the network as loaded are written, or null to keep them in memory only
+	 */
+	private void rebuildHubLabels(Path file) {
+		Version version = current;
+		try {
+			while (true) {
+				long startTime = System.nanoTime();
+				HubLabels labels = HubLabels.build(version.graph);
+				// Labels of the network as loaded are written back so the next start is fast
+				if (file != null && version.number == 0) {
+					try {
+						labels.write(file);
+					} catch (IOException e) {
+						System.out.println("Hub Labels Not Updated: " + e.getMessage());
+					}
+				}
+				synchronized (this) {
+					if (current == version) {
+						current = new Version(version, labels);
+						rebuildingHubLabels = false;
+						Metrics.phase("hub labels", System.nanoTime() - startTime);
+						return;
+					}
+					version = current;
+				}
+			}
+		} catch (RuntimeException e) {
+			System.out.println("Hub Labels Not Rebuilt: " + e.getMessage());
+			synchronized (this) {
+				rebuildingHubLabels = false;
+			}
+		}
+	}
+
+	/**
+	 * @return number of updates applied to the network since it was loaded
+	 */
+	public long getVersion() {
+		return current.number;
+	}
+
+	/**
+	 * Method to get the integer indexed snapshot that queries run over
+	 * @return the {@link MetroGraph} of the current version of the network
+	 */
+	public MetroGraph getGraph() {
+		return current.graph;
+	}
+
+	/**
+	 * Method to get the distance index answering fewest-stops paths
+	 * @return the {@link HubLabels} of the current version, or null if the network has none or they are being rebuilt
+	 */
+	public HubLabels getHubLabels() {
+		return current.hubLabels;
+	}
+
+	/**
+	 * Method to get the lines of the network and the interchanges between them
+	 * @return the {@link LineGraph} of the current version of the network
+	 */
+	public LineGraph getLineGraph() {
+		return current.lineGraph;
+	}
+
+	/**
+	 * Method to get the cache of path results, to read its counters
+	 * @return the {@link RouteCache} of this controller
+	 */
+	public RouteCache getRouteCache() {
+		return routeCache;
+	}
+
+	/**
+	 * Fills the route cache with every kind of path between every pair of stations.
+	 * Only done when every route fits, which limits it to small networks
+	 * @return number of routes computed, 0 if the network is too large for the cache
+	 */
+	public int warmRouteCache() {
+		Version version = current;
+		int stations = version.graph.stationCount();
+		PathResult.Kind[] kinds = PathResult.Kind.values();
+		long routes = (long) kinds.length * stations * stations;
+		if (routes > routeCache.capacity()) {
+			return 0;
+		}
+		for (int start = 0; start < stations; start++) {
+			for (int end = 0; end < stations; end++) {
+				for (PathResult.Kind kind : kinds) {
+					routeCache.put(RouteCache.key(start, end, kind), findPath(version, start, end, kind));
+				}
+			}
+		}
+		return (int) routes;
+	}
+
+	/**
+	 * Finds a path for every pair of a batch, grouping the pairs by origin so each origin is searched
+	 * once, spread over the common fork join pool. The paths have the fewest stops and bypass the route cache
+	 * @param pairs	the origins and destinations
+	 * @return a result for each pair, in the order the pairs were given
+	 */
+	public List<PathResult> findPaths(List<StationPair> pairs) {
+		return findPaths(pairs, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Finds a path for every pair of a batch, grouping the pairs by origin so each origin is searched once
+	 * @param pairs	the origins and destinations
+	 * @param pool	the pool to spread the origins over
+	 * @return a result for each pair, in the order the pairs were given
+	 */
+	public List<PathResult> findPaths(List<StationPair> pairs, ForkJoinPool pool) {
+		long startTime = Metrics.start();
+		Version version = current;
+		List<PathResult> results = new BatchPathQuery(version.graph, version.pathSearch, pairs).run(pool);
+		Metrics.stop(Metrics.Operation.BATCH_PATHS, startTime);
+		return results;
+	}
+
+	/**
+	 * Finds a path for every pair of a stream, which is read to its end before any search starts
+	 * @param pairs	the origins and destinations
+	 * @return a result for each pair, in the order of the stream
+	 */
+	public List<PathResult> findPaths(Stream<StationPair> pairs) {
+		return findPaths(pairs.collect(Collectors.toList()));
 	}
 
 	/**
@@ -80,27 +470,42 @@ public class WorkingController implements Controller {
 	 */
 	@Override
 	public String listAllTermini() {
-		long startTime = (new Date().getTime());
+		long startTime = System.nanoTime();
 
-		StringBuilder sb = new StringBuilder();
+		StringBuilder sb = new StringBuilder(ResultFormat.termini(getTermini()));
 
-		// O(n)
-		// Add the first and last element of the Line and add it to the StringBuffer
-		for (String name : collection.getLines().keySet()) {
-			MetroLine temp = collection.getOneLine(name); 					// O(1)
-			sb.append("Train Line: ").append(temp.toString()).append("\n"); 			// O(1)
-			sb.append("Termini: ").append(temp.getFirst().toString()).append(", "); 	// O(1)
-			sb.append(temp.getLast().toString()).append("\n"); 				// O(1)
-			sb.append("\n"); 											// O(1)
-		}
-		
-		long endTime = (new Date().getTime());
-		long elapsedTime = endTime - startTime;
+		long elapsedTime = (System.nanoTime() - startTime) / 1_000_000;
 
 		sb.append("Elapsed Time: ").append(elapsedTime);
 		return sb.toString();
 	}
 
+	/**
+	 * Gets the termini of every line in this MTR network, without formatting or timing.
+	 * @return	the termini of each line with stations, in the order the lines are listed
+	 */
+	@Override
+	public List<Termini> getTermini() {
+		long startTime = Metrics.start();
+		MetroGraph graph = current.graph;
+		List<Termini> termini = new ArrayList<>(graph.lineCount());
+
+		// O(n)
+		// The end stations of every line with stations, none for a loop
+		for (int line = 0; line < graph.lineCount(); line++) {
+			if (graph.lineSize(line) == 0) {
+				continue;
+			}
+			List<String> ends = new ArrayList<>(graph.terminusCount(line));
+			for (int k = 0; k < graph.terminusCount(line); k++) {
+				ends.add(graph.stationName(graph.terminus(line, k))); 						// O(1)
+			}
+			termini.add(new Termini(graph.lineName(line), ends));
+		}
+		Metrics.stop(Metrics.Operation.TERMINI, startTime);
+		return termini;
+	}
+
 	/**
 	 * Lists the stations in their respective order in the specified MTR line.
 	 * @param line	a specified line in the MTR network
@@ -108,64 +513,82 @@ public class WorkingController implements Controller {
 	 */
 	@Override
 	public String listStationsInLine(String line) {
-		long startTime = (new Date().getTime());
-		StringBuilder sb = new StringBuilder();
+		long startTime = System.nanoTime();
 
-		MetroLine trainLine = collection.getOneLine(line);
-		if (trainLine == null) {
-			return "\nNot A Line";
+		List<String> stations = getStationsInLine(line);
+		if (stations == null) {
+			return ResultFormat.stationsInLine(line, null);
 		}
-		sb.append(trainLine).append(": ");
-		Iterator<MetroStation> stationIterator = trainLine.iterator();
+		String sb = ResultFormat.stationsInLine(line, stations);
 
-		// O(n)
-		//While there is a next element which is not null add the element to the StringBuffer
-		while (stationIterator.hasNext()) {
-			MetroStation temp = stationIterator.next();
-			if (!stationIterator.hasNext()) { 				// O(1)
-				sb.append(temp.toString()); 					// O(1)
-			} else {
-				sb.append(temp.toString()).append(" <-> "); 		// O(1)
-			}
-		}
-
-		long endTime = (new Date().getTime());
-		long elapsedTime = endTime - startTime;
+		long elapsedTime = (System.nanoTime() - startTime) / 1_000_000;
 
 		return sb + "\nElapsed Time: " + elapsedTime;
 	}
 
 	/**
-	 * Lists the name of the line(s) that is/are directly connected with the specified MTR line.
+	 * Gets the stations of the specified MTR line in their order, without formatting or timing.
+	 * @param line	a specified line in the MTR network
+	 * @return	the names of the stations, or null if it is not a line
+	 */
+	@Override
+	public List<String> getStationsInLine(String line) {
+		long startTime = Metrics.start();
+		MetroGraph graph = current.graph;
+		int trainLine = graph.lineId(line);
+		if (trainLine == -1) {
+			Metrics.stop(Metrics.Operation.STATIONS_IN_LINE, startTime);
+			return null;
+		}
+
+		// O(n)
+		//Every station of the line in order
+		List<String> stations = new ArrayList<>(graph.lineSize(trainLine));
+		for (int i = 0; i < graph.lineSize(trainLine); i++) {
+			stations.add(graph.stationName(graph.lineStation(trainLine, i))); 	// O(1)
+		}
+		Metrics.stop(Metrics.Operation.STATIONS_IN_LINE, startTime);
+		return stations;
+	}
+
+	/**
+	 * Lists the name of the line(s) that is/are directly connected with the specified MTR line,
+	 * in the order their first shared station comes along it.
 	 * @param line	a specified line in the MTR network
 	 * @return	a String representation of the name of the required line(s)
 	 */
 	@Override
 	public String listAllDirectlyConnectedLines(String line) {
-		long startTime = (new Date().getTime());
+		return ResultFormat.connectedLines(getDirectlyConnectedLines(line));
+	}
 
-		StringBuilder sb = new StringBuilder();
-		try {
-			sb.append("Directly Connected Lines: \n");
-			// Get desired line from the collection
-			MetroLine trainLine = collection.getOneLine(line); 	// O(1)
-
-			// O(n)
-			for (String name : trainLine.getConnections().keySet()) {
-				if (!name.equals(line)) {
-					//Add all the lines to the StringBuffer that are not the current line
-					sb.append("\n").append(name); 					// O(1)
-				}
-			}
-		} catch (Exception e) {
-			sb.append("Not A Line");
+	/**
+	 * Gets the lines sharing a station with the specified MTR line, without formatting or timing.
+	 * @param line	a specified line in the MTR network
+	 * @return	the names of the connected lines in the order their first shared station comes along the
+	 * line, or null if it is not a line
+	 */
+	@Override
+	public List<String> getDirectlyConnectedLines(String line) {
+		long startTime = Metrics.start();
+		Version version = current;
+		MetroGraph graph = version.graph;
+		LineGraph lineGraph = version.lineGraph;
+		// Get desired line from the graph
+		int trainLine = graph.lineId(line); 					// O(1)
+		if (trainLine == -1) {
+			Metrics.stop(Metrics.Operation.CONNECTED_LINES, startTime);
+			return null;
 		}
 
-		long endTime = (new Date().getTime());
-		long elapsedTime = endTime - startTime;
-		System.out.println("Elapsed Time: " + elapsedTime);
-
-		return sb.toString();
+		// O(n)
+		//All the lines sharing a station, the current line is never among them
+		List<String> lines = new ArrayList<>(lineGraph.degree(trainLine));
+		for (int k = 0; k < lineGraph.degree(trainLine); k++) {
+			lines.add(graph.lineName(lineGraph.neighbour(trainLine, k))); 	// O(1)
+		}
+		Metrics.stop(Metrics.Operation.CONNECTED_LINES, startTime);
+		return lines;
 	}
 
 	/**
@@ -177,84 +600,426 @@ public class WorkingController implements Controller {
 	 */
 	@Override
 	public String showPathBetween(String stationA, String stationB) {
+		return showPath(stationA, stationB, PathResult.Kind.ANY);
+	}
+
+	/**
+	 * Lists a path with the fewest stops between the specified stations.
+	 * The path is represented as a sequence of the name of the stations between the specified stations. 
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	a String representation of a shortest path between the specified stations
+	 */
+	@Override
+	public String showShortestPathBetween(String stationA, String stationB) {
+		return showPath(stationA, stationB, PathResult.Kind.SHORTEST);
+	}
+
+	/**
+	 * Lists the route with the least travel time between the specified stations,
+	 * counting the time of each segment and a penalty for every change of line.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	a String representation of the fastest route and its travel time
+	 */
+	@Override
+	public String showFastestPathBetween(String stationA, String stationB) {
+		return showPath(stationA, stationB, PathResult.Kind.FASTEST);
+	}
 
-		if (!collection.getStations().containsKey(stationA) || !collection.getStations().containsKey(stationB)) {
-			return "\nOne Or More Stations Not In The Set";
+	/**
+	 * Lists a route with the fewest changes of line between the specified stations.
+	 * The lines are chosen first, then the stations along them
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	a String representation of the route and the lines ridden
+	 */
+	@Override
+	public String showFewestTransfersBetween(String stationA, String stationB) {
+		return showPath(stationA, stationB, PathResult.Kind.FEWEST_TRANSFERS);
+	}
+
+	/**
+	 * Lists up to k distinct paths between the specified stations, best first, for when the usual
+	 * route is disrupted. No path calls at a station twice.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @param k	most paths to list, at least 1
+	 * @param kind	{@link PathResult.Kind#SHORTEST} to rank by stops, {@link PathResult.Kind#FASTEST} by riding time
+	 * @return	a String representation of the numbered paths
+	 */
+	@Override
+	public String showAlternativePathsBetween(String stationA, String stationB, int k, PathResult.Kind kind) {
+		return ResultFormat.alternatives(getAlternativePathsBetween(stationA, stationB, k, kind));
+	}
+
+	/**
+	 * Gets up to k distinct paths between the specified stations as station ids, best first.
+	 * Riding time counts the quickest line along each segment and no interchange penalty, and alternatives
+	 * are not cached as their number varies from query to query.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @param k	most paths wanted, at least 1
+	 * @param kind	{@link PathResult.Kind#SHORTEST} to rank by stops, {@link PathResult.Kind#FASTEST} by riding time
+	 * @return	the paths, or a single result giving the reason there is none
+	 * @throws IllegalArgumentException if k is below 1 or the kind is neither of the two
+	 */
+	@Override
+	public List<PathResult> getAlternativePathsBetween(String stationA, String stationB, int k, PathResult.Kind kind) {
+		if (k < 1) {
+			throw new IllegalArgumentException("At least one path must be asked for: " + k);
+		}
+		if (kind != PathResult.Kind.SHORTEST && kind != PathResult.Kind.FASTEST) {
+			throw new IllegalArgumentException("Alternatives are ranked by stops or travel time, not " + kind);
+		}
+		long startTime = Metrics.start();
+		Version version = current;
+		MetroGraph graph = version.graph;
+		int start = stationId(version, stationA);
+		int end = stationId(version, stationB);
+		if (start == -1 || end == -1) {
+			Metrics.stop(Metrics.Operation.ALTERNATIVE_PATHS, startTime);
+			return List.of(PathResult.unknown(graph, kind, stationA, stationB));
 		}
 
-		long startTime = (new Date().getTime());
-		StringBuilder sb = new StringBuilder();
+		// O(k * n)
+		// One tree from the end, then a few short spur searches for each path
+		boolean fastest = kind == PathResult.Kind.FASTEST;
+		KShortestPaths engine = fastest ? version.quickestPaths : version.fewestStopPaths;
+		List<RankedPath> paths = engine.findPaths(start, end, k);
+		if (Metrics.isEnabled()) {
+			Metrics.expanded(Metrics.Operation.ALTERNATIVE_PATHS, engine.lastExpanded());
+		}
+		String from = graph.stationName(start);
+		String to = graph.stationName(end);
+		List<PathResult> results = new ArrayList<>(Math.max(1, paths.size()));
+		for (RankedPath path : paths) {
+			results.add(fastest
+					? PathResult.route(graph, kind, from, to, path.stations(), null, path.cost(), -1)
+					: PathResult.path(graph, kind, from, to, path.stations()));
+		}
+		if (results.isEmpty()) {
+			results.add(PathResult.noPath(graph, kind, from, to));
+		}
+		Metrics.stop(Metrics.Operation.ALTERNATIVE_PATHS, startTime);
+		return results;
+	}
 
-		
-		Stack<MetroStation> path = new Stack<>();
-		Stack<MetroStation> reversedPath = new Stack<>();
+	/**
+	 * Lists every station within a number of stops of the specified station, nearest first.
+	 * @param station	the name of a station
+	 * @param stops	most stops away, 0 lists the station alone
+	 * @return	a String representation of the stations and their stops away
+	 */
+	@Override
+	public String showStationsWithinStops(String station, int stops) {
+		return getStationsWithinStops(List.of(station), stops).toString();
+	}
 
-		MetroStation end = collection.getStation(stationB);
-		MetroStation start = collection.getStation(stationA);
-		MetroStation current = start;
+	/**
+	 * Lists every station within a travel time of the specified station, nearest first,
+	 * counting the time of each segment and a penalty for every change of line.
+	 * @param station	the name of a station
+	 * @param minutes	most minutes away
+	 * @return	a String representation of the stations and their minutes away
+	 */
+	@Override
+	public String showStationsWithinMinutes(String station, double minutes) {
+		return getStationsWithinMinutes(List.of(station), minutes).toString();
+	}
 
-		path.push(current);
-		current.markVisited();
-		Queue<MetroStation> potential = current.potentialStations();
+	/**
+	 * Gets every station within a number of stops of the nearest of the specified stations, as station ids.
+	 * The search stops expanding at the bound, so a small catchment costs little however large the network
+	 * @param stations	the names of the stations to start from, those not in the network are reported and skipped
+	 * @param stops	most stops away
+	 * @return	the stations and their stops away, nearest first
+	 * @throws IllegalArgumentException if the bound is negative
+	 */
+	@Override
+	public ReachResult getStationsWithinStops(List<String> stations, int stops) {
+		if (stops < 0) {
+			throw new IllegalArgumentException("Stops must not be negative: " + stops);
+		}
+		return reach(stations, stops, false);
+	}
 
-		
-		//O(n)
-		//While you have not reached the end of the path
-		while (!current.equals(end)) {
+	/**
+	 * Gets every station within a travel time of the nearest of the specified stations, as station ids,
+	 * counting the time of each segment and a penalty for every change of line
+	 * @param stations	the names of the stations to start from, those not in the network are reported and skipped
+	 * @param minutes	most minutes away
+	 * @return	the stations and their seconds away, nearest first
+	 * @throws IllegalArgumentException if the bound is negative
+	 */
+	@Override
+	public ReachResult getStationsWithinMinutes(List<String> stations, double minutes) {
+		if (!(minutes >= 0)) {
+			throw new IllegalArgumentException("Minutes must not be negative: " + minutes);
+		}
+		return reach(stations, (int) Math.min(Integer.MAX_VALUE, Math.floor(minutes * 60)), true);
+	}
 
-			// if there are no more adjacent stations left
-			if (potential.isEmpty()) {
-				//Remove from the top of the path stack and update the current and potential variables.
-				path.pop(); 								// O(1)
-				current = path.peek(); 						// O(1)
-				potential = current.potentialStations(); 	// O(1)
+	/*
+	 * Finds every station within a bound of the nearest seed.
+	 * @param stations	the names of the seeds
+	 * @param bound	most stops, or seconds, away
+	 * @param timed	true to bound by travel time, false by stops
+	 * @return	the stations within the bound
+	 */
+	private ReachResult reach(List<String> stations, int bound, boolean timed) {
+		Metrics.Operation operation = timed ? Metrics.Operation.STATIONS_WITHIN_MINUTES
+				: Metrics.Operation.STATIONS_WITHIN_STOPS;
+		long startTime = Metrics.start();
+		Version version = current;
+		MetroGraph graph = version.graph;
+		int[] seeds = new int[stations.size()];
+		int count = 0;
+		List<String> unknown = new ArrayList<>(0);
+		for (String name : stations) {
+			int id = stationId(version, name); 							// O(1), O(log n) if not spelt exactly
+			if (id == -1) {
+				unknown.add(name);
 			} else {
-			//If there are still adjacent stations remaining
-				if (potential.element().isVisited()) {
-					potential.remove(); 					// O(1)
-				} else {
-					//If the first element in the potential station queue has not yet been visited
-					//Update the current station to the next potential station and remove from the list.
-					current = potential.remove(); 			// O(1)
-					path.push(current); 					// O(1)
-					current.markVisited(); 					// O(1)
-					potential = current.potentialStations();// O(1)
-				}
+				seeds[count++] = id;
 			}
 		}
 
-		// O(n)
-		// Reverses the path (End Station At Top of Stack)
-		while (!path.isEmpty() && !(start.equals(path.peek()))) {
-			reversedPath.push(path.pop());
+		// O(n) in the stations within the bound
+		Catchment catchment = catchments.get();
+		if (timed) {
+			version.fastestRouteSearch.reachWithin(Arrays.copyOf(seeds, count), bound, catchment);
+		} else {
+			version.pathSearch.reachWithin(Arrays.copyOf(seeds, count), bound, catchment);
+		}
+		if (Metrics.isEnabled()) {
+			Metrics.expanded(operation, catchment.expanded());
 		}
+		ReachResult result = new ReachResult(graph, timed, catchment.stations(), catchment.distances(), unknown);
+		Metrics.stop(operation, startTime);
+		return result;
+	}
 
-		sb.append(path.pop().toString()).append(" -> "); 			// O(1)
+	/**
+	 * Finds the station a name means, ignoring case and spacing, as every query does
+	 * @param name	a station name as typed
+	 * @return	the name of the station as listed, or null if no station has that name
+	 */
+	@Override
+	public String resolveStationName(String name) {
+		Version version = current;
+		int id = stationId(version, name);
+		return id == -1 ? null : version.graph.stationName(id);
+	}
 
-		// O(n)
-		//Add all the path to the StringBuffer
-		while (!reversedPath.isEmpty()) {
-			MetroStation station = reversedPath.pop();
+	/**
+	 * Lists the stations whose names start with the specified text, ignoring case and spacing
+	 * @param prefix	the start of a station name
+	 * @param limit	most names to list
+	 * @return	the names, in alphabetical order
+	 */
+	@Override
+	public List<String> completeStationName(String prefix, int limit) {
+		Version version = current;
+		return names(version.graph, version.names.complete(prefix, limit));
+	}
 
-			if (reversedPath.isEmpty()) {
-				sb.append(station.toString()); 				// O(1)
-			} else {
-				sb.append(station.toString()).append(" -> "); 		// O(1)
+	/**
+	 * Lists the stations whose names are up to two typing mistakes from the specified name, a mistake
+	 * being a missing, extra or wrong character, or two neighbouring characters swapped
+	 * @param name	a station name as typed
+	 * @param limit	most names to list
+	 * @return	the names, closest first
+	 */
+	@Override
+	public List<String> suggestStationNames(String name, int limit) {
+		Version version = current;
+		return names(version.graph, version.names.suggest(name, SUGGESTION_EDITS, limit));
+	}
+
+	/*
+	 * Looks up the names of stations.
+	 */
+	private static List<String> names(MetroGraph graph, int[] stations) {
+		List<String> names = new ArrayList<>(stations.length);
+		for (int station : stations) {
+			names.add(graph.stationName(station));
+		}
+		return names;
+	}
+
+	/*
+	 * Finds the id of the station a name means, spelt exactly or else ignoring case and spacing.
+	 * @param version	the version of the network to look in
+	 * @param name	a station name as typed
+	 * @return	the station id, or -1 if no station has that name
+	 */
+	private static int stationId(Version version, String name) {
+		int id = version.graph.stationId(name);
+		return id != -1 ? id : version.names.find(name);
+	}
+
+	/**
+	 * Gets a path between the specified stations as station ids.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the path, or the reason there is none
+	 */
+	@Override
+	public PathResult getPathBetween(String stationA, String stationB) {
+		return getPath(stationA, stationB, PathResult.Kind.ANY);
+	}
+
+	/**
+	 * Gets a path with the fewest stops between the specified stations as station ids.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the path, or the reason there is none
+	 */
+	@Override
+	public PathResult getShortestPathBetween(String stationA, String stationB) {
+		return getPath(stationA, stationB, PathResult.Kind.SHORTEST);
+	}
+
+	/**
+	 * Gets the route with the least travel time between the specified stations, with its lines and time.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the route, or the reason there is none
+	 */
+	@Override
+	public PathResult getFastestPathBetween(String stationA, String stationB) {
+		return getPath(stationA, stationB, PathResult.Kind.FASTEST);
+	}
+
+	/**
+	 * Gets a route with the fewest changes of line between the specified stations, with its lines.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @return	the route, or the reason there is none
+	 */
+	@Override
+	public PathResult getFewestTransfersBetween(String stationA, String stationB) {
+		return getPath(stationA, stationB, PathResult.Kind.FEWEST_TRANSFERS);
+	}
+
+	/*
+	 * Gets a path between the specified stations and formats it.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @param kind	which kind of path to find
+	 * @return	a String representation of the path
+	 */
+	private String showPath(String stationA, String stationB, PathResult.Kind kind) {
+		// O(1) once the result has been formatted before
+		return getPath(stationA, stationB, kind).toString();
+	}
+
+	/*
+	 * Finds a path between the specified stations, or takes it from the route cache.
+	 * @param stationA	the name of a station
+	 * @param stationB	the name of another station
+	 * @param kind	which kind of path to find
+	 * @return	the path, or the reason there is none
+	 */
+	private PathResult getPath(String stationA, String stationB, PathResult.Kind kind) {
+		long startTime = Metrics.start();
+		Version version = current;
+		MetroGraph graph = version.graph;
+		int start = stationId(version, stationA);
+		int end = stationId(version, stationB);
+		if (start == -1 || end == -1) {
+			Metrics.stop(OPERATIONS[kind.ordinal()], startTime);
+			return PathResult.unknown(graph, kind, stationA, stationB);
+		}
+
+		// O(1) for a pair asked for before
+		long key = RouteCache.key(start, end, kind);
+		// A route still being cached by a query on an older version is not taken
+		PathResult route = routeCache.get(key);
+		if (route == null || route.graph() != graph) {
+			route = findPath(version, start, end, kind);
+			routeCache.put(key, route);
+		}
+		Metrics.stop(OPERATIONS[kind.ordinal()], startTime);
+		return route;
+	}
+
+	/*
+	 * Runs the search for the requested kind of path between two stations.
+	 * @param version	the version of the network to search
+	 * @param start	id of the start station
+	 * @param end	id of the end station
+	 * @param kind	which kind of path to find
+	 * @return	the path, or the reason there is none
+	 */
+	private PathResult findPath(Version version, int start, int end, PathResult.Kind kind) {
+		MetroGraph graph = version.graph;
+		String from = graph.stationName(start);
+		String to = graph.stationName(end);
+		if (kind == PathResult.Kind.FASTEST) {
+			TimedRoute route = version.fastestRouteSearch.findFastestRoute(start, end);
+			if (Metrics.isEnabled()) {
+				Metrics.expanded(Metrics.Operation.FASTEST_PATH, version.fastestRouteSearch.lastExpanded());
+			}
+			if (route == null) {
+				return PathResult.noPath(graph, kind, from, to);
 			}
+			int[] stations = new int[route.size()];
+			int[] lines = new int[route.size()];
+			for (int i = 0; i < route.size(); i++) {
+				stations[i] = route.station(i);
+				lines[i] = route.line(i);
+			}
+			return PathResult.route(graph, kind, from, to, stations, lines, route.seconds(), route.interchanges());
 		}
-		
-		// O(n)
-		// Sets all stations as not visited and reset potential next stations for method re-usability
-		for (String stationName : collection.getStations().keySet()) {
-			MetroStation temp = collection.getStation(stationName);
-			temp.resetPotentialStations();
-			temp.resetVisited();
+		if (kind == PathResult.Kind.FEWEST_TRANSFERS) {
+			TransferRoute route = version.lineGraph.findFewestTransfers(start, end);
+			if (Metrics.isEnabled()) {
+				Metrics.expanded(Metrics.Operation.FEWEST_TRANSFERS, version.lineGraph.lastExpanded());
+			}
+			if (route == null) {
+				return PathResult.noPath(graph, kind, from, to);
+			}
+			int[] stations = new int[route.size()];
+			int[] lines = new int[route.size()];
+			for (int i = 0; i < route.size(); i++) {
+				stations[i] = route.station(i);
+				lines[i] = route.line(i);
+			}
+			return PathResult.route(graph, kind, from, to, stations, lines, -1, route.transfers());
 		}
 
-		long endTime = (new Date().getTime());
-		long elapsedTime = endTime - startTime;
-		System.out.println("Elapsed Time: " + elapsedTime);
+		// O(n), or O(label size) through the hub labels
+		// The search keeps its own visited state, so nothing has to be reset afterwards
+		boolean shortest = kind == PathResult.Kind.SHORTEST;
+		int[] path = new int[32];
+		int length = search(version, start, end, path, shortest);
+		if (length > path.length) {
+			path = new int[length];
+			length = search(version, start, end, path, shortest);
+		}
+		// A label lookup expands nothing
+		if (Metrics.isEnabled() && !(shortest && version.hubLabels != null)) {
+			Metrics.expanded(OPERATIONS[kind.ordinal()], version.pathSearch.lastExpanded());
+		}
+		if (length == -1) {
+			return PathResult.noPath(graph, kind, from, to);
+		}
+		return PathResult.path(graph, kind, from, to, Arrays.copyOf(path, length));
+	}
 
-		return sb.toString();
+	/*
+	 * Runs the requested search, a fewest-stops path being read off the hub labels when the version has them.
+	 * @return	number of stations on the path, or -1 if there is none
+	 */
+	private static int search(Version version, int start, int end, int[] path, boolean shortest) {
+		if (!shortest) {
+			return version.pathSearch.findPath(start, end, path);
+		}
+		if (version.hubLabels != null) {
+			return version.hubLabels.findShortestPath(start, end, path);
+		}
+		return version.pathSearch.findShortestPath(start, end, path);
 	}
 }
@@ -0,0 +1,259 @@
+package metro;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Regression tests for lines with branches and loops.
+ * Each test changes a small network and compares it with the network it should become, loaded from a
+ * csv of its own: the runs of every line, the lines of every station and the stations next to it, the
+ * termini, the stops between every pair of stations and the lines of a route with the fewest changes
+ * between every pair.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+class MetroLineTest {
+
+	private static final String TKO = "TKO,North Point,Quarry Bay,Yau Tong,Tiu Keng Leng,Tseung Kwan O,Hang Hau,Po Lam\n"
+			+ "TKO,Tseung Kwan O,LOHAS Park\n";
+
+	// A loop losing the station it starts from closes again at the next station
+
+	@Test
+	void loopStartRemoved() throws IOException {
+		assertBecomes("Ring,A,B,C,D,A\n", s -> s.removeStation("A"),
+				"Ring,B,C,D,B\n");
+	}
+
+	@Test
+	void loopOfThreeLosingItsStart() throws IOException {
+		assertBecomes("Ring,A,B,C,A\n", s -> s.removeStation("A"),
+				"Ring,B,C\n");
+	}
+
+	@Test
+	void loopStationRemoved() throws IOException {
+		assertBecomes("Ring,A,B,C,D,A\nCross,C,X\n", s -> s.removeStation("C"),
+				"Ring,A,B,D,A\nCross,X\n");
+	}
+
+	// A branch losing its junction leaves from the station before it, or after it at the start of the line
+
+	@Test
+	void junctionRemoved() throws IOException {
+		assertBecomes("Tree,X,Y,Z\nTree,Y,W,V\n", s -> s.removeStation("Y"),
+				"Tree,X,Z\nTree,X,W,V\n");
+	}
+
+	@Test
+	void junctionAtTheStartRemoved() throws IOException {
+		assertBecomes("Tree,Y,X\nTree,Y,W\n", s -> s.removeStation("Y"),
+				"Tree,X\nTree,X,W\n");
+	}
+
+	@Test
+	void junctionNextToTheBranchRemoved() throws IOException {
+		assertBecomes("Tree,X,Y,Z\nTree,Y,X\n", s -> s.removeStation("Y"),
+				"Tree,X,Z\n");
+	}
+
+	@Test
+	void branchFromALoopStartRemoved() throws IOException {
+		assertBecomes("Circle,A,B,C,D,A\nCircle,A,E,F\n", s -> s.removeStation("A"),
+				"Circle,B,C,D,B\nCircle,B,E,F\n");
+	}
+
+	@Test
+	void balloonJunctionRemoved() throws IOException {
+		assertBecomes("Line,X,S,Y\nLine,S,P,Q,R,S\n", s -> s.removeStation("S"),
+				"Line,X,Y\nLine,X,P,Q,R,P\n");
+	}
+
+	@Test
+	void junctionOfTwoBranchesRemoved() throws IOException {
+		assertBecomes("Line,A,B,C\nLine,B,D\nLine,B,E,F\n", s -> s.removeStation("B"),
+				"Line,A,C\nLine,A,D\nLine,A,E,F\n");
+	}
+
+	// Closing a segment moves the branches leaving beyond it to the new line, and the rest of a run is kept
+
+	@Test
+	void closedBeforeAJunction() throws IOException {
+		assertBecomes(TKO, s -> s.closeSegment("TKO", "Quarry Bay", "Yau Tong"),
+				"TKO,North Point,Quarry Bay\n"
+				+ "TKO (Yau Tong - Po Lam),Yau Tong,Tiu Keng Leng,Tseung Kwan O,Hang Hau,Po Lam\n"
+				+ "TKO (Yau Tong - Po Lam),Tseung Kwan O,LOHAS Park\n");
+	}
+
+	@Test
+	void junctionRemovedAfterClosingBeforeIt() throws IOException {
+		assertBecomes(TKO, s -> {
+					s.closeSegment("TKO", "Quarry Bay", "Yau Tong");
+					s.removeStation("Tseung Kwan O");
+				},
+				"TKO,North Point,Quarry Bay\n"
+				+ "TKO (Yau Tong - Po Lam),Yau Tong,Tiu Keng Leng,Hang Hau,Po Lam\n"
+				+ "TKO (Yau Tong - Po Lam),Tiu Keng Leng,LOHAS Park\n");
+	}
+
+	@Test
+	void closedAtTheStartOfABranch() throws IOException {
+		assertBecomes("Tree,X,Y,Z\nTree,Y,W,V\n", s -> s.closeSegment("Tree", "Y", "W"),
+				"Tree,X,Y,Z\nTree (W - V),W,V\n");
+	}
+
+	@Test
+	void closedBeforeABranchOfABranch() throws IOException {
+		assertBecomes("Line,A,B,C\nLine,B,D,E\nLine,D,F\n", s -> s.closeSegment("Line", "A", "B"),
+				"Line,A\nLine (B - C),B,C\nLine (B - C),B,D,E\nLine (B - C),D,F\n");
+	}
+
+	@Test
+	void closedWhereABranchJoinsTheTwoSides() throws IOException {
+		assertBecomes("Line,A,B,C\nLine,B,D,C\n", s -> s.closeSegment("Line", "B", "C"),
+				"Line,A,B\nLine,B,D,C\n");
+	}
+
+	@Test
+	void closedBeyondAJunction() throws IOException {
+		assertBecomes("Line,A,B,C,D\nLine,B,X\n", s -> s.closeSegment("Line", "C", "D"),
+				"Line,A,B,C\nLine,B,X\nLine (D - D),D\n");
+	}
+
+	// A branch starting off its line is not joined to it, and either loader must reject it
+
+	@Test
+	void branchOffTheLineRejected() throws IOException {
+		Path file = write("K,X,Y\nK,Z,W\n");
+		try {
+			assertThrows(IOException.class, () -> new CsvNetworkLoader(file.toString()).load());
+			assertThrows(IOException.class, () -> new ParallelNetworkLoader(file.toString(), 2).load());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/*
+	 * Changes a network and compares it with the network it should become.
+	 */
+	private static void assertBecomes(String csv, Consumer<MetroSystem> change, String expectedCsv)
+			throws IOException {
+		MetroSystem system = load(csv);
+		change.accept(system);
+		MetroSystem expected = load(expectedCsv);
+		List<String> problems = new ArrayList<>();
+
+		for (MetroLine line : expected.getLines().values()) {
+			MetroLine actual = system.getOneLine(line.toString());
+			if (!runs(line).equals(runs(actual))) {
+				problems.add(line + " runs " + runs(actual) + ", expected " + runs(line));
+			}
+			if (!names(line.getTermini()).equals(names(actual.getTermini()))) {
+				problems.add(line + " termini " + names(actual.getTermini()) + ", expected " + names(line.getTermini()));
+			}
+		}
+		for (MetroStation station : expected.getStations().values()) {
+			MetroStation actual = system.getStation(station.toString());
+			if (!station.getLines().keySet().equals(actual.getLines().keySet())) {
+				problems.add(station + " on " + actual.getLines().keySet() + ", expected " + station.getLines().keySet());
+			}
+			List<String> next = sorted(names(actual.getConnectingStations()));
+			if (!sorted(names(station.getConnectingStations())).equals(next)) {
+				problems.add(station + " next to " + next + ", expected " + sorted(names(station.getConnectingStations())));
+			}
+		}
+
+		MetroGraph graph = new MetroGraph(system);
+		MetroGraph expectedGraph = new MetroGraph(expected);
+		LineGraph lineGraph = new LineGraph(graph);
+		LineGraph expectedLineGraph = new LineGraph(expectedGraph);
+		for (int line = 0; line < expectedGraph.lineCount(); line++) {
+			int actualLine = graph.lineId(expectedGraph.lineName(line));
+			for (int a = 0; a < expectedGraph.stationCount(); a++) {
+				for (int b = 0; b < expectedGraph.stationCount(); b++) {
+					int stops = expectedGraph.stopsAlong(line, a, b);
+					int actualStops = graph.stopsAlong(actualLine, id(graph, expectedGraph, a), id(graph, expectedGraph, b));
+					if (stops != actualStops) {
+						problems.add(expectedGraph.lineName(line) + " stops " + expectedGraph.stationName(a) + " to "
+								+ expectedGraph.stationName(b) + " " + actualStops + ", expected " + stops);
+					}
+				}
+			}
+		}
+		for (int a = 0; a < expectedGraph.stationCount(); a++) {
+			for (int b = 0; b < expectedGraph.stationCount(); b++) {
+				TransferRoute route = expectedLineGraph.findFewestTransfers(a, b);
+				TransferRoute actualRoute = lineGraph.findFewestTransfers(id(graph, expectedGraph, a), id(graph, expectedGraph, b));
+				int lines = route == null ? -1 : route.legs();
+				int actualLines = actualRoute == null ? -1 : actualRoute.legs();
+				if (lines != actualLines) {
+					problems.add("route " + expectedGraph.stationName(a) + " to " + expectedGraph.stationName(b) + " rides "
+							+ actualLines + " lines, expected " + lines);
+				}
+			}
+		}
+		assertTrue(problems.isEmpty(), String.join("\n", problems));
+	}
+
+	private static MetroSystem load(String csv) throws IOException {
+		Path file = write(csv);
+		try {
+			return new CsvNetworkLoader(file.toString()).load();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static Path write(String csv) throws IOException {
+		Path file = Files.createTempFile("line-model", ".csv");
+		Files.writeString(file, csv);
+		return file;
+	}
+
+	/*
+	 * @return the stations of each run of the line
+	 */
+	private static List<List<String>> runs(MetroLine line) {
+		List<List<String>> runs = new ArrayList<>();
+		for (int run = 0; run < line.getRunCount(); run++) {
+			int end = run + 1 < line.getRunCount() ? line.getRunStart(run + 1) : line.getSize();
+			List<String> stations = new ArrayList<>();
+			for (int i = line.getRunStart(run); i < end; i++) {
+				stations.add(line.getStation(i).toString());
+			}
+			runs.add(stations);
+		}
+		return runs;
+	}
+
+	private static List<String> names(List<MetroStation> stations) {
+		List<String> names = new ArrayList<>(stations.size());
+		for (MetroStation station : stations) {
+			names.add(station.toString());
+		}
+		return names;
+	}
+
+	private static List<String> sorted(List<String> names) {
+		Collections.sort(names);
+		return names;
+	}
+
+	/*
+	 * @return id in one graph of a station of another
+	 */
+	private static int id(MetroGraph graph, MetroGraph other, int station) {
+		return graph.stationId(other.stationName(station));
+	}
+}
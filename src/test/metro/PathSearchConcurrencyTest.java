@@ -0,0 +1,78 @@
+package metro;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * A concurrency stress test for {@link PathSearch}.
+ * Many threads query one shared {@link MetroGraph} of the bundled network at the same time, and every
+ * answer must match the answer of a single threaded run.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+class PathSearchConcurrencyTest {
+
+	private static final int PAIRS = 4096;
+	private static final int QUERIES_PER_THREAD = 20_000;
+
+	@Test
+	void concurrentQueriesMatchSingleThreadedAnswers() throws Exception {
+		MetroGraph graph = new MetroGraph(new CsvNetworkLoader("resources/MTRsystem_partial.csv").load());
+		PathSearch search = new PathSearch(graph);
+
+		// A fixed set of pairs with their single threaded answers
+		Random random = new Random(42);
+		int[] from = new int[PAIRS];
+		int[] to = new int[PAIRS];
+		int[][] expected = new int[PAIRS][];
+		int[] buffer = new int[graph.stationCount()];
+		for (int i = 0; i < PAIRS; i++) {
+			from[i] = random.nextInt(graph.stationCount());
+			to[i] = random.nextInt(graph.stationCount());
+			int length = search.findShortestPath(from[i], to[i], buffer);
+			expected[i] = length == -1 ? new int[0] : Arrays.copyOf(buffer, length);
+		}
+
+		int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+		for (int threads = 2; threads <= maxThreads; threads *= 2) {
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			List<Callable<Integer>> tasks = new ArrayList<>(threads);
+			for (int t = 0; t < threads; t++) {
+				int offset = t * 7919;
+				tasks.add(() -> {
+					int[] result = new int[graph.stationCount()];
+					int mismatches = 0;
+					for (int q = 0; q < QUERIES_PER_THREAD; q++) {
+						int i = (offset + q) % PAIRS;
+						int length = Math.max(search.findShortestPath(from[i], to[i], result), 0);
+						if (!Arrays.equals(result, 0, length, expected[i], 0, expected[i].length)) {
+							mismatches++;
+						}
+					}
+					return mismatches;
+				});
+			}
+
+			int mismatches = 0;
+			try {
+				for (Future<Integer> future : pool.invokeAll(tasks)) {
+					mismatches += future.get();
+				}
+			} finally {
+				pool.shutdown();
+			}
+			assertEquals(0, mismatches, "answers differing from a single thread with " + threads + " threads");
+		}
+	}
+}
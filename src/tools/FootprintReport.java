@@ -0,0 +1,96 @@
+package tools;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+
+import metro.CsvNetworkLoader;
+import metro.MetroGraph;
+import metro.MetroStation;
+import metro.MetroSystem;
+
+/**
+ * Measures the heap a network takes, as the object model a csv loads into and as the integer
+ * indexed graph queries run over, in bytes per station and per line, to size the heap for a network.
+ * <p>
+ * Each part is measured as the heap still in use after collecting garbage, once with the part held
+ * and once without. The stations of the object model are measured apart, as copies holding their names
+ * and neighbours but no lines, and the rest is counted to the lines. The JVM's own allocations add
+ * some tens of kilobytes of noise, so only networks of thousands of stations give steady figures.
+ * Run it alone in its JVM with a stop-the-world collector so the collections settle:
+ * <p>
+ * Usage: {@code java -XX:+UseSerialGC -cp target/classes tools.FootprintReport <network.csv>}
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class FootprintReport {
+
+	//collections run at most this many times for the heap in use to settle
+	private static final int MAX_COLLECTIONS = 10;
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: FootprintReport <network.csv>");
+			return;
+		}
+		long empty = heapInUse();
+		MetroSystem system = new CsvNetworkLoader(args[0]).load();
+		long systemBytes = heapInUse() - empty;
+		int stations = system.stationCount();
+		int lines = system.size();
+
+		// The same stations and neighbours again, with names of their own and no lines
+		long before = heapInUse();
+		MetroStation[] copies = new MetroStation[stations];
+		for (int s = 0; s < stations; s++) {
+			copies[s] = new MetroStation(new String(system.getStation(s).toString()));
+		}
+		for (int s = 0; s < stations; s++) {
+			for (MetroStation next : system.getStation(s).getConnectingStations()) {
+				copies[s].addNextStation(copies[next.getIndex()]);
+			}
+		}
+		// The array holding the copies is not part of a station
+		long stationBytes = heapInUse() - before - arrayBytes(stations);
+		Reference.reachabilityFence(copies);
+
+		// The graph is measured on its own, as it shares its names with the system
+		MetroGraph graph = new MetroGraph(system);
+		system = null;
+		copies = null;
+		long graphBytes = heapInUse() - empty;
+
+		System.out.printf("%d stations, %d lines%n", graph.stationCount(), graph.lineCount());
+		System.out.printf("object model %,d bytes: %.0f per station, %.0f per line%n", systemBytes,
+				(double) stationBytes / Math.max(1, stations), (double) (systemBytes - stationBytes) / Math.max(1, lines));
+		System.out.printf("graph        %,d bytes: %.0f per station, %.1fx smaller%n", graphBytes,
+				(double) graphBytes / Math.max(1, stations), (double) systemBytes / Math.max(1, graphBytes));
+	}
+
+	/*
+	 * Collects garbage until the heap in use stops shrinking, then returns it.
+	 */
+	private static long heapInUse() {
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < MAX_COLLECTIONS; i++) {
+			System.gc();
+			long now = MEMORY.getHeapMemoryUsage().getUsed();
+			if (now >= used) {
+				return now;
+			}
+			used = now;
+		}
+		return used;
+	}
+
+	/*
+	 * Estimates the heap of an array of references, with compressed references.
+	 */
+	private static long arrayBytes(int length) {
+		return (16 + 4L * length + 7) & ~7L;
+	}
+}
@@ -0,0 +1,142 @@
+package tools;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import metrics.LatencyHistogram;
+import mvc.HttpService;
+import mvc.WorkingController;
+
+/**
+ * A load test for {@link HttpService}. Path queries between random termini, cycling through every
+ * kind of path, are sent from many concurrent clients, and the requests per second and the latency
+ * percentiles seen by the clients are printed.
+ * <p>
+ * Given a csv the service is started in this JVM on a free local port, given a URL an already
+ * running service is tested.
+ * <p>
+ * Usage: {@code HttpLoadTest [csv | http://host:port] [requests] [clients]}
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class HttpLoadTest {
+
+	private static final String[] KINDS = {"any", "shortest", "fastest", "transfers"};
+	private static final Pattern TERMINUS = Pattern.compile("\"(?:first|last)\":\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+	public static void main(String[] args) throws Exception {
+		String target = args.length > 0 ? args[0] : "resources/MTRsystem_partial.csv";
+		int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+		int clients = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+
+		HttpService service = null;
+		String base = target;
+		if (!target.startsWith("http")) {
+			service = new HttpService(new WorkingController(target), 0);
+			service.start();
+			base = "http://localhost:" + service.port();
+		}
+		if (base.endsWith("/")) {
+			base = base.substring(0, base.length() - 1);
+		}
+
+		HttpClient client = HttpClient.newBuilder().executor(HttpService.newThreadPerRequestExecutor()).build();
+		List<String> stations = termini(client, base);
+		if (stations.isEmpty()) {
+			throw new IllegalStateException("The service at " + base + " has no termini to query between");
+		}
+
+		// One warm up round, so the percentiles show the service rather than the JIT
+		run(client, base, stations, Math.min(requests, 2_000), clients, new LatencyHistogram());
+
+		LatencyHistogram latencies = new LatencyHistogram();
+		long start = System.nanoTime();
+		long errors = run(client, base, stations, requests, clients, latencies);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.printf("requests=%d clients=%d errors=%d requests/s=%.0f%n",
+				latencies.count(), clients, errors, latencies.count() * 1e9 / elapsed);
+		System.out.printf("latency us: mean=%.1f p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+				latencies.mean() / 1000, latencies.percentile(50) / 1000.0, latencies.percentile(90) / 1000.0,
+				latencies.percentile(99) / 1000.0, latencies.percentile(99.9) / 1000.0, latencies.max() / 1000.0);
+
+		if (service != null) {
+			service.stop();
+		}
+	}
+
+	/*
+	 * Sends the requests from the specified number of concurrent clients, each waiting for its answer before the next.
+	 * @return number of requests that failed or were not answered with 200
+	 */
+	private static long run(HttpClient client, String base, List<String> stations, int requests, int clients,
+			LatencyHistogram latencies) throws Exception {
+		AtomicLong errors = new AtomicLong();
+		ExecutorService pool = HttpService.newThreadPerRequestExecutor();
+		List<Future<?>> futures = new ArrayList<>(clients);
+		for (int c = 0; c < clients; c++) {
+			int share = requests / clients + (c < requests % clients ? 1 : 0);
+			long seed = 42 + c;
+			futures.add(pool.submit(() -> {
+				Random random = new Random(seed);
+				for (int i = 0; i < share; i++) {
+					String from = stations.get(random.nextInt(stations.size()));
+					String to = stations.get(random.nextInt(stations.size()));
+					URI uri = URI.create(base + "/path?from=" + encode(from) + "&to=" + encode(to)
+							+ "&kind=" + KINDS[i % KINDS.length]);
+					long sent = System.nanoTime();
+					try {
+						HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(),
+								HttpResponse.BodyHandlers.ofString());
+						if (response.statusCode() != 200) {
+							errors.incrementAndGet();
+						}
+					} catch (Exception e) {
+						errors.incrementAndGet();
+					}
+					latencies.record(System.nanoTime() - sent);
+				}
+				return null;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		pool.shutdown();
+		return errors.get();
+	}
+
+	/*
+	 * Asks the service for its termini, the stations the test queries between.
+	 */
+	private static List<String> termini(HttpClient client, String base) throws Exception {
+		HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/termini")).build(),
+				HttpResponse.BodyHandlers.ofString());
+		List<String> stations = new ArrayList<>();
+		Matcher matcher = TERMINUS.matcher(response.body());
+		while (matcher.find()) {
+			String name = matcher.group(1).replace("\\\"", "\"").replace("\\\\", "\\");
+			if (!stations.contains(name)) {
+				stations.add(name);
+			}
+		}
+		return stations;
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+	}
+}
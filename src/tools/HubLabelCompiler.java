@@ -0,0 +1,77 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import metro.CsvNetworkLoader;
+import metro.HubLabels;
+import metro.MetroGraph;
+import metro.PathSearch;
+
+/**
+ * Builds the hub labels of a network csv and writes them next to it, where {@link mvc.WorkingController}
+ * reads them at startup to answer fewest-stops paths. The size of the labels and the time of a
+ * query through them and through a search are printed.
+ * <p>
+ * Usage: {@code HubLabelCompiler <network.csv> [queries]}
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class HubLabelCompiler {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: HubLabelCompiler <network.csv> [queries]");
+			return;
+		}
+		int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+		Path file = HubLabels.labelsFor(args[0]);
+
+		long start = System.nanoTime();
+		MetroGraph graph = new MetroGraph(new CsvNetworkLoader(args[0]).load());
+		long loaded = System.nanoTime();
+		HubLabels labels = HubLabels.build(graph);
+		long built = System.nanoTime();
+		labels.write(file);
+		long written = System.nanoTime();
+
+		int largest = 0;
+		for (int s = 0; s < graph.stationCount(); s++) {
+			largest = Math.max(largest, labels.labelSize(s));
+		}
+		System.out.printf("%d stations, %d label entries, %.1f per station, largest %d%n", graph.stationCount(),
+				labels.entries(), (double) labels.entries() / Math.max(1, graph.stationCount()), largest);
+		System.out.printf("csv load %d ms, labels build %d ms, labels write %d ms%n",
+				(loaded - start) / 1_000_000, (built - loaded) / 1_000_000, (written - built) / 1_000_000);
+		if (graph.stationCount() == 0) {
+			return;
+		}
+
+		// The same random pairs through the labels and through the bidirectional search
+		PathSearch search = new PathSearch(graph);
+		int[] path = new int[graph.stationCount() + 1];
+		long checksum = 0;
+		for (int round = 0; round < 2; round++) {
+			Random random = new Random(42);
+			long labelStart = System.nanoTime();
+			for (int i = 0; i < queries; i++) {
+				checksum += labels.findShortestPath(random.nextInt(graph.stationCount()), random.nextInt(graph.stationCount()), path);
+			}
+			random = new Random(42);
+			long searchStart = System.nanoTime();
+			for (int i = 0; i < queries; i++) {
+				checksum -= search.findShortestPath(random.nextInt(graph.stationCount()), random.nextInt(graph.stationCount()), path);
+			}
+			long searchEnd = System.nanoTime();
+			if (round == 1) {
+				System.out.printf("path through labels %.2f us, by search %.2f us%n",
+						(searchStart - labelStart) / 1000.0 / queries, (searchEnd - searchStart) / 1000.0 / queries);
+			}
+		}
+		if (checksum != 0) {
+			System.out.println("Labels And Search Disagree On Path Lengths");
+		}
+	}
+}
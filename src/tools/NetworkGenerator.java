@@ -0,0 +1,143 @@
+package tools;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Writes synthetic metro networks in the {@code line,station,station,...} csv format read by
+ * {@link mvc.WorkingController}, for scale testing the metro model.
+ * <p>
+ * Every line after the first shares at least one station with an earlier line so the network is
+ * connected. Any other position becomes an interchange with the given probability, reusing a
+ * random station of an earlier line. Walkable links are two-station lines between random stations,
+ * like the {@code Walkable} row of the bundled csv. The same parameters and seed always give the
+ * same file.
+ * <p>
+ * Usage: {@code NetworkGenerator <output.csv> <lines> <stationsPerLine> [interchangeDensity] [walkableLinks] [seed]}
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class NetworkGenerator {
+
+	private final int lines;
+	private final int stationsPerLine;
+	private final double interchangeDensity;
+	private final int walkableLinks;
+	private final long seed;
+
+	/**
+	 * Constructs a new {@link NetworkGenerator}
+	 * @param lines number of lines, at least 1
+	 * @param stationsPerLine number of stations on each line, at least 2
+	 * @param interchangeDensity probability that a station of a line is shared with an earlier line, 0 to 1
+	 * @param walkableLinks number of walkable links between random stations
+	 * @param seed seed of the random choices
+	 */
+	public NetworkGenerator(int lines, int stationsPerLine, double interchangeDensity, int walkableLinks, long seed) {
+		if (lines < 1 || stationsPerLine < 2) {
+			throw new IllegalArgumentException("Need at least one line of two stations");
+		}
+		if (interchangeDensity < 0 || interchangeDensity > 1) {
+			throw new IllegalArgumentException("Interchange density must be between 0 and 1: " + interchangeDensity);
+		}
+		if (walkableLinks < 0) {
+			throw new IllegalArgumentException("Walkable links must not be negative: " + walkableLinks);
+		}
+		this.lines = lines;
+		this.stationsPerLine = stationsPerLine;
+		this.interchangeDensity = interchangeDensity;
+		this.walkableLinks = walkableLinks;
+		this.seed = seed;
+	}
+
+	/**
+	 * Writes the network to a file, replacing any existing content
+	 * @param file the csv to write
+	 * @return number of distinct stations written
+	 * @throws IOException if the file cannot be written
+	 */
+	public int write(Path file) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(file)) {
+			return write(out);
+		}
+	}
+
+	/**
+	 * Writes the network, one csv row per line
+	 * @param out where to write the rows, not closed
+	 * @return number of distinct stations written
+	 * @throws IOException if writing fails
+	 */
+	public int write(Writer out) throws IOException {
+		Random random = new Random(seed);
+		//line that last used each station, so a line never repeats a station
+		int[] usedBy = new int[Math.max(16, stationsPerLine)];
+		int stations = 0;
+		StringBuilder row = new StringBuilder();
+
+		for (int l = 0; l < lines; l++) {
+			row.setLength(0);
+			row.append("Line ").append(l);
+			//earlier lines own the stations below this
+			int lineStart = stations;
+			//position guaranteed to join an earlier line
+			int link = l == 0 ? -1 : random.nextInt(stationsPerLine);
+			for (int p = 0; p < stationsPerLine; p++) {
+				int station = -1;
+				if (l > 0 && (p == link || random.nextDouble() < interchangeDensity)) {
+					// A few tries avoid a station this line already took
+					for (int tries = 0; tries < 4 && station == -1; tries++) {
+						int candidate = random.nextInt(lineStart);
+						if (usedBy[candidate] != l + 1) {
+							station = candidate;
+						}
+					}
+				}
+				if (station == -1) {
+					station = stations++;
+					if (station == usedBy.length) {
+						usedBy = Arrays.copyOf(usedBy, usedBy.length * 2);
+					}
+				}
+				usedBy[station] = l + 1;
+				row.append(",S").append(station);
+			}
+			out.write(row.toString());
+			out.write('\n');
+		}
+
+		for (int w = 0; w < walkableLinks && stations > 1; w++) {
+			int a = random.nextInt(stations);
+			int b = random.nextInt(stations - 1);
+			if (b >= a) {
+				b++;
+			}
+			out.write("Walkable " + w + ",S" + a + ",S" + b + "\n");
+		}
+		return stations;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 3) {
+			System.out.println("Usage: NetworkGenerator <output.csv> <lines> <stationsPerLine> "
+					+ "[interchangeDensity] [walkableLinks] [seed]");
+			return;
+		}
+		NetworkGenerator generator = new NetworkGenerator(
+				Integer.parseInt(args[1]),
+				Integer.parseInt(args[2]),
+				args.length > 3 ? Double.parseDouble(args[3]) : 0.05,
+				args.length > 4 ? Integer.parseInt(args[4]) : 0,
+				args.length > 5 ? Long.parseLong(args[5]) : 42L);
+		long start = System.nanoTime();
+		int stations = generator.write(Paths.get(args[0]));
+		System.out.printf("Wrote %d stations in %d ms%n", stations, (System.nanoTime() - start) / 1_000_000);
+	}
+}
@@ -0,0 +1,42 @@
+package tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import metro.CsvNetworkLoader;
+import metro.GraphSnapshot;
+import metro.MetroGraph;
+
+/**
+ * Compiles a network csv into the binary snapshot that {@link mvc.WorkingController} maps at startup.
+ * <p>
+ * Usage: {@code SnapshotCompiler <network.csv> [snapshot]}, the snapshot defaults to the csv path
+ * followed by {@code .snapshot}.
+ *
+ * @author Li He
+ * @version 18/10/2026
+ */
+public class SnapshotCompiler {
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: SnapshotCompiler <network.csv> [snapshot]");
+			return;
+		}
+		Path csv = Paths.get(args[0]);
+		Path snapshot = args.length > 1 ? Paths.get(args[1]) : GraphSnapshot.snapshotFor(args[0]);
+
+		long start = System.nanoTime();
+		MetroGraph graph = new MetroGraph(new CsvNetworkLoader(args[0]).load());
+		long loaded = System.nanoTime();
+		GraphSnapshot.write(graph, csv, snapshot);
+		long written = System.nanoTime();
+		GraphSnapshot.read(snapshot, csv);
+		long read = System.nanoTime();
+
+		System.out.printf("%d stations, %d lines%n", graph.stationCount(), graph.lineCount());
+		System.out.printf("csv load %d ms, snapshot write %d ms, snapshot read %d ms%n",
+				(loaded - start) / 1_000_000, (written - loaded) / 1_000_000, (read - written) / 1_000_000);
+	}
+}